@@ -0,0 +1,81 @@
+package com.example.jwt_redis.jwt;
+
+import com.example.jwt_redis.redis.ClientSideCache;
+import com.example.jwt_redis.redis.RedisCircuitBreaker;
+import com.example.jwt_redis.redis.RevokedTokenStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.concurrent.TimeUnit;
+
+// mock 서블릿 객체로 JwtFilter의 토큰 추출과 doFilter 전체 비용을 측정한다.
+// 폐기 목록이 비어있으므로 RevokedTokenStore는 Redis를 호출하지 않는다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtFilterBenchmark {
+
+    private JwtFilter filter;
+    private JwtFilter cachingFilter;
+    private MockHttpServletRequest authenticatedRequest;
+    private MockHttpServletRequest anonymousRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        TokenProvider tokenProvider = TokenProviderBenchmark.newTokenProvider();
+        String token = tokenProvider.createToken(TokenProviderBenchmark.newAuthentication());
+        RevokedTokenStore revokedTokenStore = new RevokedTokenStore(new StringRedisTemplate(),
+                new RedisCircuitBreaker(5, 5000), ClientSideCache.disabled(), 1000, 0.01, 1800);
+
+        SecurityEventLogger securityEventLogger = new SecurityEventLogger();
+        RequestMatcher permitAllMatcher = new AntPathRequestMatcher("/api/hello");
+
+        filter = new JwtFilter(tokenProvider, new VerifiedTokenCache(false, 0), revokedTokenStore,
+                securityEventLogger, TokenVersionChecker.disabled(), permitAllMatcher);
+        cachingFilter = new JwtFilter(tokenProvider, new VerifiedTokenCache(true, 10000), revokedTokenStore,
+                securityEventLogger, TokenVersionChecker.disabled(), permitAllMatcher);
+
+        authenticatedRequest = new MockHttpServletRequest("GET", "/api/user");
+        authenticatedRequest.addHeader(JwtFilter.AUTHORIZATION_HEADER, "Bearer " + token);
+        anonymousRequest = new MockHttpServletRequest("GET", "/api/hello");
+    }
+
+    @Benchmark
+    public String resolveToken() {
+        return filter.resolveToken(authenticatedRequest);
+    }
+
+    @Benchmark
+    public void doFilterAuthenticated(Blackhole blackhole) throws Exception {
+        filter.doFilter(authenticatedRequest, new MockHttpServletResponse(), new MockFilterChain());
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void doFilterAuthenticatedCached(Blackhole blackhole) throws Exception {
+        cachingFilter.doFilter(authenticatedRequest, new MockHttpServletResponse(), new MockFilterChain());
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    // permitAll 경로는 토큰 파싱 없이 통과한다.
+    @Benchmark
+    public void doFilterAnonymous() throws Exception {
+        filter.doFilter(anonymousRequest, new MockHttpServletResponse(), new MockFilterChain());
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.jwt_redis.jwt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+// 서명 알고리즘별 토큰 발급(서명)과 검증 비용을 비교한다.
+// EdDSA는 jjwt 0.11.2가 지원하지 않아서 제외한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SigningAlgorithmBenchmark {
+
+    @Param({"HS512", "RS256", "ES256"})
+    private String algorithm;
+
+    private TokenProvider tokenProvider;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        tokenProvider = TokenProviderBenchmark.newTokenProvider(algorithm, false);
+        authentication = TokenProviderBenchmark.newAuthentication();
+        token = tokenProvider.createToken(authentication);
+    }
+
+    @Benchmark
+    public String sign() {
+        return tokenProvider.createToken(authentication);
+    }
+
+    @Benchmark
+    public TokenVerification verify() {
+        return tokenProvider.verify(token);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.jwt_redis.jwt;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// 잘못된 토큰을 jjwt 파싱 전에 거절할 때와 jjwt에 바로 넘길 때(예외 + stack trace)의 비용을 비교한다.
+// -prof gc(build.gradle)의 gc.alloc.rate.norm으로 토큰 종류별 연산당 할당량도 같이 본다.
+// - garbage  : 점(.)이 없는 임의의 문자열
+// - alg-none : 서명이 없는 토큰 (alg: none)
+// - expired  : 서명은 맞지만 만료된 토큰
+// - valid    : 정상 토큰 (두 방식 모두 서명까지 검증한다)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenPreValidationBenchmark {
+
+    @Param({"garbage", "alg-none", "expired", "valid"})
+    private String tokenType;
+
+    private TokenProvider tokenProvider;
+    private JwtParser jwtParser;
+    private String token;
+    private String header;
+
+    @Setup
+    public void setUp() throws Exception {
+        tokenProvider = TokenProviderBenchmark.newTokenProvider();
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(TokenProviderBenchmark.SECRET));
+        jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+
+        switch (tokenType) {
+            case "garbage":
+                token = "this-is-not-a-jwt-" + UUID.randomUUID();
+                break;
+            case "alg-none":
+                token = Jwts.builder()
+                        .setSubject("admin")
+                        .claim("auth", "ROLE_USER,ROLE_ADMIN")
+                        .setExpiration(new Date(System.currentTimeMillis() + 3600000))
+                        .compact();
+                break;
+            case "expired":
+                token = Jwts.builder()
+                        .setId(UUID.randomUUID().toString())
+                        .setSubject("admin")
+                        .claim("auth", "ROLE_USER,ROLE_ADMIN")
+                        .signWith(key, SignatureAlgorithm.HS512)
+                        .setExpiration(new Date(System.currentTimeMillis() - 3600000))
+                        .compact();
+                break;
+            default:
+                token = tokenProvider.createToken(TokenProviderBenchmark.newAuthentication());
+        }
+        header = "Bearer " + token;
+    }
+
+    // TokenProvider.verify: 형식 검사 후 통과한 토큰만 jjwt로 검증
+    @Benchmark
+    public TokenVerification verify() {
+        return tokenProvider.verify(token);
+    }
+
+    // JwtFilter가 헤더에서 토큰을 잘라내기 전에 하는 형식 검사
+    @Benchmark
+    public TokenVerification.Reason preValidateHeader() {
+        return tokenProvider.preValidate(header, 7);
+    }
+
+    // 형식 검사 없이 jjwt에 바로 넘기고 예외로 실패 사유를 구분하는 이전 방식
+    @Benchmark
+    public Object jjwtOnly() {
+        try {
+            return jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
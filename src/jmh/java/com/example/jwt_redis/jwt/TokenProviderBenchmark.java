@@ -0,0 +1,91 @@
+package com.example.jwt_redis.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// TokenProvider의 토큰 생성/검증/Authentication 생성 비용을 측정한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenProviderBenchmark {
+
+    static final String SECRET = "c2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQtc2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQK";
+
+    // true면 권한을 비트마스크(rl claim)로 넣는 compact 토큰을 사용한다.
+    @Param({"false", "true"})
+    private boolean compactClaims;
+
+    private TokenProvider tokenProvider;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        tokenProvider = newTokenProvider("HS512", compactClaims);
+        authentication = newAuthentication();
+        token = tokenProvider.createToken(authentication);
+    }
+
+    static TokenProvider newTokenProvider() throws Exception {
+        return newTokenProvider("HS512", false);
+    }
+
+    // Redis 연결 없이 만들기 때문에 비대칭 키는 이 노드의 키만 사용한다.
+    // 권한 비트는 data.sql과 같게 지정한다.
+    static TokenProvider newTokenProvider(String algorithm, boolean compactClaims) throws Exception {
+        JwtKeyManager keyManager = new JwtKeyManager(algorithm, SECRET, 1800, 86400000, 30000,
+                new StringRedisTemplate(), new ObjectMapper());
+        keyManager.afterPropertiesSet();
+        Map<String, Integer> bits = new HashMap<>();
+        bits.put("ROLE_USER", 0);
+        bits.put("ROLE_ADMIN", 1);
+        TokenProvider tokenProvider = new TokenProvider(1800, new SimpleMeterRegistry(), keyManager,
+                AuthorityCodec.forBits(bits), compactClaims);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    static Authentication newAuthentication() {
+        return new UsernamePasswordAuthenticationToken("admin", null,
+                Arrays.asList(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+
+    // JwtFilter가 실제로 사용하는 경로 (검증 한 번 + 검증된 claims로 Authentication 생성)
+    @Benchmark
+    public Authentication verifyAndGetAuthentication() {
+        TokenVerification verification = tokenProvider.verify(token);
+        return tokenProvider.getAuthentication(verification.getClaims(), token);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.jwt_redis.redis;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 로컬 Redis(localhost:6379, password 1234)에 접속해서 Lettuce 커넥션 방식별 처리량을 비교한다.
+// docker run -p 6379:6379 redis --requirepass 1234 로 Redis를 먼저 띄워야 한다.
+// - shared: 하나의 네이티브 커넥션을 모든 스레드가 공유 (redis.client.pooled=false)
+// - pooled: commons-pool2 커넥션 풀 (redis.client.pooled=true)
+// - GET 하나, SET 100개 순차 실행, SET 100개 파이프라인(buffered flush) 실행을 비교한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class RedisClientBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"shared", "pooled"})
+    private String mode;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        RedisStandaloneConfiguration standalone = new RedisStandaloneConfiguration("localhost", 6379);
+        standalone.setPassword("1234");
+
+        LettuceClientConfiguration clientConfiguration;
+        if ("pooled".equals(mode)) {
+            GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+            poolConfig.setMaxTotal(10);
+            poolConfig.setMaxIdle(10);
+            poolConfig.setMinIdle(2);
+            clientConfiguration = LettucePoolingClientConfiguration.builder()
+                    .poolConfig(poolConfig)
+                    .commandTimeout(Duration.ofSeconds(2))
+                    .build();
+        } else {
+            clientConfiguration = LettuceClientConfiguration.builder()
+                    .commandTimeout(Duration.ofSeconds(2))
+                    .build();
+        }
+
+        connectionFactory = new LettuceConnectionFactory(standalone, clientConfiguration);
+        connectionFactory.setShareNativeConnection(!"pooled".equals(mode));
+        connectionFactory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.buffered(BATCH_SIZE));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        keys = new String[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            keys[i] = "bench:" + i;
+        }
+        redisTemplate.opsForValue().set(keys[0], "value");
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(Arrays.asList(keys));
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public String get() {
+        return redisTemplate.opsForValue().get(keys[0]);
+    }
+
+    @Benchmark
+    public void sequentialSet() {
+        for (String key : keys) {
+            redisTemplate.opsForValue().set(key, "value", 60, TimeUnit.SECONDS);
+        }
+    }
+
+    @Benchmark
+    public List<Object> pipelinedSet() {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String key : keys) {
+                stringConnection.setEx(key, 60, "value");
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.dto.UserProfile;
+import com.example.jwt_redis.dto.UserSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Redis 없이 RedisValueSerializers의 형식별 직렬화/역직렬화 비용을 비교한다.
+// 저장되는 바이트 수는 Setup에서 한 번 출력한다. (JMH 실행 로그의 "bytes:" 줄)
+// - snapshot : 권한 2개인 UserSnapshot (일반적인 유저)
+// - large    : 권한 200개인 UserSnapshot (압축 threshold를 넘는 값)
+// - profile  : UserProfile (tokenVersion 확인용, 가장 작은 값)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RedisSerializerBenchmark {
+
+    @Param({"json", "smile"})
+    private String format;
+
+    // 0이면 압축하지 않는다.
+    @Param({"0", "256"})
+    private int compressionThreshold;
+
+    @Param({"snapshot", "large", "profile"})
+    private String value;
+
+    private RedisSerializer<Object> serializer;
+    private Object object;
+    private byte[] bytes;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        RedisValueSerializers serializers = new RedisValueSerializers(format, compressionThreshold, new ObjectMapper());
+        switch (value) {
+            case "snapshot":
+                object = snapshot(Arrays.asList("ROLE_ADMIN", "ROLE_USER"));
+                serializer = (RedisSerializer<Object>) (RedisSerializer<?>) serializers.forType(UserSnapshot.class);
+                break;
+            case "large":
+                List<String> authorities = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    authorities.add("ROLE_PERMISSION_" + i);
+                }
+                object = snapshot(authorities);
+                serializer = (RedisSerializer<Object>) (RedisSerializer<?>) serializers.forType(UserSnapshot.class);
+                break;
+            default:
+                object = new UserProfile("admin", "admin", true, 3L);
+                serializer = (RedisSerializer<Object>) (RedisSerializer<?>) serializers.forType(UserProfile.class);
+        }
+        bytes = serializer.serialize(object);
+        System.out.printf("%nbytes: format=%s compressionThreshold=%d value=%s -> %d%n",
+                format, compressionThreshold, value, bytes.length);
+    }
+
+    private static UserSnapshot snapshot(List<String> authorities) {
+        return new UserSnapshot("admin", "admin", true, authorities);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(object);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.jwt_redis.service;
+
+import com.example.jwt_redis.dto.UserSnapshot;
+import com.example.jwt_redis.entity.Authority;
+import com.example.jwt_redis.entity.User;
+import com.example.jwt_redis.redis.ClientSideCache;
+import com.example.jwt_redis.redis.UserSnapshotCache;
+import com.example.jwt_redis.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// 로그인 시 유저 조회 경로(loadUserByUsername)의 비용을 측정한다.
+// DB 없이 측정하기 위해 UserRepository는 고정된 엔티티를 돌려주는 프록시로 대체하고,
+// near cache를 미리 채워서 Redis 호출 없이 캐시 hit 경로만 측정한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserLookupBenchmark {
+
+    private CustomUserDetailsService userDetailsService;
+    private User entity;
+
+    @Setup
+    public void setUp() {
+        entity = User.builder()
+                .username("admin")
+                .password("$2a$08$lDnHPz7eUkSi6ao14Twuau08mzhWrL4kyZGGU5xfiGALO/Vxd5DOi")
+                .nickname("admin")
+                .activated(true)
+                .authorities(new HashSet<>(Arrays.asList(
+                        Authority.builder().authorityName("ROLE_USER").build(),
+                        Authority.builder().authorityName("ROLE_ADMIN").build())))
+                .build();
+
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if ("findOneWithAuthoritiesByUsername".equals(method.getName())) {
+                        return Optional.of(entity);
+                    }
+                    if ("findPasswordByUsername".equals(method.getName())) {
+                        return Optional.of(entity.getPassword());
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        UserSnapshotCache cache = new UserSnapshotCache(new StringRedisTemplate(), new RedisTemplate<>(), ClientSideCache.disabled(), 1000, 3600, 600);
+        userDetailsService = new CustomUserDetailsService(userRepository, cache, new SimpleMeterRegistry());
+        // near cache를 미리 채워둔다. 연결이 없는 Redis 읽기/쓰기는 실패해도 캐시 miss로 처리된다.
+        cache.get("admin", name -> Optional.of(UserSnapshot.from(entity)));
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsernameNearCacheHit() {
+        return userDetailsService.loadUserByUsername("admin");
+    }
+
+    // 캐시 miss 시 DB 조회 결과를 스냅샷으로 바꾸는 비용
+    @Benchmark
+    public UserSnapshot snapshotFromEntity() {
+        return UserSnapshot.from(entity);
+    }
+}
@@ -2,8 +2,14 @@ package com.example.jwt_redis;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+// 주기적으로 실행되는 작업(@Scheduled)
+// - SecurityEventLogger: 인증 실패 사유별 집계 로그
+// - JwtKeyManager: 서명 키 교체(rotate)와 공유된 공개키 다시 읽기(refresh)
+// - ResilientRedisStore: Redis 장애 중에 쌓인 쓰기 반영(writeBack)
+@EnableScheduling
 public class JwtRedisApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,57 @@
+package com.example.jwt_redis.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+
+import java.util.Arrays;
+
+@Slf4j
+// 현재 서버에서 Argon2 해싱 시간을 직접 측정해서 목표 시간에 맞는 iterations를 고르는 클래스
+// 메모리(memory-kib)는 설정값 그대로 두고, 해싱 시간이 거의 비례해서 늘어나는 iterations만 조정한다.
+// 설정한 iterations를 최소값으로 보고 그보다 낮추지 않는다.
+public final class Argon2CostCalibrator {
+
+    private static final int MAX_ITERATIONS = 32;
+    private static final int SAMPLES = 5;
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private Argon2CostCalibrator() {
+    }
+
+    public static int calibrate(long targetMillis, int saltLength, int hashLength, int parallelism, int memoryKib,
+                                int minIterations) {
+        long minMillis = measure(new Argon2PasswordEncoder(saltLength, hashLength, parallelism, memoryKib, minIterations));
+        log.info("Argon2 iterations {} 해싱 시간: {}ms", minIterations, minMillis);
+        if (minMillis > targetMillis) {
+            log.warn("최소 Argon2 iterations {}의 해싱 시간 {}ms가 목표 {}ms를 넘습니다. iterations {}를 사용하지만 로그인 처리량이 목표보다 낮을 수 있습니다.",
+                    minIterations, minMillis, targetMillis, minIterations);
+            return minIterations;
+        }
+        // iterations 하나씩 측정하면 시작이 오래 걸리므로 비례식으로 추정한 뒤, 목표를 넘으면 하나씩 줄인다.
+        int selected = (int) Math.min(MAX_ITERATIONS, minIterations * targetMillis / Math.max(1, minMillis));
+        while (selected > minIterations) {
+            long millis = measure(new Argon2PasswordEncoder(saltLength, hashLength, parallelism, memoryKib, selected));
+            log.info("Argon2 iterations {} 해싱 시간: {}ms", selected, millis);
+            if (millis <= targetMillis) {
+                break;
+            }
+            selected--;
+        }
+        selected = Math.max(selected, minIterations);
+        log.info("목표 해싱 시간 {}ms 기준으로 Argon2 iterations {}를 사용합니다. (memory {}KiB)", targetMillis, selected, memoryKib);
+        return selected;
+    }
+
+    // JIT 워밍업 영향을 줄이기 위해 한 번 버리고 나머지 측정값의 중앙값을 사용한다.
+    private static long measure(Argon2PasswordEncoder encoder) {
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
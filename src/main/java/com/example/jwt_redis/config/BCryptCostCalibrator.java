@@ -0,0 +1,56 @@
+package com.example.jwt_redis.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+@Slf4j
+// 현재 서버에서 BCrypt 해싱 시간을 직접 측정해서 목표 시간에 맞는 cost(strength)를 고르는 클래스
+// cost가 1 올라가면 해싱 시간은 약 2배가 되므로, 목표 시간을 넘지 않는 가장 큰 cost를 선택한다.
+public final class BCryptCostCalibrator {
+
+    private static final int MIN_COST = 10;
+    private static final int MAX_COST = 16;
+    private static final int SAMPLES = 5;
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private BCryptCostCalibrator() {
+    }
+
+    // 가장 낮은 cost(10)로도 목표 시간을 넘으면 cost를 더 낮추지 않고 10을 사용한다. (보안상 최소값)
+    public static int calibrate(long targetMillis) {
+        long minCostMillis = measure(MIN_COST);
+        log.info("BCrypt cost {} 해싱 시간: {}ms", MIN_COST, minCostMillis);
+        if (minCostMillis > targetMillis) {
+            log.warn("최소 BCrypt cost {}의 해싱 시간 {}ms가 목표 {}ms를 넘습니다. cost {}를 사용하지만 로그인 처리량이 목표보다 낮을 수 있습니다.",
+                    MIN_COST, minCostMillis, targetMillis, MIN_COST);
+            return MIN_COST;
+        }
+        int selected = MIN_COST;
+        for (int cost = MIN_COST + 1; cost <= MAX_COST; cost++) {
+            long millis = measure(cost);
+            log.info("BCrypt cost {} 해싱 시간: {}ms", cost, millis);
+            if (millis > targetMillis) {
+                break;
+            }
+            selected = cost;
+        }
+        log.info("목표 해싱 시간 {}ms 기준으로 BCrypt cost {}를 사용합니다.", targetMillis, selected);
+        return selected;
+    }
+
+    // JIT 워밍업 영향을 줄이기 위해 한 번 버리고 나머지 측정값의 중앙값을 사용한다.
+    private static long measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.jwt_redis.config;
+
+import com.example.jwt_redis.jwt.VerifiedTokenCache;
+import com.example.jwt_redis.redis.RedisCircuitBreaker;
+import com.example.jwt_redis.redis.ResilientRedisStore;
+import com.example.jwt_redis.redis.UserSnapshotCache;
+import com.example.jwt_redis.service.PasswordHashingExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+@Configuration
+// 캐시, 스레드풀처럼 자체적으로 카운트를 가지고 있는 컴포넌트들의 값을 Actuator(/actuator/prometheus)로 노출한다.
+// FunctionCounter와 Gauge는 수집 시점에만 값을 읽기 때문에 요청 처리 경로에서 추가 비용이 없다.
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder verifiedTokenCacheMetrics(VerifiedTokenCache verifiedTokenCache) {
+        return registry -> {
+            FunctionCounter.builder("jwt.cache.requests", verifiedTokenCache, cache -> cache.stats().hitCount())
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("jwt.cache.requests", verifiedTokenCache, cache -> cache.stats().missCount())
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("jwt.cache.evictions", verifiedTokenCache, cache -> cache.stats().evictionCount())
+                    .register(registry);
+            Gauge.builder("jwt.cache.size", verifiedTokenCache, VerifiedTokenCache::size)
+                    .register(registry);
+        };
+    }
+
+    // MeterBinder는 MeterRegistry를 만드는 중에 실행되는데, Redis를 사용하는 빈은 Lettuce 명령어 측정 때문에 MeterRegistry가 필요하다.
+    // 순환 참조가 생기지 않도록 Redis를 사용하는 빈은 @Lazy로 받아서 값을 수집할 때 가져온다.
+    @Bean
+    public MeterBinder userSnapshotCacheMetrics(@Lazy UserSnapshotCache userSnapshotCache) {
+        return registry -> {
+            FunctionCounter.builder("user.cache.requests", userSnapshotCache, UserSnapshotCache::getNearHits)
+                    .tag("result", "near_hit").register(registry);
+            FunctionCounter.builder("user.cache.requests", userSnapshotCache, UserSnapshotCache::getRedisHits)
+                    .tag("result", "redis_hit").register(registry);
+            FunctionCounter.builder("user.cache.requests", userSnapshotCache, UserSnapshotCache::getMisses)
+                    .tag("result", "miss").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder passwordHashingExecutorMetrics(PasswordHashingExecutor passwordHashingExecutor) {
+        return registry -> {
+            Gauge.builder("password.hash.queue.depth", passwordHashingExecutor, PasswordHashingExecutor::getQueueDepth)
+                    .register(registry);
+            Gauge.builder("password.hash.active", passwordHashingExecutor, PasswordHashingExecutor::getActiveCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder redisResilienceMetrics(RedisCircuitBreaker circuitBreaker, @Lazy ResilientRedisStore resilientRedisStore) {
+        return registry -> {
+            // 0: CLOSED, 1: OPEN, 2: HALF_OPEN
+            Gauge.builder("redis.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                    .register(registry);
+            FunctionCounter.builder("redis.circuit.transitions", circuitBreaker, RedisCircuitBreaker::getOpenTransitions)
+                    .tag("to", "open").register(registry);
+            FunctionCounter.builder("redis.circuit.transitions", circuitBreaker, RedisCircuitBreaker::getHalfOpenTransitions)
+                    .tag("to", "half_open").register(registry);
+            FunctionCounter.builder("redis.circuit.transitions", circuitBreaker, RedisCircuitBreaker::getClosedTransitions)
+                    .tag("to", "closed").register(registry);
+            FunctionCounter.builder("redis.circuit.rejected", circuitBreaker, RedisCircuitBreaker::getRejectedCalls)
+                    .register(registry);
+
+            FunctionCounter.builder("redis.fallback.reads", resilientRedisStore, ResilientRedisStore::getFallbackHits)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("redis.fallback.reads", resilientRedisStore, ResilientRedisStore::getFallbackMisses)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("redis.fallback.writebacks", resilientRedisStore, ResilientRedisStore::getWrittenBack)
+                    .tag("result", "success").register(registry);
+            FunctionCounter.builder("redis.fallback.writebacks", resilientRedisStore, ResilientRedisStore::getWriteBackFailures)
+                    .tag("result", "failure").register(registry);
+            FunctionCounter.builder("redis.fallback.evictions", resilientRedisStore, ResilientRedisStore::getFallbackEvictions)
+                    .tag("dirty", "false").register(registry);
+            FunctionCounter.builder("redis.fallback.evictions", resilientRedisStore, ResilientRedisStore::getDroppedWrites)
+                    .tag("dirty", "true").register(registry);
+            // 수집할 때 stripe마다 lock을 잡고 센다. (최대 fallback.maximum-entries개)
+            Gauge.builder("redis.fallback.size", resilientRedisStore, ResilientRedisStore::getFallbackSize)
+                    .register(registry);
+            Gauge.builder("redis.fallback.pending", resilientRedisStore, ResilientRedisStore::getPendingWrites)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.jwt_redis.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+// servlet, reactive 두 스택이 같이 사용하는 PasswordEncoder 설정
+public class PasswordEncoderConfig {
+
+    // 저장된 해시 앞의 {bcrypt}, {argon2} 접두어로 알고리즘을 구분하는 DelegatingPasswordEncoder
+    // 새 비밀번호는 password-hashing.algorithm으로 인코딩하고, 설정보다 약한 해시는 로그인에 성공할 때
+    // CustomUserDetailsService.updatePassword를 통해 자동으로 다시 해싱된다.
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            @Value("${password-hashing.algorithm:bcrypt}") String algorithm,
+            @Value("${password-hashing.bcrypt.cost:10}") int bcryptCost,
+            @Value("${password-hashing.calibrate:false}") boolean calibrate,
+            @Value("${password-hashing.calibrate-target-millis:250}") long calibrateTargetMillis,
+            @Value("${password-hashing.argon2.salt-length:16}") int argon2SaltLength,
+            @Value("${password-hashing.argon2.hash-length:32}") int argon2HashLength,
+            @Value("${password-hashing.argon2.parallelism:1}") int argon2Parallelism,
+            @Value("${password-hashing.argon2.memory-kib:4096}") int argon2Memory,
+            @Value("${password-hashing.argon2.iterations:3}") int argon2Iterations,
+            MeterRegistry meterRegistry) {
+        // 새 비밀번호를 해싱하는 알고리즘만 측정한다. 다른 알고리즘의 해시는 로그인할 때 이 알고리즘으로 다시 해싱된다.
+        boolean argon2 = "argon2".equals(algorithm);
+        int cost = calibrate && !argon2 ? BCryptCostCalibrator.calibrate(calibrateTargetMillis) : bcryptCost;
+        int iterations = calibrate && argon2
+                ? Argon2CostCalibrator.calibrate(calibrateTargetMillis, argon2SaltLength, argon2HashLength,
+                        argon2Parallelism, argon2Memory, argon2Iterations)
+                : argon2Iterations;
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(cost));
+        encoders.put("argon2", new Argon2PasswordEncoder(argon2SaltLength, argon2HashLength,
+                argon2Parallelism, argon2Memory, iterations));
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // data.sql의 admin처럼 접두어가 없는 예전 해시는 BCrypt로 검증한다.
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(cost));
+        return new TimedPasswordEncoder(passwordEncoder, meterRegistry);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.jwt_redis.config;
+
+import com.example.jwt_redis.jwt.JwtReactiveAuthenticationManager;
+import com.example.jwt_redis.jwt.JwtServerAuthenticationConverter;
+import com.example.jwt_redis.jwt.SecurityEventLogger;
+import com.example.jwt_redis.jwt.TokenProvider;
+import com.example.jwt_redis.jwt.TokenVersionChecker;
+import com.example.jwt_redis.jwt.VerifiedTokenCache;
+import com.example.jwt_redis.redis.ReactiveTokenStore;
+import com.example.jwt_redis.service.PasswordHashingRejectedException;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.authorization.HttpStatusServerAccessDeniedHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@Configuration
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity // @PreAuthorize를 Mono를 반환하는 메서드에도 사용하기 위해 적용
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+// reactive 프로필(spring.main.web-application-type=reactive)에서 사용하는 보안 설정
+// servlet 스택의 SecurityConfig + JwtSecurityConfig와 같은 규칙을 WebFilter 기반으로 구성한다.
+public class ReactiveSecurityConfig {
+
+    // 토큰 없이 접근할 수 있는 경로. servlet 스택과 달리 reactive 스택에서 제공하는 api만 둔다.
+    private static final String[] PERMIT_ALL_PATHS = {
+            "/api/hello",
+            "/api/authenticate",
+            "/actuator/health",
+            "/actuator/prometheus"
+    };
+
+    // reactive 스택은 JPA 대신 R2DBC로 유저를 조회한다. (R2DBC 자동 설정은 application.yml에서 꺼두었다)
+    // 테이블과 데이터는 JPA(ddl-auto, data.sql)가 만든 인메모리 H2 testdb를 같이 사용한다.
+    @Bean
+    public DatabaseClient databaseClient(@Value("${reactive.r2dbc.url}") String url,
+                                         @Value("${spring.datasource.username}") String username,
+                                         @Value("${spring.datasource.password}") String password) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        return DatabaseClient.create(ConnectionFactories.get(options));
+    }
+
+    // BCrypt 해싱을 이벤트 루프가 아닌 별도의 bounded elastic 스케줄러에서 실행한다.
+    // 스레드 수와 대기 작업 수는 servlet 스택의 PasswordHashingExecutor와 같은 설정을 사용하고, 가득 차면 503으로 거절한다.
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler(
+            @Value("${password-hashing.pool-size:0}") int poolSize,
+            @Value("${password-hashing.queue-capacity:100}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "password-hashing");
+    }
+
+    // 로그인(/api/authenticate)에서 아이디, 비밀번호를 검증하는 AuthenticationManager
+    @Bean
+    public ReactiveAuthenticationManager loginAuthenticationManager(ReactiveUserDetailsService reactiveUserDetailsService,
+                                                                    PasswordEncoder passwordEncoder,
+                                                                    Scheduler passwordHashingScheduler) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(reactiveUserDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        authenticationManager.setScheduler(passwordHashingScheduler);
+        return authentication -> authenticationManager.authenticate(authentication)
+                .onErrorMap(RejectedExecutionException.class,
+                        e -> new PasswordHashingRejectedException("비밀번호 해싱 요청이 너무 많습니다."));
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         TokenProvider tokenProvider,
+                                                         VerifiedTokenCache verifiedTokenCache,
+                                                         ReactiveTokenStore reactiveTokenStore,
+                                                         SecurityEventLogger securityEventLogger,
+                                                         TokenVersionChecker tokenVersionChecker) {
+        HttpStatusServerEntryPoint entryPoint = new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED);
+
+        // Authorization 헤더의 토큰을 검증하는 WebFilter. permitAll 경로에서는 토큰을 파싱하지 않는다.
+        AuthenticationWebFilter jwtFilter = new AuthenticationWebFilter(
+                new JwtReactiveAuthenticationManager(tokenProvider, verifiedTokenCache, reactiveTokenStore,
+                        securityEventLogger, tokenVersionChecker));
+        jwtFilter.setServerAuthenticationConverter(new JwtServerAuthenticationConverter());
+        jwtFilter.setRequiresAuthenticationMatcher(
+                new NegatedServerWebExchangeMatcher(ServerWebExchangeMatchers.pathMatchers(PERMIT_ALL_PATHS)));
+        jwtFilter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(entryPoint));
+        jwtFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+        return http
+                .csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .logout().disable()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance()) // STATELESS
+
+                .exceptionHandling()
+                .authenticationEntryPoint(entryPoint) // 401
+                .accessDeniedHandler(new HttpStatusServerAccessDeniedHandler(HttpStatus.FORBIDDEN)) // 403
+
+                .and()
+                .authorizeExchange()
+                .pathMatchers(PERMIT_ALL_PATHS).permitAll()
+                .anyExchange().authenticated()
+
+                .and()
+                .addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.jwt_redis.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.replica.jdbc-url") // prod 프로필처럼 replica가 설정된 경우에만 사용한다.
+// 읽기 전용 트랜잭션은 replica DataSource로, 나머지는 primary DataSource로 보낸다.
+// 트랜잭션의 readOnly 여부는 트랜잭션이 시작된 뒤에 정해지므로 LazyConnectionDataSourceProxy로 감싸서
+// 첫 쿼리를 실행할 때 실제 커넥션을 고르게 한다.
+// 캐시를 채우는 조회(UserRepository.findOneWithAuthoritiesByUsername, findProfileByUsername)는 readOnly가 아닌 트랜잭션으로
+// 선언해서 primary에서 읽는다. 캐시를 지운 직후에 replica의 늦은 값이 캐시 TTL 동안 남는 것을 막기 위해서다.
+public class ReplicaRoutingDataSourceConfig {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    // spring.datasource.* 와 spring.datasource.hikari.* 설정을 그대로 사용한다. (DataSourceAutoConfiguration과 같은 방식)
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primaryDataSource);
+        targets.put(REPLICA, replicaDataSource);
+
+        AbstractRoutingDataSource routingDataSource = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+            }
+        };
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -3,34 +3,76 @@ package com.example.jwt_redis.config;
 import com.example.jwt_redis.jwt.JwtAccessDeniedHandler;
 import com.example.jwt_redis.jwt.JwtAuthenticationEntryPoint;
 import com.example.jwt_redis.jwt.JwtSecurityConfig;
+import com.example.jwt_redis.jwt.RateLimitFilter;
+import com.example.jwt_redis.jwt.SecurityEventLogger;
 import com.example.jwt_redis.jwt.TokenProvider;
-import org.springframework.context.annotation.Bean;
+import com.example.jwt_redis.jwt.TokenVersionChecker;
+import com.example.jwt_redis.jwt.VerifiedTokenCache;
+import com.example.jwt_redis.redis.RevokedTokenStore;
+import com.example.jwt_redis.service.LoginRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
 
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET) // reactive 프로필에서는 ReactiveSecurityConfig를 사용한다.
 @EnableGlobalMethodSecurity(prePostEnabled = true) // @PreAuthorize 어노테이션을 메서드 단위로 추가하기 위해 적용
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
+    // 로그인 api, 회원가입 api 등 토큰 없이 접근할 수 있는 경로
+    // JwtFilter도 이 경로들은 토큰을 파싱하지 않고 넘어간다.
+    private static final String[] PERMIT_ALL_PATHS = {
+            "/api/hello",
+            "/api/authenticate",
+            "/api/signup",
+            "/api/reissue",
+            "/api/redisTest/**",
+            "/.well-known/jwks.json", // 토큰 검증용 공개키
+            "/actuator/health",
+            "/actuator/prometheus" // 모니터링 시스템이 토큰 없이 수집
+    };
+
+    // BCrypt 해싱과 DB 조회가 일어나는 경로. IP별, username별로 요청 횟수를 제한한다.
+    private static final String[] RATE_LIMITED_PATHS = {
+            "/api/authenticate",
+            "/api/signup"
+    };
+
     private final TokenProvider tokenProvider;
     private final JwtAccessDeniedHandler jwtAccessDeniedHandler;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RevokedTokenStore revokedTokenStore;
+    private final SecurityEventLogger securityEventLogger;
+    private final TokenVersionChecker tokenVersionChecker;
+    private final LoginRateLimiter loginRateLimiter;
+    private final ObjectMapper objectMapper;
 
     // 만들어준 클래스를 주입받는다.
-    public SecurityConfig(TokenProvider tokenProvider, JwtAccessDeniedHandler jwtAccessDeniedHandler, JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint) {
+    public SecurityConfig(TokenProvider tokenProvider, JwtAccessDeniedHandler jwtAccessDeniedHandler, JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
+                          VerifiedTokenCache verifiedTokenCache, RevokedTokenStore revokedTokenStore,
+                          SecurityEventLogger securityEventLogger, TokenVersionChecker tokenVersionChecker,
+                          LoginRateLimiter loginRateLimiter, ObjectMapper objectMapper) {
         this.tokenProvider = tokenProvider;
         this.jwtAccessDeniedHandler = jwtAccessDeniedHandler;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
-    }
-
-    @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revokedTokenStore = revokedTokenStore;
+        this.securityEventLogger = securityEventLogger;
+        this.tokenVersionChecker = tokenVersionChecker;
+        this.loginRateLimiter = loginRateLimiter;
+        this.objectMapper = objectMapper;
     }
 
     // h2-console 하위 모든 요청들과 파비콘 관련 요청은 Spring Security 로직을 수행하지 않도록
@@ -65,14 +107,18 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
                 .and() // 로그인 api, 회원가입 api는 토큰이 없는 상태에서 요청이 들어와서 모두 permitAll()설정함
                 .authorizeRequests() // HttpServletRequest를 사용하는 요청들에 대한 접근제한을 설정하겠다는 의미이다.
-                .antMatchers("/api/hello").permitAll() // 해당 api에 대한 요청을 인증없이 접근을 허용하겠다.
-                .antMatchers("/api/authenticate").permitAll()
-                .antMatchers("/api/signup").permitAll()
-//                .antMatchers("/api/redisTest").permitAll()
-                .antMatchers("/api/redisTest/**").permitAll()
+                .antMatchers(PERMIT_ALL_PATHS).permitAll() // 해당 api에 대한 요청을 인증없이 접근을 허용하겠다.
                 .anyRequest().authenticated() // 나머지 요청들은 모두 인정되어야 한다.
 
                 .and()
-                .apply(new JwtSecurityConfig(tokenProvider));
+                .apply(new JwtSecurityConfig(tokenProvider, verifiedTokenCache, revokedTokenStore, securityEventLogger, tokenVersionChecker)
+                        .permitAllPaths(PERMIT_ALL_PATHS)
+                        .rateLimitFilter(new RateLimitFilter(loginRateLimiter, objectMapper, rateLimitedMatcher())));
+    }
+
+    private static RequestMatcher rateLimitedMatcher() {
+        return new OrRequestMatcher(Arrays.stream(RATE_LIMITED_PATHS)
+                .map(path -> new AntPathRequestMatcher(path, "POST"))
+                .collect(Collectors.toList()));
     }
 }
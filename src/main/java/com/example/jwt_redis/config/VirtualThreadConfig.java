@@ -0,0 +1,59 @@
+package com.example.jwt_redis.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "server.tomcat.virtual-threads", havingValue = "true")
+// server.tomcat.virtual-threads=true 이면 Tomcat 요청 처리를 요청마다 새로운 virtual thread에서 실행한다. (JDK 21 이상)
+// Redis(Lettuce), DB(JDBC) 호출을 기다리는 동안 carrier 스레드를 반납하기 때문에 server.tomcat.threads.max 보다
+// 훨씬 많은 동시 요청을 블로킹 코드 그대로 처리할 수 있다.
+// 소스는 Java 8로 컴파일하므로 Executors.newVirtualThreadPerTaskExecutor()는 리플렉션으로 가져온다.
+public class VirtualThreadConfig {
+
+    // 요청 처리와 MVC 비동기 처리(CompletableFuture를 반환하는 컨트롤러)가 같이 사용하는 executor
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("Tomcat 요청을 virtual thread에서 처리합니다. (java.version: {})", System.getProperty("java.version"));
+            return executor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("server.tomcat.virtual-threads=true 는 JDK 21 이상에서 실행해야 합니다. (java.version: "
+                    + System.getProperty("java.version") + ")", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual thread executor를 만들 수 없습니다.", e);
+        }
+    }
+
+    // Tomcat의 worker 스레드풀을 virtual thread executor로 바꾼다. (server.tomcat.threads.* 설정은 사용되지 않는다)
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    // 비동기 요청의 후속 처리(async dispatch)도 virtual thread에서 실행한다.
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncConfigurer(ExecutorService virtualThreadExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.jwt_redis.controller;
+
+import com.example.jwt_redis.redis.RedisUnavailableException;
+import com.example.jwt_redis.service.DuplicateUsernameException;
+import com.example.jwt_redis.service.PasswordHashingRejectedException;
+import com.example.jwt_redis.service.RedisBatchLimitExceededException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    // 해싱 큐가 가득 찬 경우 잠시 후 다시 시도하라고 503을 응답한다.
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<String> handlePasswordHashingRejected(PasswordHashingRejectedException e) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>(e.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // Redis 장애로 refresh token을 저장하거나 교체할 수 없으면 503으로 응답한다. (RedisCircuitBreaker)
+    @ExceptionHandler(RedisUnavailableException.class)
+    public ResponseEntity<String> handleRedisUnavailable(RedisUnavailableException e) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>(e.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // 비동기로 처리된 로그인은 필터 체인 밖에서 실패하므로 여기서 401로 변환한다.
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<Void> handleAuthenticationFailure(AuthenticationException e) {
+        return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+
+    // 배치 요청이 redis-batch.* 제한을 넘으면 413으로 거절한다.
+    @ExceptionHandler(RedisBatchLimitExceededException.class)
+    public ResponseEntity<String> handleRedisBatchLimitExceeded(RedisBatchLimitExceededException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    // 이미 가입된 username으로 가입하면 409로 응답한다.
+    @ExceptionHandler(DuplicateUsernameException.class)
+    public ResponseEntity<String> handleDuplicateUsername(DuplicateUsernameException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+}
@@ -1,46 +1,120 @@
 package com.example.jwt_redis.controller;
 
 import com.example.jwt_redis.dto.LoginDto;
+import com.example.jwt_redis.dto.ReissueDto;
 import com.example.jwt_redis.dto.TokenDto;
 import com.example.jwt_redis.jwt.TokenProvider;
+import com.example.jwt_redis.jwt.TokenVersionChecker;
+import com.example.jwt_redis.jwt.VerifiedTokenCache;
+import com.example.jwt_redis.redis.RefreshTokenRepository;
+import com.example.jwt_redis.redis.RevokedTokenStore;
+import com.example.jwt_redis.redis.SessionRegistry;
+import com.example.jwt_redis.service.CustomUserDetailsService;
+import com.example.jwt_redis.service.PasswordHashingExecutor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class AuthController {
 
     private final TokenProvider tokenProvider;
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final CustomUserDetailsService customUserDetailsService;
+    private final RevokedTokenStore revokedTokenStore;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final TokenVersionChecker tokenVersionChecker;
+    private final SessionRegistry sessionRegistry;
 
+    // BCrypt 검증이 요청 스레드를 오래 점유하지 않도록 인증은 전용 스레드풀에서 비동기로 처리한다.
     @PostMapping("/authenticate")
-    public ResponseEntity<TokenDto> authorize(@Valid @RequestBody LoginDto loginDto) {
+    public CompletableFuture<ResponseEntity<TokenDto>> authorize(@Valid @RequestBody LoginDto loginDto) {
         // UsernamePasswordAuthenticationToken 객체 생성
         UsernamePasswordAuthenticationToken authenticationToken =
                 new UsernamePasswordAuthenticationToken(loginDto.getUsername(), loginDto.getPassword());
 
-        // authenticate 메서드가 실행될 때 loadUserByUsername 메서드가 실행되고 그 결과값을 가지고 Authentication객체를 생성하게 된다.
-        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
-        SecurityContextHolder.getContext().setAuthentication(authentication); // Authentication객체를 SecurityContextHolder에 저장
+        return passwordHashingExecutor.submit(() -> {
+            // authenticate 메서드가 실행될 때 loadUserByUsername 메서드가 실행되고 그 결과값을 가지고 Authentication객체를 생성하게 된다.
+            // 해싱 스레드의 SecurityContext에 남지 않도록 SecurityContextHolder에는 저장하지 않는다. (STATELESS라서 요청 이후에 사용되지 않는다)
+            Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
 
-        String jwt = tokenProvider.createToken(authentication); // authentication로 createToken
+            RefreshTokenRepository.RefreshToken refreshToken = refreshTokenRepository.create(authentication.getName()); // refresh token은 Redis에 저장
+            return issueTokens(authentication, refreshToken.getToken(), refreshToken.getFamily());
+        });
+    }
+
+    // refresh token으로 access token을 재발급한다. 사용한 refresh token은 폐기되고 새 refresh token이 발급된다.
+    @PostMapping("/reissue")
+    public ResponseEntity<TokenDto> reissue(@Valid @RequestBody ReissueDto reissueDto) {
+        RefreshTokenRepository.Rotation rotation = refreshTokenRepository.rotate(reissueDto.getRefreshToken());
+        if (rotation.getStatus() != RefreshTokenRepository.Rotation.Status.ROTATED) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED); // 만료되었거나 재사용된 토큰
+        }
+
+        // 권한이 바뀌었거나 비활성화된 유저일 수 있으므로 유저 정보를 다시 읽어서 토큰을 만든다.
+        UserDetails userDetails;
+        try {
+            userDetails = customUserDetailsService.loadUserByUsername(rotation.getUsername());
+        } catch (AuthenticationException e) {
+            // 비활성화되었거나 삭제된 유저. 방금 교체된 refresh token도 쓸 수 없도록 family를 폐기한다.
+            refreshTokenRepository.revokeFamily(rotation.getFamily());
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+        Authentication authentication =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+
+        return issueTokens(authentication, rotation.getRefreshToken(), rotation.getFamily());
+    }
+
+    // 현재 요청에 사용된 access token을 폐기한다. 토큰이 만료될 때까지 모든 노드에서 거부된다.
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout() {
+        // JwtFilter에서 저장한 Authentication의 details에는 이미 검증된 토큰의 원문, jti, 만료 시각이 들어있다.
+        // (서명을 다시 검증하지 않는다)
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        TokenProvider.IssuedToken token = (TokenProvider.IssuedToken) authentication.getDetails();
+
+        if (token.getJti() != null) {
+            revokedTokenStore.revoke(token.getJti(), token.getExpiration());
+            sessionRegistry.unregister(authentication.getName(), token.getJti());
+        }
+        verifiedTokenCache.invalidate(token.getToken());
+        SecurityContextHolder.clearContext();
+
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    // access token을 만들고 refresh token family의 세션으로 등록한다. (로그인, 재발급)
+    // 최대 동시 세션 수를 넘으면 가장 오래된 세션이 종료되고, 재발급이면 같은 세션의 이전 access token이 폐기된다.
+    private ResponseEntity<TokenDto> issueTokens(Authentication authentication, String refreshToken, String family) {
+        // stateless-principal 모드에서는 현재 토큰 버전(tv)을 같이 넣는다.
+        TokenProvider.IssuedToken issued = tokenProvider.issueToken(authentication,
+                tokenVersionChecker.currentVersion(authentication.getName())); // authentication로 토큰 생성
+        sessionRegistry.register(authentication.getName(), issued.getJti(), issued.getExpiration(), family);
 
         HttpHeaders httpHeaders = new HttpHeaders();
-        httpHeaders.add("Authorization", "Bearer " + jwt); // jwt를 response Header에 넣어준다.
+        httpHeaders.add("Authorization", "Bearer " + issued.getToken()); // jwt를 response Header에 넣어준다.
 
-        return new ResponseEntity<>(new TokenDto(jwt), httpHeaders, HttpStatus.OK); // jwt를 response Body에도 넣고 리턴
+        return new ResponseEntity<>(new TokenDto(issued.getToken(), refreshToken), httpHeaders, HttpStatus.OK); // jwt를 response Body에도 넣고 리턴
     }
 }
@@ -0,0 +1,41 @@
+package com.example.jwt_redis.controller;
+
+import com.example.jwt_redis.jwt.JwtKeyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+// 다른 서비스(엣지 노드 등)가 토큰을 직접 검증할 수 있도록 공개키 목록(JWKS)을 제공한다.
+// 응답은 JwtKeyManager가 키가 바뀔 때 미리 만들어두므로 요청마다 직렬화하지 않는다.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class JwksController {
+
+    private final JwtKeyManager keyManager;
+    private final long maxAgeSeconds;
+
+    public JwksController(JwtKeyManager keyManager,
+                          @Value("${jwt.keys.jwks-max-age-seconds:300}") long maxAgeSeconds) {
+        this.keyManager = keyManager;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks(WebRequest request) {
+        String etag = keyManager.jwksEtag();
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+        // If-None-Match가 같으면 본문 없이 304를 응답한다.
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(keyManager.jwksJson());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.jwt_redis.controller;
+
+import com.example.jwt_redis.dto.LoginDto;
+import com.example.jwt_redis.dto.TokenDto;
+import com.example.jwt_redis.dto.UserSnapshot;
+import com.example.jwt_redis.entity.User;
+import com.example.jwt_redis.jwt.TokenProvider;
+import com.example.jwt_redis.jwt.TokenVersionChecker;
+import com.example.jwt_redis.redis.ReactiveTokenStore;
+import com.example.jwt_redis.repository.ReactiveUserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.Valid;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api")
+// reactive 프로필에서 제공하는 로그인, 유저 조회 api (servlet 스택의 AuthController, UserController와 같은 응답)
+public class ReactiveAuthController {
+
+    private final TokenProvider tokenProvider;
+    private final ReactiveAuthenticationManager loginAuthenticationManager;
+    private final ReactiveTokenStore reactiveTokenStore;
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final TokenVersionChecker tokenVersionChecker;
+
+    public ReactiveAuthController(TokenProvider tokenProvider, ReactiveAuthenticationManager loginAuthenticationManager,
+                                  ReactiveTokenStore reactiveTokenStore, ReactiveUserRepository reactiveUserRepository,
+                                  TokenVersionChecker tokenVersionChecker) {
+        this.tokenProvider = tokenProvider;
+        this.loginAuthenticationManager = loginAuthenticationManager;
+        this.reactiveTokenStore = reactiveTokenStore;
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.tokenVersionChecker = tokenVersionChecker;
+    }
+
+    // 비밀번호 검증은 passwordHashingScheduler에서 실행되고, 유저 조회와 refresh token 저장은 non-blocking으로 처리된다.
+    @PostMapping("/authenticate")
+    public Mono<ResponseEntity<TokenDto>> authorize(@Valid @RequestBody LoginDto loginDto) {
+        UsernamePasswordAuthenticationToken authenticationToken =
+                new UsernamePasswordAuthenticationToken(loginDto.getUsername(), loginDto.getPassword());
+
+        return loginAuthenticationManager.authenticate(authenticationToken)
+                .flatMap(authentication -> createToken(authentication)
+                        .flatMap(jwt -> reactiveTokenStore.createRefreshToken(authentication.getName())
+                                .map(refreshToken -> {
+                                    HttpHeaders httpHeaders = new HttpHeaders();
+                                    httpHeaders.add("Authorization", "Bearer " + jwt);
+                                    return new ResponseEntity<>(new TokenDto(jwt, refreshToken), httpHeaders, HttpStatus.OK);
+                                })));
+    }
+
+    @GetMapping("/user")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public Mono<ResponseEntity<User>> getMyUserInfo() {
+        return ReactiveSecurityContextHolder.getContext()
+                .flatMap(context -> findUser(context.getAuthentication().getName()));
+    }
+
+    @GetMapping("/user/{username}")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public Mono<ResponseEntity<User>> getUserInfo(@PathVariable String username) {
+        return findUser(username);
+    }
+
+    // stateless-principal 모드에서는 servlet 스택처럼 현재 토큰 버전(tv)을 같이 넣는다.
+    // 버전은 UserProfileCache에서 blocking으로 읽으므로 boundedElastic 스케줄러에서 토큰을 만든다.
+    private Mono<String> createToken(Authentication authentication) {
+        if (!tokenVersionChecker.isEnabled()) {
+            return Mono.just(tokenProvider.createToken(authentication));
+        }
+        return Mono.fromCallable(() -> tokenProvider.createToken(authentication,
+                        tokenVersionChecker.currentVersion(authentication.getName())))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<ResponseEntity<User>> findUser(String username) {
+        return reactiveUserRepository.findOneWithAuthoritiesByUsername(username)
+                .map(UserSnapshot::toUser)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -1,32 +1,72 @@
 package com.example.jwt_redis.controller;
 
+import com.example.jwt_redis.dto.RedisBatchDto;
+import com.example.jwt_redis.dto.RedisBatchResultDto;
+import com.example.jwt_redis.dto.RedisKeysDto;
+import com.example.jwt_redis.redis.ResilientRedisStore;
+import com.example.jwt_redis.service.RedisBatchService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.Valid;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api")
 public class RedisController {
 
     @Autowired
-    private RedisTemplate<String, String> redisTemplate;
+    private ResilientRedisStore resilientRedisStore;
+
+    @Autowired
+    private RedisBatchService redisBatchService;
 
+    // Redis가 내려가 있으면 로컬 저장소에 기록하고, 복구되면 Redis에 반영한다. (ResilientRedisStore)
     @PostMapping("/redisTest")
     public ResponseEntity<?> addRedisKey() {
-        ValueOperations<String, String> vop = redisTemplate.opsForValue(); // opsForValue메서드는 기본적인 get,set을 도와주는 메서드이다.
-        vop.set("yellow", "banana");
-        vop.set("red", "apple");
-        vop.set("green", "watermelon");
+        Map<String, String> fruits = new LinkedHashMap<>();
+        fruits.put("yellow", "banana");
+        fruits.put("red", "apple");
+        fruits.put("green", "watermelon");
+        resilientRedisStore.multiSet(fruits); // MSET 한 번으로 세 개의 키를 저장한다.
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
     @GetMapping("/redisTest/{key}")
     public ResponseEntity<?> getRedisKey(@PathVariable String key) {
-        ValueOperations<String, String> vop = redisTemplate.opsForValue();
-        String value = vop.get(key);
+        String value = resilientRedisStore.get(key);
         return new ResponseEntity<>(value, HttpStatus.OK);
     }
+
+    // 여러 키를 한 번에 저장한다. ttlSeconds가 없으면 MSET, 있으면 파이프라인으로 SET EX
+    @PostMapping("/redis/batch")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<RedisBatchResultDto> addRedisKeys(@Valid @RequestBody RedisBatchDto redisBatchDto) {
+        return new ResponseEntity<>(redisBatchService.write(redisBatchDto), HttpStatus.CREATED);
+    }
+
+    // 여러 키를 MGET 한 번으로 조회한다.
+    @PostMapping("/redis/batch/get")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<RedisBatchResultDto> getRedisKeys(@Valid @RequestBody RedisKeysDto redisKeysDto) {
+        return ResponseEntity.ok(redisBatchService.read(redisKeysDto.getKeys()));
+    }
+
+    // pattern에 맞는 키를 SCAN으로 찾아서 한 줄에 하나씩 스트리밍한다. limit이 0이면 전부
+    @GetMapping(value = "/redis/keys", produces = MediaType.TEXT_PLAIN_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> scanRedisKeys(
+            @RequestParam(defaultValue = "*") String pattern,
+            @RequestParam(defaultValue = "0") long limit) {
+        StreamingResponseBody body = outputStream -> redisBatchService.scan(pattern, limit, outputStream);
+        return ResponseEntity.ok(body);
+    }
 }
@@ -1,27 +1,50 @@
 package com.example.jwt_redis.controller;
 
+import com.example.jwt_redis.dto.SessionDto;
 import com.example.jwt_redis.dto.UserDto;
+import com.example.jwt_redis.dto.UserImportDto;
+import com.example.jwt_redis.dto.UserImportResultDto;
 import com.example.jwt_redis.entity.User;
+import com.example.jwt_redis.redis.SessionRegistry;
+import com.example.jwt_redis.service.PasswordHashingExecutor;
 import com.example.jwt_redis.service.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api")
 public class UserController {
 
     private final UserService userService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final SessionRegistry sessionRegistry;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, PasswordHashingExecutor passwordHashingExecutor,
+                          SessionRegistry sessionRegistry) {
         this.userService = userService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.sessionRegistry = sessionRegistry;
     }
 
+    // 비밀번호 해싱은 전용 스레드풀에서 비동기로 처리한다.
     @PostMapping("/signup")
-    public ResponseEntity<User> signup(@Valid @RequestBody UserDto userDto) {
-        return ResponseEntity.ok(userService.signup(userDto));
+    public CompletableFuture<ResponseEntity<User>> signup(@Valid @RequestBody UserDto userDto) {
+        return passwordHashingExecutor.submit(() -> ResponseEntity.ok(userService.signup(userDto)));
+    }
+
+    // 여러 유저를 한 번에 가입시킨다. 유저 수만큼 해싱해야 하므로 UserService에서 signup과 같은 전용 스레드풀에 나눠서 처리하고,
+    // 요청 스레드는 해싱이 끝나기를 기다렸다가 저장한다. (관리자 전용이고 유저 수가 제한되어 있다)
+    @PostMapping("/users/import")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<UserImportResultDto> importUsers(@Valid @RequestBody UserImportDto userImportDto) {
+        return ResponseEntity.ok(userService.importUsers(userImportDto));
     }
 
     @GetMapping("/user")
@@ -35,4 +58,45 @@ public class UserController {
     public ResponseEntity<User> getUserInfo(@PathVariable String username) {
         return ResponseEntity.ok(userService.getUserWithAuthorities(username).get());
     }
+
+    // 유저의 만료되지 않은 세션(access token) 목록
+    @GetMapping("/user/{username}/sessions")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<List<SessionDto>> getSessions(@PathVariable String username) {
+        return ResponseEntity.ok(sessionRegistry.findSessions(username));
+    }
+
+    // 세션 하나를 종료한다. 해당 access token은 만료 전이라도 모든 노드에서 거절된다.
+    @DeleteMapping("/user/{username}/sessions/{jti}")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<Void> revokeSession(@PathVariable String username, @PathVariable String jti) {
+        return sessionRegistry.revoke(username, jti)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    // 유저의 모든 세션을 종료한다.
+    @DeleteMapping("/user/{username}/sessions")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<Void> revokeSessions(@PathVariable String username) {
+        sessionRegistry.revokeAll(username);
+        return ResponseEntity.noContent().build();
+    }
+
+    // 유저를 비활성화한다. stateless-principal 모드에서는 이미 발급된 토큰도 바로 거절된다.
+    @PostMapping("/user/{username}/deactivate")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<Void> deactivate(@PathVariable String username) {
+        return userService.setActivated(username, false)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/user/{username}/activate")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<Void> activate(@PathVariable String username) {
+        return userService.setActivated(username, true)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
 }
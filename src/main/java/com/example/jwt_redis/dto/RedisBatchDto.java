@@ -0,0 +1,25 @@
+package com.example.jwt_redis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RedisBatchDto {
+
+    @NotEmpty
+    private Map<@NotBlank String, @NotNull String> entries;
+
+    @Positive
+    private Long ttlSeconds; // 없으면 MSET, 있으면 파이프라인으로 SET EX
+}
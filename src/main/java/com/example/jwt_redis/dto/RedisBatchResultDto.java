@@ -0,0 +1,23 @@
+package com.example.jwt_redis.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RedisBatchResultDto {
+
+    private int count;
+
+    private long elapsedMicros; // 이 배치를 Redis에서 처리하는 데 걸린 시간
+
+    private Map<String, String> values; // 조회(MGET)일 때만 있다. 없는 키의 값은 null
+}
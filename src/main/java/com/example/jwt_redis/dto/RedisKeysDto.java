@@ -0,0 +1,20 @@
+package com.example.jwt_redis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RedisKeysDto {
+
+    @NotEmpty
+    private List<@NotBlank String> keys;
+}
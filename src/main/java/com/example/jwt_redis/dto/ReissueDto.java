@@ -0,0 +1,18 @@
+package com.example.jwt_redis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReissueDto {
+
+    @NotBlank
+    private String refreshToken;
+}
@@ -0,0 +1,22 @@
+package com.example.jwt_redis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+// 관리자 세션 조회 API(/api/user/{username}/sessions)의 응답, 세션은 로그인 한 번(refresh token family)이다.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionDto {
+
+    private String jti; // access token의 jti
+
+    private Date expiresAt; // access token 만료 시각
+
+    private Date sessionExpiresAt; // refresh token 만료 시각, 이때까지 재발급받지 않으면 세션이 끝난다.
+}
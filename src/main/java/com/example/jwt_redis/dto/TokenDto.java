@@ -12,4 +12,6 @@ import lombok.NoArgsConstructor;
 public class TokenDto {
 
     private String token;
+
+    private String refreshToken;
 }
@@ -0,0 +1,24 @@
+package com.example.jwt_redis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportDto {
+
+    @NotEmpty
+    // 요청 스레드가 해싱이 끝나기를 오래 기다리지 않도록 한 번에 가입시킬 수 있는 유저 수를 제한한다.
+    // 해싱은 password-hashing 스레드 수만큼 나눠서 실행되므로, 코어 2개에서 bcrypt cost 10(1회 약 80ms) 기준으로 약 4초 걸린다.
+    @Size(max = 100)
+    private List<@Valid UserDto> users;
+}
@@ -0,0 +1,19 @@
+package com.example.jwt_redis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResultDto {
+
+    private int imported;
+
+    private List<String> skipped; // 이미 가입되어 있거나 요청 안에서 중복된 username
+}
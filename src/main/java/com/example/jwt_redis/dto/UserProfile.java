@@ -0,0 +1,29 @@
+package com.example.jwt_redis.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+@Getter
+// 토큰에 들어있지 않은 유저 정보(닉네임, 활성화 여부)와 토큰 버전만 담은 스냅샷
+// 비밀번호 해시와 권한 정보를 담은 UserSnapshot과 달리 권한 테이블을 조인하지 않고 만들 수 있다.
+// tokenVersion보다 낮은 버전(tv 클레임)으로 발급된 토큰은 더 이상 사용할 수 없다.
+public final class UserProfile {
+
+    private final String username;
+    private final String nickname;
+    private final boolean activated;
+    private final long tokenVersion;
+
+    // JPQL 생성자 프로젝션(UserRepository.findProfileByUsername)과 JSON 역직렬화에서 같이 사용한다.
+    @JsonCreator
+    public UserProfile(@JsonProperty("username") String username,
+                       @JsonProperty("nickname") String nickname,
+                       @JsonProperty("activated") boolean activated,
+                       @JsonProperty("tokenVersion") long tokenVersion) {
+        this.username = username;
+        this.nickname = nickname;
+        this.activated = activated;
+        this.tokenVersion = tokenVersion;
+    }
+}
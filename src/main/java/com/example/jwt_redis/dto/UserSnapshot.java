@@ -0,0 +1,59 @@
+package com.example.jwt_redis.dto;
+
+import com.example.jwt_redis.entity.Authority;
+import com.example.jwt_redis.entity.User;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Getter
+@JsonIgnoreProperties(ignoreUnknown = true) // 비밀번호 해시가 들어있던 예전 캐시 값도 읽을 수 있게 한다.
+// 캐시에 보관하기 위한 유저와 권한 정보의 불변 스냅샷
+// JPA 엔티티는 영속성 컨텍스트에 묶여있고 변경 가능하므로 캐시에는 이 객체를 저장한다.
+// 스냅샷은 Redis, 로컬 캐시, client-side cache로 복제되므로 비밀번호 해시는 넣지 않는다. (로그인할 때만 DB에서 읽는다)
+public final class UserSnapshot {
+
+    private final String username;
+    private final String nickname;
+    private final boolean activated;
+    private final List<String> authorities;
+
+    @JsonCreator
+    public UserSnapshot(@JsonProperty("username") String username,
+                        @JsonProperty("nickname") String nickname,
+                        @JsonProperty("activated") boolean activated,
+                        @JsonProperty("authorities") List<String> authorities) {
+        this.username = username;
+        this.nickname = nickname;
+        this.activated = activated;
+        this.authorities = Collections.unmodifiableList(new ArrayList<>(authorities));
+    }
+
+    public static UserSnapshot from(User user) {
+        List<String> authorities = user.getAuthorities().stream()
+                .map(Authority::getAuthorityName)
+                .sorted()
+                .collect(Collectors.toList());
+        return new UserSnapshot(user.getUsername(), user.getNickname(), user.isActivated(), authorities);
+    }
+
+    // 응답용으로 영속성 컨텍스트와 관계없는 User 엔티티를 만든다.
+    public User toUser() {
+        Set<Authority> authoritySet = authorities.stream()
+                .map(name -> Authority.builder().authorityName(name).build())
+                .collect(Collectors.toSet());
+        return User.builder()
+                .username(username)
+                .nickname(nickname)
+                .activated(activated)
+                .authorities(authoritySet)
+                .build();
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.jwt_redis.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
@@ -9,6 +13,9 @@ import javax.persistence.Table;
 
 @Entity
 @Table(name = "authority")
+// 권한 목록은 data.sql로 넣은 뒤에 바뀌지 않으므로 2차 캐시(prod 프로필)에 READ_ONLY로 보관한다.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @Getter
 @Setter
 @Builder
@@ -19,4 +26,10 @@ public class Authority {
     @Id
     @Column(name = "authority_name", length = 50)
     private String authorityName;
+
+    // compact 토큰에서 권한을 비트마스크로 표현할 때 사용하는 비트 위치 (0 ~ 62)
+    // 한 번 정한 값은 바꾸면 안 된다. 이미 발급된 토큰의 권한이 달라진다.
+    @JsonIgnore
+    @Column(name = "authority_bit", unique = true)
+    private Integer bit;
 }
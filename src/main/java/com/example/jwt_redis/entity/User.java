@@ -16,8 +16,11 @@ import java.util.Set;
 @AllArgsConstructor
 public class User {
 
+    // IDENTITY는 insert를 실행해야 id를 알 수 있어서 Hibernate가 insert를 batch로 묶지 못한다.
+    // sequence에서 allocationSize만큼 id를 미리 받아두고 사용하므로 일괄 가입 시 insert가 batch로 실행된다.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     @JsonIgnore
     @Column(name = "user_id")
     private Long userId;
@@ -26,7 +29,7 @@ public class User {
     private String username;
 
     @JsonIgnore
-    @Column(name = "password", length = 100)
+    @Column(name = "password", length = 255) // {argon2} 접두어가 붙은 해시도 들어갈 수 있도록 길게 잡는다.
     private String password;
 
     @Column(name = "nickname", length = 50)
@@ -36,6 +39,11 @@ public class User {
     @Column(name = "activated")
     private boolean activated;
 
+    // 비활성화 등으로 이전에 발급된 토큰을 모두 무효화해야 할 때 1씩 올린다. (토큰의 tv 클레임과 비교)
+    @JsonIgnore
+    @Column(name = "token_version")
+    private long tokenVersion;
+
     // User 객체와 권한객체의 다대다 관계를, 일대다, 다대일 관계의 조인 테이블로 정의함.
     // user_authority 라는 중간 테이블이 생성됨
     // 이 테이블은 user_id 컬럼과 authority_name 컬럼을 가지고 있음.
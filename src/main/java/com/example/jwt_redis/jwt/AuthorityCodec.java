@@ -0,0 +1,147 @@
+package com.example.jwt_redis.jwt;
+
+import com.example.jwt_redis.entity.Authority;
+import com.example.jwt_redis.repository.AuthorityRepository;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+// 토큰의 권한 정보를 GrantedAuthority 목록으로 바꾸는 클래스
+// 같은 권한 조합은 미리 만들어둔 불변 목록을 공유해서, 요청마다 split과 SimpleGrantedAuthority 생성을 하지 않는다.
+// compact 모드에서는 authority 테이블의 authority_bit를 이용해 권한을 비트마스크 숫자 하나로 표현한다.
+public class AuthorityCodec {
+
+    // 서명된 토큰에만 들어있는 값이라 조합 수가 많지 않지만, 만일을 위해 캐시 크기를 제한한다.
+    private static final int MAX_CACHED_COMBINATIONS = 1024;
+
+    private final AuthorityRepository authorityRepository;
+
+    private final ConcurrentMap<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, List<GrantedAuthority>> byClaim = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, List<GrantedAuthority>> byMask = new ConcurrentHashMap<>();
+
+    // authority 테이블은 data.sql이 실행된 뒤에 읽어야 하므로 처음 사용할 때 읽는다.
+    private volatile Map<String, Integer> bitsByName;
+    private volatile String[] namesByBit;
+    // DB 조회를 하는 동안 잡고 있는 lock이라 synchronized 대신 ReentrantLock을 사용한다.
+    // (virtual thread가 synchronized 안에서 I/O를 기다리면 carrier 스레드까지 묶인다)
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    public AuthorityCodec(AuthorityRepository authorityRepository) {
+        this.authorityRepository = authorityRepository;
+    }
+
+    // 테이블 대신 직접 비트를 지정할 때 사용한다. (벤치마크)
+    // 생성자가 하나여야 Spring이 AuthorityRepository를 받는 생성자로 빈을 만들 수 있으므로 정적 메서드로 둔다.
+    static AuthorityCodec forBits(Map<String, Integer> bits) {
+        AuthorityCodec codec = new AuthorityCodec(null);
+        codec.index(bits);
+        return codec;
+    }
+
+    // 권한 목록을 비트마스크로 바꾼다. 비트가 정해지지 않은 권한이 있으면 -1
+    public long encode(Collection<? extends GrantedAuthority> grantedAuthorities) {
+        Map<String, Integer> bits = bits();
+        long mask = 0;
+        for (GrantedAuthority grantedAuthority : grantedAuthorities) {
+            Integer bit = bits.get(grantedAuthority.getAuthority());
+            if (bit == null) {
+                return -1;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    public List<GrantedAuthority> decode(long mask) {
+        List<GrantedAuthority> cached = byMask.get(mask);
+        if (cached != null) {
+            return cached;
+        }
+        String[] names = namesByBit();
+        List<GrantedAuthority> result = new ArrayList<>();
+        for (int bit = 0; bit < names.length; bit++) {
+            if ((mask & (1L << bit)) != 0 && names[bit] != null) {
+                result.add(intern(names[bit]));
+            }
+        }
+        return cache(byMask, mask, result);
+    }
+
+    // "ROLE_USER,ROLE_ADMIN" 형태의 auth claim을 변환한다.
+    public List<GrantedAuthority> decode(String claim) {
+        List<GrantedAuthority> cached = byClaim.get(claim);
+        if (cached != null) {
+            return cached;
+        }
+        List<GrantedAuthority> result = new ArrayList<>();
+        for (String name : claim.split(",")) {
+            result.add(intern(name));
+        }
+        return cache(byClaim, claim, result);
+    }
+
+    private GrantedAuthority intern(String name) {
+        return authorities.computeIfAbsent(name, SimpleGrantedAuthority::new);
+    }
+
+    private <K> List<GrantedAuthority> cache(ConcurrentMap<K, List<GrantedAuthority>> map, K key, List<GrantedAuthority> value) {
+        List<GrantedAuthority> immutable = Collections.unmodifiableList(value);
+        if (map.size() >= MAX_CACHED_COMBINATIONS) {
+            return immutable;
+        }
+        List<GrantedAuthority> previous = map.putIfAbsent(key, immutable);
+        return previous != null ? previous : immutable;
+    }
+
+    private Map<String, Integer> bits() {
+        if (bitsByName == null) {
+            load();
+        }
+        return bitsByName;
+    }
+
+    private String[] namesByBit() {
+        if (namesByBit == null) {
+            load();
+        }
+        return namesByBit;
+    }
+
+    private void load() {
+        loadLock.lock();
+        try {
+            if (bitsByName != null) {
+                return;
+            }
+            Map<String, Integer> bits = new HashMap<>();
+            for (Authority authority : authorityRepository.findAll()) {
+                if (authority.getBit() != null) {
+                    bits.put(authority.getAuthorityName(), authority.getBit());
+                }
+            }
+            index(bits);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void index(Map<String, Integer> bits) {
+        int size = bits.values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        String[] names = new String[size];
+        bits.forEach((name, bit) -> names[bit] = name);
+        this.namesByBit = names;
+        this.bitsByName = Collections.unmodifiableMap(new HashMap<>(bits));
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.jwt_redis.jwt;
 
+import com.example.jwt_redis.redis.RevokedTokenStore;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.util.StringUtils;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.GenericFilterBean;
 
 import javax.servlet.FilterChain;
@@ -20,9 +22,22 @@ public class JwtFilter extends GenericFilterBean {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtFilter.class);
     public static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
     private TokenProvider tokenProvider;
-    public JwtFilter(TokenProvider tokenProvider) {
+    private VerifiedTokenCache verifiedTokenCache;
+    private RevokedTokenStore revokedTokenStore;
+    private SecurityEventLogger securityEventLogger;
+    private TokenVersionChecker tokenVersionChecker;
+    private RequestMatcher permitAllMatcher; // 토큰 없이 접근 가능한 경로는 토큰을 파싱하지 않는다.
+    public JwtFilter(TokenProvider tokenProvider, VerifiedTokenCache verifiedTokenCache, RevokedTokenStore revokedTokenStore,
+                     SecurityEventLogger securityEventLogger, TokenVersionChecker tokenVersionChecker,
+                     RequestMatcher permitAllMatcher) {
         this.tokenProvider = tokenProvider;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revokedTokenStore = revokedTokenStore;
+        this.securityEventLogger = securityEventLogger;
+        this.tokenVersionChecker = tokenVersionChecker;
+        this.permitAllMatcher = permitAllMatcher;
     }
 
     // 실제 필터링 로직
@@ -32,28 +47,97 @@ public class JwtFilter extends GenericFilterBean {
             throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) request;
 
-        String jwt = this.resolveToken(httpServletRequest); 
+        // 로그인, 회원가입 등 permitAll 경로는 인증 정보가 필요 없으므로 토큰을 파싱하지 않는다.
+        if (permitAllMatcher.matches(httpServletRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // 헤더에서 토큰을 잘라내기 전에 형식을 먼저 검사한다.
+        // 형식이 잘못되었거나 만료된 토큰은 substring, 캐시 조회, 서명 검증 없이 바로 거절한다.
+        String header = httpServletRequest.getHeader(AUTHORIZATION_HEADER);
+        if (!hasBearerToken(header)) {
+            // 요청마다 로그를 남기지 않고 사유별로 집계해서 주기적으로 남긴다.
+            securityEventLogger.record(SecurityEventLogger.Event.MISSING_TOKEN);
+            chain.doFilter(request, response);
+            return;
+        }
+        TokenVerification.Reason preValidation = tokenProvider.preValidate(header, BEARER_PREFIX.length());
+        if (preValidation != TokenVerification.Reason.VALID) {
+            securityEventLogger.record(preValidation);
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String jwt = header.substring(BEARER_PREFIX.length());
         String requestURI = httpServletRequest.getRequestURI();
 
-        // resolveToken으로 받아온 token으로 유효성 검증을 하고 정상 토큰이면 SecurityContext에 저장
-        if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-            // 토큰이 정상이면 Authentication 객체를 받아와서
-            Authentication authentication = tokenProvider.getAuthentication(jwt);
+        // 이미 검증된 토큰이 캐시에 있으면 서명 검증 없이 바로 사용한다.
+        VerifiedTokenCache.CachedToken cached = verifiedTokenCache.get(jwt);
+        if (cached != null) {
+            if (isRevoked(cached.getJti())) {
+                verifiedTokenCache.invalidate(jwt);
+                securityEventLogger.record(SecurityEventLogger.Event.REVOKED);
+            } else if (!tokenVersionChecker.isCurrent(cached.getAuthentication().getName(), cached.getTokenVersion())) {
+                verifiedTokenCache.invalidate(jwt);
+                securityEventLogger.record(SecurityEventLogger.Event.STALE_VERSION);
+            } else {
+                Authentication authentication = cached.getAuthentication();
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Security Context 에 '{}' 인증 정보를 저장했습니다. (cache) uri: {}", authentication.getName(), requestURI);
+                }
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // 형식 검사를 통과한 token으로 유효성 검증을 하고 정상 토큰이면 SecurityContext에 저장
+        // 서명 검증과 claims 추출은 verifyPreValidated 한 번으로 끝낸다.
+        TokenVerification verification = tokenProvider.verifyPreValidated(jwt);
+        if (verification.isValid() && isRevoked(verification.getClaims().getId())) {
+            securityEventLogger.record(SecurityEventLogger.Event.REVOKED);
+        } else if (verification.isValid() && !isCurrentVersion(verification.getClaims())) {
+            securityEventLogger.record(SecurityEventLogger.Event.STALE_VERSION);
+        } else if (verification.isValid()) {
+            // 토큰이 정상이면 검증된 claims로 Authentication 객체를 받아와서
+            Authentication authentication = tokenProvider.getAuthentication(verification.getClaims(), jwt);
+            // 검증에 성공한 토큰만 캐시에 넣는다.
+            verifiedTokenCache.put(jwt, verification.getClaims(), authentication);
             // SecurityContextHolder에 set한다.
             SecurityContextHolder.getContext().setAuthentication(authentication);
-            logger.debug("Security Context 에 '{}' 인증 정보를 저장했습니다. uri: {}", authentication.getName(), requestURI);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Security Context 에 '{}' 인증 정보를 저장했습니다. uri: {}", authentication.getName(), requestURI);
+            }
         } else {
-            logger.error("유효한 토큰 정보가 없습니다. uri: {}", requestURI);
+            securityEventLogger.record(verification.getReason());
         }
 
         chain.doFilter(request, response);
     }
 
+    // jti가 없는 예전 토큰은 폐기 대상이 될 수 없다.
+    private boolean isRevoked(String jti) {
+        return jti != null && revokedTokenStore.isRevoked(jti);
+    }
+
+    // stateless-principal 모드가 아니면 항상 true
+    private boolean isCurrentVersion(Claims claims) {
+        return tokenVersionChecker.isCurrent(claims.getSubject(), TokenProvider.getTokenVersion(claims));
+    }
+
+    // "Bearer " 다음에 토큰이 있는지만 확인한다. (문자열을 새로 만들지 않는다)
+    private static boolean hasBearerToken(String header) {
+        return header != null && header.length() > BEARER_PREFIX.length()
+                && header.regionMatches(0, BEARER_PREFIX, 0, BEARER_PREFIX.length());
+    }
+
     // Request Header에서 토큰정보를 꺼내오기 위한 resolveToken 메서드 추가
-    private String resolveToken(HttpServletRequest request) {
+    // 벤치마크(src/jmh)에서 직접 호출할 수 있도록 package-private으로 둔다.
+    String resolveToken(HttpServletRequest request) {
         String bearerToken = request.getHeader(AUTHORIZATION_HEADER);
-        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
+        if (hasBearerToken(bearerToken)) {
+            return bearerToken.substring(BEARER_PREFIX.length());
         }
         return null;
     }
@@ -0,0 +1,375 @@
+package com.example.jwt_redis.jwt;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Component
+// 토큰 서명/검증 키를 관리한다.
+// HS512(기본값)는 jwt.secret 하나로 서명과 검증을 모두 하고,
+// RS256/ES256은 노드마다 키 쌍을 만들어서 kid로 구분하고 주기적으로 교체(rotation)한다.
+//
+// 비대칭 키는 active(서명 중), next(공개만 된 다음 키), retired(검증만 가능) 상태를 가진다.
+// 공개키는 Redis(jwt:jwks)에 올려서 다른 노드와 공유하고, 각 노드는 주기적으로 읽어서 kid -> 공개키 맵을 다시 만든다.
+// next 키를 미리 공개해두기 때문에 교체 직후 발급된 토큰도 다른 노드에서 바로 검증할 수 있다.
+// 새로 시작한 노드의 첫 active 키는 미리 공개할 수 없으므로, 모르는 kid가 들어오면 Redis에서 그 kid만 한 번 읽어본다.
+// 요청마다 하는 일은 메모리에 있는 맵에서 kid로 키를 찾는 것뿐이다.
+public class JwtKeyManager implements InitializingBean {
+
+    static final String JWKS_KEY = "jwt:jwks";
+    private static final String HMAC_KID = "hmac";
+    private static final String RETIRE_AT = "retire_at";
+
+    private final SignatureAlgorithm algorithm;
+    private final String secret;
+    private final long tokenValidityMillis;
+    private final long rotationIntervalMillis;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, KeyEntry> ownKeys = new ConcurrentHashMap<>(); // 이 노드가 만든 키
+    private volatile KeyEntry active;
+    private volatile KeyEntry next;
+    private volatile Map<String, Key> verificationKeys = Collections.emptyMap();
+    // Redis에서도 찾지 못한 kid. 임의의 kid를 가진 토큰으로 Redis를 계속 호출하지 못하게 refresh 주기 동안 기억해둔다.
+    private final Cache<String, Boolean> unknownKids;
+    private volatile String jwksJson = "{\"keys\":[]}";
+    private volatile String jwksEtag = "\"empty\"";
+    // 교체 중에 Redis에 키를 publish하므로 synchronized 대신 ReentrantLock을 사용한다. (virtual thread pinning 방지)
+    private final ReentrantLock rotateLock = new ReentrantLock();
+
+    public JwtKeyManager(
+            @Value("${jwt.algorithm:HS512}") String algorithm,
+            @Value("${jwt.secret}") String secret,
+            @Value("${jwt.token-validity-in-seconds}") long tokenValidityInSeconds,
+            @Value("${jwt.keys.rotation-interval-ms:86400000}") long rotationIntervalMillis,
+            @Value("${jwt.keys.refresh-interval-ms:30000}") long refreshIntervalMillis,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper) {
+        this.algorithm = SignatureAlgorithm.forName(algorithm);
+        if (this.algorithm != SignatureAlgorithm.HS512 && this.algorithm != SignatureAlgorithm.RS256
+                && this.algorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalArgumentException("지원하지 않는 jwt.algorithm 입니다: " + algorithm);
+        }
+        this.secret = secret;
+        this.tokenValidityMillis = tokenValidityInSeconds * 1000;
+        this.rotationIntervalMillis = rotationIntervalMillis;
+        this.unknownKids = Caffeine.newBuilder()
+                .expireAfterWrite(refreshIntervalMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(10000)
+                .build();
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!isAsymmetric()) {
+            Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+            this.active = new KeyEntry(HMAC_KID, key, null, Long.MAX_VALUE);
+            this.verificationKeys = Collections.singletonMap(HMAC_KID, key);
+            return;
+        }
+        this.active = generate();
+        this.next = generate();
+        publish(active);
+        publish(next);
+        refresh();
+    }
+
+    public boolean isAsymmetric() {
+        return algorithm != SignatureAlgorithm.HS512;
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    // 새 토큰을 서명할 키
+    public KeyEntry activeKey() {
+        return active;
+    }
+
+    // 토큰 헤더의 kid로 검증 키를 찾는다. 모르는 kid면 null
+    // HS512는 키가 하나뿐이므로 kid가 없는 예전 토큰도 같은 키로 검증한다.
+    public Key verificationKey(String kid) {
+        if (!isAsymmetric()) {
+            return active.signingKey;
+        }
+        if (kid == null) {
+            return null;
+        }
+        Key key = verificationKeys.get(kid);
+        return key != null ? key : loadSharedKey(kid);
+    }
+
+    public String jwksJson() {
+        return jwksJson;
+    }
+
+    public String jwksEtag() {
+        return jwksEtag;
+    }
+
+    // active 키를 retired로, next 키를 active로 바꾸고 새로운 next 키를 만든다.
+    // retired 키는 그 키로 서명된 토큰이 모두 만료될 때까지 검증용으로 남겨둔다.
+    @Scheduled(fixedDelayString = "${jwt.keys.rotation-interval-ms:86400000}",
+            initialDelayString = "${jwt.keys.rotation-interval-ms:86400000}")
+    public void rotate() {
+        rotateLock.lock();
+        try {
+            if (!isAsymmetric()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            KeyEntry retired = new KeyEntry(active.kid, active.signingKey, active.publicKey, now + tokenValidityMillis);
+            ownKeys.put(retired.kid, retired);
+            publish(retired);
+
+            active = next;
+            next = generate();
+            publish(next);
+
+            ownKeys.values().removeIf(entry -> entry.retireAt < now);
+            pruneShared(now);
+            refresh();
+            log.info("jwt 서명 키를 교체했습니다. kid: {}", active.kid);
+        } finally {
+            rotateLock.unlock();
+        }
+    }
+
+    // Redis에 공유된 다른 노드의 공개키까지 합쳐서 kid -> 공개키 맵과 JWKS 응답을 다시 만든다.
+    @Scheduled(fixedDelayString = "${jwt.keys.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Map<String, Key> keys = new HashMap<>();
+        Map<String, Map<String, Object>> jwks = new TreeMap<>(); // kid 순서로 정렬해서 내용이 같으면 ETag도 같게 한다.
+
+        for (KeyEntry entry : ownKeys.values()) {
+            if (entry.retireAt >= now) {
+                keys.put(entry.kid, entry.publicKey);
+                jwks.put(entry.kid, toJwk(entry.kid, entry.publicKey));
+            }
+        }
+
+        try {
+            for (Map.Entry<Object, Object> shared : redisTemplate.opsForHash().entries(JWKS_KEY).entrySet()) {
+                Map<String, Object> jwk = objectMapper.readValue((String) shared.getValue(),
+                        new TypeReference<LinkedHashMap<String, Object>>() {});
+                Object retireAt = jwk.remove(RETIRE_AT);
+                if (retireAt instanceof Number && ((Number) retireAt).longValue() < now) {
+                    continue;
+                }
+                String kid = (String) shared.getKey();
+                if (!keys.containsKey(kid)) {
+                    keys.put(kid, fromJwk(jwk));
+                    jwks.put(kid, jwk);
+                }
+            }
+        } catch (RuntimeException | JsonProcessingException | GeneralSecurityException e) {
+            log.warn("Redis에서 공유된 jwt 공개키를 읽지 못했습니다. 이 노드의 키만 사용합니다.", e);
+        }
+
+        this.verificationKeys = Collections.unmodifiableMap(keys);
+        unknownKids.invalidateAll(); // 그 사이에 공유된 키일 수 있으므로 다시 찾아볼 수 있게 한다.
+        updateJwks(new ArrayList<>(jwks.values()));
+    }
+
+    // 다음 refresh를 기다리지 않고 Redis에서 kid 하나만 읽어서 검증 키에 추가한다. (다른 노드가 방금 만든 키)
+    // 동시에 refresh가 맵을 바꿔서 여기서 추가한 키가 빠지더라도 다음 요청에서 다시 읽는다.
+    private Key loadSharedKey(String kid) {
+        if (unknownKids.getIfPresent(kid) != null) {
+            return null;
+        }
+        try {
+            Object shared = redisTemplate.opsForHash().get(JWKS_KEY, kid);
+            if (shared != null) {
+                Map<String, Object> jwk = objectMapper.readValue((String) shared,
+                        new TypeReference<LinkedHashMap<String, Object>>() {});
+                Object retireAt = jwk.remove(RETIRE_AT);
+                if (!(retireAt instanceof Number) || ((Number) retireAt).longValue() >= System.currentTimeMillis()) {
+                    Key key = fromJwk(jwk);
+                    Map<String, Key> keys = new HashMap<>(verificationKeys);
+                    keys.put(kid, key);
+                    this.verificationKeys = Collections.unmodifiableMap(keys);
+                    log.info("다른 노드의 jwt 공개키를 Redis에서 읽었습니다. kid: {}", kid);
+                    return key;
+                }
+            }
+        } catch (RuntimeException | JsonProcessingException | GeneralSecurityException e) {
+            log.warn("Redis에서 jwt 공개키를 읽지 못했습니다. kid: {}", kid, e);
+        }
+        unknownKids.put(kid, Boolean.TRUE);
+        return null;
+    }
+
+    private KeyEntry generate() {
+        KeyPair keyPair = Keys.keyPairFor(algorithm);
+        KeyEntry entry = new KeyEntry(UUID.randomUUID().toString(), keyPair.getPrivate(), keyPair.getPublic(), Long.MAX_VALUE);
+        ownKeys.put(entry.kid, entry);
+        return entry;
+    }
+
+    // 공개키를 Redis에 올린다. 아직 사용 중인 키는 교체가 두 번 일어날 시간 + 토큰 수명만큼 유효하다고 적어둔다.
+    // (노드가 내려가서 교체되지 않은 키가 계속 남지 않도록)
+    private void publish(KeyEntry entry) {
+        long retireAt = entry.retireAt != Long.MAX_VALUE
+                ? entry.retireAt
+                : System.currentTimeMillis() + rotationIntervalMillis * 2 + tokenValidityMillis;
+        Map<String, Object> jwk = toJwk(entry.kid, entry.publicKey);
+        jwk.put(RETIRE_AT, retireAt);
+        try {
+            redisTemplate.opsForHash().put(JWKS_KEY, entry.kid, objectMapper.writeValueAsString(jwk));
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("jwt 공개키를 Redis에 공유하지 못했습니다. kid: {}", entry.kid, e);
+        }
+    }
+
+    // 만료된 공개키는 교체하는 노드가 지운다. (별도의 정리 작업 없음)
+    private void pruneShared(long now) {
+        try {
+            for (Map.Entry<Object, Object> shared : redisTemplate.opsForHash().entries(JWKS_KEY).entrySet()) {
+                Map<String, Object> jwk = objectMapper.readValue((String) shared.getValue(),
+                        new TypeReference<LinkedHashMap<String, Object>>() {});
+                Object retireAt = jwk.get(RETIRE_AT);
+                if (retireAt instanceof Number && ((Number) retireAt).longValue() < now) {
+                    redisTemplate.opsForHash().delete(JWKS_KEY, shared.getKey());
+                }
+            }
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("만료된 jwt 공개키를 정리하지 못했습니다.", e);
+        }
+    }
+
+    private void updateJwks(List<Map<String, Object>> keys) {
+        try {
+            String json = objectMapper.writeValueAsString(Collections.singletonMap("keys", keys));
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            this.jwksEtag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+            this.jwksJson = json;
+        } catch (JsonProcessingException | GeneralSecurityException e) {
+            log.warn("JWKS 응답을 만들지 못했습니다.", e);
+        }
+    }
+
+    private Map<String, Object> toJwk(String kid, PublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm.getValue());
+        if (publicKey instanceof RSAPublicKey) {
+            RSAPublicKey rsa = (RSAPublicKey) publicKey;
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(unsigned(rsa.getModulus(), 0)));
+            jwk.put("e", base64Url(unsigned(rsa.getPublicExponent(), 0)));
+        } else {
+            ECPublicKey ec = (ECPublicKey) publicKey;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("x", base64Url(unsigned(ec.getW().getAffineX(), 32)));
+            jwk.put("y", base64Url(unsigned(ec.getW().getAffineY(), 32)));
+        }
+        return jwk;
+    }
+
+    private static PublicKey fromJwk(Map<String, Object> jwk) throws GeneralSecurityException {
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        if ("RSA".equals(jwk.get("kty"))) {
+            BigInteger modulus = new BigInteger(1, decoder.decode((String) jwk.get("n")));
+            BigInteger exponent = new BigInteger(1, decoder.decode((String) jwk.get("e")));
+            return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+        }
+        ECPoint point = new ECPoint(new BigInteger(1, decoder.decode((String) jwk.get("x"))),
+                new BigInteger(1, decoder.decode((String) jwk.get("y"))));
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        ECParameterSpec spec = parameters.getParameterSpec(ECParameterSpec.class);
+        return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, spec));
+    }
+
+    // BigInteger의 부호 바이트를 떼고, length가 주어지면 앞을 0으로 채워 고정 길이로 만든다.
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (length > bytes.length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            return padded;
+        }
+        return bytes;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static final class KeyEntry {
+        private final String kid;
+        private final Key signingKey;
+        private final PublicKey publicKey; // HS512는 null
+        private final long retireAt;
+
+        private KeyEntry(String kid, Key signingKey, PublicKey publicKey, long retireAt) {
+            this.kid = kid;
+            this.signingKey = signingKey;
+            this.publicKey = publicKey;
+            this.retireAt = retireAt;
+        }
+
+        public String getKid() {
+            return kid;
+        }
+
+        public Key getSigningKey() {
+            return signingKey;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.jwt_redis.jwt;
+
+import com.example.jwt_redis.redis.ReactiveTokenStore;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// reactive 스택에서 access token을 검증하는 AuthenticationManager (servlet 스택의 JwtFilter와 같은 역할)
+// 서명 검증은 CPU 작업이라 그대로 실행하고, 폐기 여부 확인만 Bloom filter -> reactive Redis 순서로 I/O 없이 또는 non-blocking으로 처리한다.
+// stateless-principal 모드의 토큰 버전 확인은 UserProfileCache가 blocking이라서 boundedElastic 스케줄러에서 실행한다.
+public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final TokenProvider tokenProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ReactiveTokenStore reactiveTokenStore;
+    private final SecurityEventLogger securityEventLogger;
+    private final TokenVersionChecker tokenVersionChecker;
+
+    public JwtReactiveAuthenticationManager(TokenProvider tokenProvider, VerifiedTokenCache verifiedTokenCache,
+                                            ReactiveTokenStore reactiveTokenStore, SecurityEventLogger securityEventLogger,
+                                            TokenVersionChecker tokenVersionChecker) {
+        this.tokenProvider = tokenProvider;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.reactiveTokenStore = reactiveTokenStore;
+        this.securityEventLogger = securityEventLogger;
+        this.tokenVersionChecker = tokenVersionChecker;
+    }
+
+    // JwtServerAuthenticationConverter가 credentials에 토큰 원문을 넣어서 넘겨준다.
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        String jwt = (String) authentication.getCredentials();
+
+        // 이미 검증된 토큰이 캐시에 있으면 서명 검증 없이 바로 사용한다.
+        VerifiedTokenCache.CachedToken cached = verifiedTokenCache.get(jwt);
+        if (cached != null) {
+            return reactiveTokenStore.isRevoked(cached.getJti())
+                    .flatMap(revoked -> {
+                        if (revoked) {
+                            verifiedTokenCache.invalidate(jwt);
+                            return revoked();
+                        }
+                        return isCurrentVersion(cached.getAuthentication().getName(), cached.getTokenVersion())
+                                .flatMap(current -> {
+                                    if (!current) {
+                                        verifiedTokenCache.invalidate(jwt);
+                                        return staleVersion();
+                                    }
+                                    return Mono.just(cached.getAuthentication());
+                                });
+                    });
+        }
+
+        TokenVerification verification = tokenProvider.verify(jwt);
+        if (!verification.isValid()) {
+            securityEventLogger.record(verification.getReason());
+            return Mono.error(new BadCredentialsException("유효하지 않은 토큰입니다."));
+        }
+        return reactiveTokenStore.isRevoked(verification.getClaims().getId())
+                .flatMap(revoked -> {
+                    if (revoked) {
+                        return revoked();
+                    }
+                    return isCurrentVersion(verification.getClaims().getSubject(), TokenProvider.getTokenVersion(verification.getClaims()))
+                            .flatMap(current -> {
+                                if (!current) {
+                                    return staleVersion();
+                                }
+                                Authentication result = tokenProvider.getAuthentication(verification.getClaims(), jwt);
+                                verifiedTokenCache.put(jwt, verification.getClaims(), result);
+                                return Mono.just(result);
+                            });
+                });
+    }
+
+    // stateless-principal 모드가 아니면 스케줄러를 거치지 않고 바로 true
+    // 모드가 켜져 있으면 UserProfileCache가 miss일 때 Redis와 DB를 blocking으로 조회하므로 이벤트 루프에서 실행하지 않는다.
+    private Mono<Boolean> isCurrentVersion(String username, long tokenVersion) {
+        if (!tokenVersionChecker.isEnabled()) {
+            return Mono.just(true);
+        }
+        return Mono.fromCallable(() -> tokenVersionChecker.isCurrent(username, tokenVersion))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Authentication> revoked() {
+        securityEventLogger.record(SecurityEventLogger.Event.REVOKED);
+        return Mono.error(new BadCredentialsException("폐기된 토큰입니다."));
+    }
+
+    private Mono<Authentication> staleVersion() {
+        securityEventLogger.record(SecurityEventLogger.Event.STALE_VERSION);
+        return Mono.error(new BadCredentialsException("비활성화되었거나 토큰 버전이 지난 토큰입니다."));
+    }
+}
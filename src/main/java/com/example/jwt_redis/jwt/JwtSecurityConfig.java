@@ -1,26 +1,66 @@
 package com.example.jwt_redis.jwt;
 
+import com.example.jwt_redis.redis.RevokedTokenStore;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
 
 @Configuration
 // JwtFilter와 TokenProvider를 SecurityConfig에 적용할 때 사용할 클래스
 public class JwtSecurityConfig extends SecurityConfigurerAdapter<DefaultSecurityFilterChain, HttpSecurity> {
 
     private TokenProvider tokenProvider;
+    private VerifiedTokenCache verifiedTokenCache;
+    private RevokedTokenStore revokedTokenStore;
+    private SecurityEventLogger securityEventLogger;
+    private TokenVersionChecker tokenVersionChecker;
+    private String[] permitAllPaths = new String[0];
+    private RateLimitFilter rateLimitFilter;
 
-    public JwtSecurityConfig(TokenProvider tokenProvider) {
+    public JwtSecurityConfig(TokenProvider tokenProvider, VerifiedTokenCache verifiedTokenCache, RevokedTokenStore revokedTokenStore,
+                             SecurityEventLogger securityEventLogger, TokenVersionChecker tokenVersionChecker) {
         this.tokenProvider = tokenProvider;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revokedTokenStore = revokedTokenStore;
+        this.securityEventLogger = securityEventLogger;
+        this.tokenVersionChecker = tokenVersionChecker;
+    }
+
+    // SecurityConfig에서 permitAll로 설정한 경로들. JwtFilter는 이 경로에서 토큰을 파싱하지 않는다.
+    public JwtSecurityConfig permitAllPaths(String... paths) {
+        this.permitAllPaths = paths;
+        return this;
+    }
+
+    // 로그인, 회원가입 요청 횟수를 제한하는 필터. JwtFilter보다 앞에 등록된다.
+    public JwtSecurityConfig rateLimitFilter(RateLimitFilter rateLimitFilter) {
+        this.rateLimitFilter = rateLimitFilter;
+        return this;
     }
 
     @Override
     public void configure(HttpSecurity http) throws Exception {
         // JwtFilter를 Secutiry로직에 필터를 등록
-        JwtFilter customFilter = new JwtFilter(tokenProvider);
+        RequestMatcher permitAllMatcher = permitAllPaths.length == 0
+                ? request -> false
+                : new OrRequestMatcher(Arrays.stream(permitAllPaths)
+                        .map(AntPathRequestMatcher::new)
+                        .collect(Collectors.toList()));
+        JwtFilter customFilter = new JwtFilter(tokenProvider, verifiedTokenCache, revokedTokenStore, securityEventLogger,
+                tokenVersionChecker, permitAllMatcher);
         http.addFilterBefore(customFilter, UsernamePasswordAuthenticationFilter.class);
+        if (rateLimitFilter != null) {
+            // 요청 횟수 제한을 넘은 요청은 토큰 파싱 전에 거절한다.
+            http.addFilterBefore(rateLimitFilter, JwtFilter.class);
+        }
     }
 
 }
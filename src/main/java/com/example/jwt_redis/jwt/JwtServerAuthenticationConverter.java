@@ -0,0 +1,26 @@
+package com.example.jwt_redis.jwt;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// reactive 스택에서 Authorization 헤더의 Bearer 토큰을 꺼내서 인증 전 Authentication으로 만든다.
+// 토큰이 없으면 빈 Mono를 반환하고, 인증이 필요한 경로라면 이후에 401로 처리된다.
+public class JwtServerAuthenticationConverter implements ServerAuthenticationConverter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Override
+    public Mono<Authentication> convert(ServerWebExchange exchange) {
+        String bearerToken = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith(BEARER_PREFIX)) {
+            String jwt = bearerToken.substring(BEARER_PREFIX.length());
+            return Mono.just(new UsernamePasswordAuthenticationToken(jwt, jwt));
+        }
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.jwt_redis.jwt;
+
+import com.example.jwt_redis.service.LoginRateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+// 로그인, 회원가입 요청의 횟수를 제한하는 필터. JwtFilter보다 앞에서 실행된다.
+// username별로도 제한하기 위해 요청 body의 username을 읽고, 컨트롤러가 다시 읽을 수 있도록 body를 감싸서 넘긴다.
+// body가 MAX_BODY_BYTES보다 크면 username을 읽지 않고 413으로 거절한다.
+// (body를 부풀려서 username별 제한을 피하고 IP별 제한만 받는 일이 없도록)
+// 비동기로 처리되는 로그인 요청은 ASYNC dispatch로 필터 체인을 한 번 더 지나가므로 OncePerRequestFilter를 사용한다.
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    // LoginDto, UserDto의 크기를 생각하면 충분한 크기
+    private static final int MAX_BODY_BYTES = 4096;
+    private static final int MAX_USERNAME_LENGTH = 50;
+
+    private final LoginRateLimiter loginRateLimiter;
+    private final ObjectMapper objectMapper;
+    private final RequestMatcher rateLimitedMatcher;
+
+    public RateLimitFilter(LoginRateLimiter loginRateLimiter, ObjectMapper objectMapper, RequestMatcher rateLimitedMatcher) {
+        this.loginRateLimiter = loginRateLimiter;
+        this.objectMapper = objectMapper;
+        this.rateLimitedMatcher = rateLimitedMatcher;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginRateLimiter.isEnabled() || !rateLimitedMatcher.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value()); // 413 에러를 send
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        if (cachedRequest.isTooLarge()) { // Content-Length 없이(chunked) 보낸 큰 body
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        // X-Forwarded-For는 클라이언트가 조작할 수 있으므로 직접 읽지 않는다.
+        // 프록시 뒤에서 실행할 때는 server.forward-headers-strategy 설정으로 getRemoteAddr가 실제 IP를 반환하게 한다.
+        long waitMillis = loginRateLimiter.acquire(request.getRemoteAddr(), resolveUsername(cachedRequest));
+        if (waitMillis > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value()); // 429 에러를 send
+            return;
+        }
+        chain.doFilter(cachedRequest, response);
+    }
+
+    // body가 JSON이 아니거나 username이 없으면 null (컨트롤러의 validation에서 400으로 처리된다)
+    private String resolveUsername(CachedBodyRequest request) {
+        byte[] body = request.getCachedBody();
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode username = objectMapper.readTree(body).get("username");
+            if (username == null || !username.isTextual() || username.asText().length() > MAX_USERNAME_LENGTH) {
+                return null;
+            }
+            return username.asText();
+        } catch (IOException e) {
+            logger.debug("요청 body에서 username을 읽지 못했습니다.", e);
+            return null;
+        }
+    }
+
+    // body를 MAX_BODY_BYTES까지 미리 읽어두고, 컨트롤러에는 읽어둔 body를 다시 넘겨준다.
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+        private final boolean tooLarge;
+        private ServletInputStream inputStream;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            InputStream original = request.getInputStream();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(0, Math.min(request.getContentLength(), MAX_BODY_BYTES)));
+            byte[] chunk = new byte[512];
+            int read;
+            while (buffer.size() <= MAX_BODY_BYTES && (read = original.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            this.tooLarge = buffer.size() > MAX_BODY_BYTES;
+            this.body = tooLarge ? new byte[0] : buffer.toByteArray();
+        }
+
+        private boolean isTooLarge() {
+            return tooLarge;
+        }
+
+        private byte[] getCachedBody() {
+            return body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            if (inputStream == null) {
+                inputStream = new DelegatingServletInputStream(new ByteArrayInputStream(body));
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? encoding : StandardCharsets.UTF_8.name()));
+        }
+    }
+
+    private static final class DelegatingServletInputStream extends ServletInputStream {
+        private final InputStream delegate;
+        private boolean finished;
+
+        private DelegatingServletInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = delegate.read();
+            finished = value == -1;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            finished = read == -1;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true; // blocking 방식으로만 읽는다.
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("non-blocking read는 지원하지 않습니다.");
+        }
+    }
+}
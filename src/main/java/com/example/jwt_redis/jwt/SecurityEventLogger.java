@@ -0,0 +1,77 @@
+package com.example.jwt_redis.jwt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+// 토큰 인증 실패를 요청마다 로그로 남기지 않고, 사유별로 개수만 세어두었다가
+// 일정 주기(security-events.interval-ms)마다 한 줄의 key=value 형식 로그로 모아서 남긴다.
+public class SecurityEventLogger {
+
+    public enum Event {
+        MISSING_TOKEN,     // 인증이 필요한 경로인데 토큰이 없음
+        INVALID_SIGNATURE,
+        EXPIRED,
+        UNSUPPORTED,
+        ILLEGAL_ARGUMENT,
+        REVOKED,           // 로그아웃 등으로 폐기된 토큰
+        STALE_VERSION      // 유저 비활성화 등으로 토큰 버전(tv)이 지난 토큰
+    }
+
+    private final Map<Event, LongAdder> counts = new EnumMap<>(Event.class);
+
+    public SecurityEventLogger() {
+        for (Event event : Event.values()) {
+            counts.put(event, new LongAdder());
+        }
+    }
+
+    public void record(Event event) {
+        counts.get(event).increment();
+    }
+
+    public void record(TokenVerification.Reason reason) {
+        switch (reason) {
+            case INVALID_SIGNATURE:
+                record(Event.INVALID_SIGNATURE);
+                break;
+            case EXPIRED:
+                record(Event.EXPIRED);
+                break;
+            case UNSUPPORTED:
+                record(Event.UNSUPPORTED);
+                break;
+            case ILLEGAL_ARGUMENT:
+                record(Event.ILLEGAL_ARGUMENT);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // 주기 동안 발생한 이벤트가 없으면 아무것도 남기지 않는다.
+    @Scheduled(fixedDelayString = "${security-events.interval-ms:10000}")
+    public void flush() {
+        StringBuilder line = null;
+        for (Map.Entry<Event, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            if (line == null) {
+                line = new StringBuilder("event=jwt_auth_failure");
+            }
+            line.append(' ').append(entry.getKey().name().toLowerCase(Locale.ROOT)).append('=').append(count);
+        }
+        if (line != null) {
+            log.warn(line.toString());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.jwt_redis.jwt;
+
+// 서명 검증(jjwt 파싱) 전에 토큰의 형식만 빠르게 확인하는 검사기
+// 길이, 세 개의 segment, Base64URL 문자, 헤더의 alg, payload의 exp를 확인하고
+// 형식이 잘못된 토큰은 예외나 새로운 객체를 만들지 않고 실패 사유만 돌려준다.
+// 여기서 통과했다고 유효한 토큰은 아니다. 거절만 할 수 있고, 나머지는 jjwt가 서명까지 검증한다.
+final class TokenPreValidator {
+
+    // 권한이 많은 토큰도 들어갈 수 있는 길이. 이보다 길면 파싱하지 않는다.
+    static final int MAX_TOKEN_LENGTH = 4096;
+
+    private static final byte[] BASE64_URL = new byte[128]; // 문자 -> 6비트 값, Base64URL 문자가 아니면 -1
+
+    static {
+        for (int i = 0; i < BASE64_URL.length; i++) {
+            BASE64_URL[i] = -1;
+        }
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private static final String ALG_KEY = "\"alg\"";
+    private static final String EXP_KEY = "\"exp\"";
+
+    private TokenPreValidator() {
+    }
+
+    // source의 start부터 끝까지를 토큰으로 보고 검사한다. (Authorization 헤더에서 "Bearer "를 잘라내지 않고 검사할 수 있다)
+    // 형식에 문제가 없으면 VALID를 반환한다.
+    static TokenVerification.Reason check(String source, int start, String expectedAlg, long nowMillis) {
+        int end = source.length();
+        int length = end - start;
+        if (length <= 0 || length > MAX_TOKEN_LENGTH) {
+            return TokenVerification.Reason.ILLEGAL_ARGUMENT;
+        }
+
+        // header.payload.signature 형식이고 모든 문자가 Base64URL 문자인지 한 번에 확인한다.
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return TokenVerification.Reason.INVALID_SIGNATURE;
+                }
+            } else if (c >= 128 || BASE64_URL[c] < 0) {
+                return TokenVerification.Reason.INVALID_SIGNATURE;
+            }
+        }
+        if (secondDot < 0 || firstDot == start || secondDot == firstDot + 1 || secondDot == end - 1
+                || !isValidLength(firstDot - start) || !isValidLength(secondDot - firstDot - 1)
+                || !isValidLength(end - secondDot - 1)) {
+            return TokenVerification.Reason.INVALID_SIGNATURE;
+        }
+
+        // 헤더의 alg가 이 서버가 서명에 사용하는 알고리즘과 다르면("none" 포함) 검증할 수 없다.
+        int headerStart = start;
+        int headerLength = decodedLength(firstDot - start);
+        int alg = findValue(source, headerStart, headerLength, ALG_KEY);
+        if (alg < 0 || alg >= headerLength || decodedByte(source, headerStart, alg) != '"') {
+            return TokenVerification.Reason.INVALID_SIGNATURE;
+        }
+        if (!matchesString(source, headerStart, headerLength, alg + 1, expectedAlg)) {
+            return TokenVerification.Reason.UNSUPPORTED;
+        }
+
+        // exp가 지났으면 서명을 확인하지 않고 만료로 거절한다. exp가 없거나 정수가 아니면 jjwt에 맡긴다.
+        int payloadStart = firstDot + 1;
+        int payloadLength = decodedLength(secondDot - firstDot - 1);
+        int exp = findValue(source, payloadStart, payloadLength, EXP_KEY);
+        if (exp >= 0) {
+            long expSeconds = parseLong(source, payloadStart, payloadLength, exp);
+            if (expSeconds >= 0 && expSeconds * 1000 < nowMillis) { // jjwt와 같이 exp 시각까지는 유효하다.
+                return TokenVerification.Reason.EXPIRED;
+            }
+        }
+        return TokenVerification.Reason.VALID;
+    }
+
+    // padding 없는 Base64URL에서 나머지가 1인 길이는 만들어질 수 없다.
+    private static boolean isValidLength(int encodedLength) {
+        return encodedLength % 4 != 1;
+    }
+
+    private static int decodedLength(int encodedLength) {
+        return encodedLength * 3 / 4;
+    }
+
+    // segment를 디코딩하지 않고 index 번째 바이트만 계산한다. (4글자 -> 3바이트)
+    private static int decodedByte(String source, int segmentStart, int index) {
+        int group = segmentStart + (index / 3) * 4;
+        switch (index % 3) {
+            case 0:
+                return ((sextet(source, group) << 2) | (sextet(source, group + 1) >> 4)) & 0xFF;
+            case 1:
+                return ((sextet(source, group + 1) << 4) | (sextet(source, group + 2) >> 2)) & 0xFF;
+            default:
+                return ((sextet(source, group + 2) << 6) | sextet(source, group + 3)) & 0xFF;
+        }
+    }
+
+    private static int sextet(String source, int index) {
+        return BASE64_URL[source.charAt(index)];
+    }
+
+    // JSON에서 key(따옴표 포함) 다음의 ':'와 공백을 건너뛴 값의 시작 위치를 찾는다. 없으면 -1
+    private static int findValue(String source, int segmentStart, int length, String key) {
+        int last = length - key.length();
+        for (int i = 0; i <= last; i++) {
+            if (!matchesAt(source, segmentStart, i, key)) {
+                continue;
+            }
+            int j = skipWhitespace(source, segmentStart, length, i + key.length());
+            if (j < length && decodedByte(source, segmentStart, j) == ':') {
+                return skipWhitespace(source, segmentStart, length, j + 1);
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesAt(String source, int segmentStart, int index, String expected) {
+        for (int k = 0; k < expected.length(); k++) {
+            if (decodedByte(source, segmentStart, index + k) != expected.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(String source, int segmentStart, int length, int index) {
+        while (index < length) {
+            int b = decodedByte(source, segmentStart, index);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    // index부터 expected와 같고 바로 다음이 닫는 따옴표인지 확인한다.
+    private static boolean matchesString(String source, int segmentStart, int length, int index, String expected) {
+        int close = index + expected.length();
+        return close < length
+                && matchesAt(source, segmentStart, index, expected)
+                && decodedByte(source, segmentStart, close) == '"';
+    }
+
+    // index부터의 음이 아닌 정수를 읽는다. 정수가 아니거나(소수, 지수) 너무 크면 -1
+    private static long parseLong(String source, int segmentStart, int length, int index) {
+        long value = 0;
+        int digits = 0;
+        while (index < length) {
+            int b = decodedByte(source, segmentStart, index);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            if (++digits > 15) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+            index++;
+        }
+        if (digits == 0 || (index < length && isNumberPart(decodedByte(source, segmentStart, index)))) {
+            return -1;
+        }
+        return value;
+    }
+
+    private static boolean isNumberPart(int b) {
+        return b == '.' || b == 'e' || b == 'E';
+    }
+}
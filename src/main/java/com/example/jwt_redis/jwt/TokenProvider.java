@@ -1,23 +1,26 @@
 package com.example.jwt_redis.jwt;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -26,83 +29,231 @@ import java.util.stream.Collectors;
 public class TokenProvider implements InitializingBean {
 
     private static final String AUTHORITIES_KEY = "auth";
+    private static final String ROLES_KEY = "rl"; // compact 모드: 권한 비트마스크
+    private static final String TOKEN_VERSION_KEY = "tv"; // stateless-principal 모드: 발급 시점의 유저 토큰 버전
 
-    private final String secret;
     private final long tokenValiditiyInMilliseconds;
+    private final JwtKeyManager keyManager;
+    private final AuthorityCodec authorityCodec;
+    private final boolean compactClaims;
 
-    private Key key;
+    // 검증 키는 kid로 JwtKeyManager의 메모리 맵에서 찾으므로, 파서는 한 번만 만들어서 재사용한다. (thread-safe)
+    private JwtParser jwtParser;
+    private String expectedAlgorithm; // 헤더의 alg가 이 값과 다르면 파싱 전에 거절한다. (TokenPreValidator)
+
+    // 요청마다 Timer를 찾지 않도록 결과(result 태그)별 Timer를 미리 만들어둔다.
+    private final Timer issueTimer;
+    private final Map<TokenVerification.Reason, Timer> verifyTimers = new EnumMap<>(TokenVerification.Reason.class);
 
     public TokenProvider(
-            @Value("${jwt.secret}") String secret,
-            @Value("${jwt.token-validity-in-seconds}") long tokenValiditiyInMilliseconds) {
-        this.secret = secret;
+            @Value("${jwt.token-validity-in-seconds}") long tokenValiditiyInMilliseconds,
+            MeterRegistry meterRegistry,
+            JwtKeyManager keyManager,
+            AuthorityCodec authorityCodec,
+            @Value("${jwt.compact-claims:false}") boolean compactClaims) {
         this.tokenValiditiyInMilliseconds = tokenValiditiyInMilliseconds * 1000;
+        this.keyManager = keyManager;
+        this.authorityCodec = authorityCodec;
+        this.compactClaims = compactClaims;
+        this.issueTimer = Timer.builder("jwt.token.issue")
+                .description("access token 발급 시간")
+                .register(meterRegistry);
+        for (TokenVerification.Reason reason : TokenVerification.Reason.values()) {
+            verifyTimers.put(reason, Timer.builder("jwt.token.verify")
+                    .description("access token 검증 시간 (result: 검증 결과)")
+                    .tag("result", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
     }
 
     // InitializingBean을 implements해서 afterPropertiesSet을 Override한 이유는
-    // Bean이 생성이 되고(@Component로 빈 생성) 의존성 주입을 받은 후에 주입받은 secret값을
-    // Base64 Decode해서 key변수에 할당하기 위해서이다.
+    // Bean이 생성이 되고(@Component로 빈 생성) 의존성 주입을 받은 후에
+    // 토큰 헤더의 kid로 검증 키를 찾는 파서를 만들기 위해서이다.
     @Override
     public void afterPropertiesSet() throws Exception {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.expectedAlgorithm = keyManager.getAlgorithm().getValue();
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyManager.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new io.jsonwebtoken.security.SignatureException("알 수 없는 kid 입니다.");
+                        }
+                        return key;
+                    }
+                })
+                .build();
     }
 
     // Authentication객체의 권한정보를 이용해서 토큰을 생성하는 createToken 메서드 추가
     public String createToken(Authentication authentication) {
-        String authorities = authentication.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(","));
+        return createToken(authentication, null);
+    }
+
+    // tokenVersion이 있으면 tv 클레임으로 넣는다. (TokenVersionChecker.currentVersion)
+    public String createToken(Authentication authentication, Long tokenVersion) {
+        return issueToken(authentication, tokenVersion).getToken();
+    }
+
+    // 토큰과 함께 jti, 만료 시각을 반환한다. (SessionRegistry에 세션을 등록할 때 사용)
+    public IssuedToken issueToken(Authentication authentication, Long tokenVersion) {
+        long start = System.nanoTime();
+        try {
+            return buildToken(authentication, tokenVersion);
+        } finally {
+            issueTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private IssuedToken buildToken(Authentication authentication, Long tokenVersion) {
 
         // yml에 설정한 토큰의 expired타임을 설정한다.
         long now = new Date().getTime();
         Date validity = new Date(now + this.tokenValiditiyInMilliseconds);
 
-        return Jwts.builder() // jwt 토큰을 생성해서 return한다.
+        JwtBuilder builder = Jwts.builder(); // jwt 토큰을 생성해서 return한다.
+        JwtKeyManager.KeyEntry signingKey = keyManager.activeKey();
+        if (keyManager.isAsymmetric()) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid()); // 검증하는 쪽에서 공개키를 찾기 위한 kid
+        }
+        // compact 모드에서는 "ROLE_USER,ROLE_ADMIN" 대신 authority_bit로 만든 숫자 하나만 넣는다.
+        // 비트가 정해지지 않은 권한이 있으면 기존 방식으로 넣는다.
+        long roleMask = compactClaims ? authorityCodec.encode(authentication.getAuthorities()) : -1;
+        if (roleMask >= 0) {
+            builder.claim(ROLES_KEY, roleMask);
+        } else {
+            builder.claim(AUTHORITIES_KEY, authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .collect(Collectors.joining(",")));
+        }
+
+        if (tokenVersion != null) {
+            builder.claim(TOKEN_VERSION_KEY, tokenVersion);
+        }
+
+        String jti = UUID.randomUUID().toString();
+        String token = builder
+                .setId(jti) // 토큰을 폐기(로그아웃)할 때 식별하기 위한 jti
                 .setSubject(authentication.getName())
-                .claim(AUTHORITIES_KEY, authorities)
-                .signWith(key, SignatureAlgorithm.HS512)
+                .signWith(signingKey.getSigningKey(), keyManager.getAlgorithm())
                 .setExpiration(validity)
                 .compact();
+        return new IssuedToken(token, jti, validity);
     }
 
     // Token에 담겨있는 정보를 이용해 Authentication 객체를 리턴하는 메서드 생성
     public Authentication getAuthentication(String token) {
         // token으로 cliams를 만든다.
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        // Claim에서 권한 정보들을 빼준다.
-        Collection<? extends GrantedAuthority> authorities =
-                Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return getAuthentication(claims, token);
+    }
+
+    // 이미 검증된 claims로 Authentication 객체를 만든다. (서명 검증을 다시 하지 않는다)
+    public Authentication getAuthentication(Claims claims, String token) {
+        // Claim에서 권한 정보들을 빼준다. 같은 권한 조합은 미리 만들어둔 불변 목록을 공유한다.
+        // compact 모드로 바꾸기 전에 발급된 토큰도 검증할 수 있도록 두 형식을 모두 읽는다.
+        Object roleMask = claims.get(ROLES_KEY);
+        Collection<? extends GrantedAuthority> authorities = roleMask instanceof Number
+                ? authorityCodec.decode(((Number) roleMask).longValue())
+                : authorityCodec.decode(claims.get(AUTHORITIES_KEY).toString());
 
         // authorities(권한 정보)를 이용해 User 객체를 만든다.
         User principal = new User(claims.getSubject(), "", authorities);
 
         // User객체, token, authorities(권한정보)를 이용해서 Authentication 객체를 반환
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        // 로그아웃할 때 토큰을 다시 검증하지 않도록 검증된 jti와 만료 시각을 details에 넣어둔다.
+        authentication.setDetails(new IssuedToken(token, claims.getId(), claims.getExpiration()));
+        return authentication;
+    }
+
+    // tv 클레임이 없는 토큰은 버전 0으로 취급한다.
+    public static long getTokenVersion(Claims claims) {
+        Object tokenVersion = claims.get(TOKEN_VERSION_KEY);
+        return tokenVersion instanceof Number ? ((Number) tokenVersion).longValue() : 0L;
     }
 
     // 토큰의 유효성 검사를 수행하는 메서드
     public boolean validateToken(String token) {
-        // 토큰을 파싱하고 발생하는 익셉션을 캐치해서 문제가 있으면 false 없으면 true를 반환한다.
+        return verify(token).isValid();
+    }
+
+    // 서명 검증과 claims 추출을 한 번의 파싱으로 처리한다.
+    // 문제가 있으면 실패 사유를, 없으면 검증된 claims를 담아서 반환한다.
+    // 실패 사유는 jwt.token.verify 메트릭의 result 태그로 집계된다.
+    // 형식이 잘못되었거나 만료된 토큰은 jjwt로 파싱하기 전에 거절한다. (예외를 만들지 않는다)
+    public TokenVerification verify(String token) {
+        long start = System.nanoTime();
+        TokenVerification.Reason reason = token == null
+                ? TokenVerification.Reason.ILLEGAL_ARGUMENT
+                : TokenPreValidator.check(token, 0, expectedAlgorithm, System.currentTimeMillis());
+        TokenVerification verification = reason == TokenVerification.Reason.VALID
+                ? parse(token)
+                : TokenVerification.failure(reason);
+        verifyTimers.get(verification.getReason()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return verification;
+    }
+
+    // JwtFilter가 Authorization 헤더에서 토큰을 잘라내기(substring) 전에 source의 start부터를 검사한다.
+    // 거절한 경우에만 메트릭을 남기고, 통과한 토큰은 verifyPreValidated로 검증한다.
+    TokenVerification.Reason preValidate(String source, int start) {
+        long startTime = System.nanoTime();
+        TokenVerification.Reason reason = TokenPreValidator.check(source, start, expectedAlgorithm, System.currentTimeMillis());
+        if (reason != TokenVerification.Reason.VALID) {
+            verifyTimers.get(reason).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+        return reason;
+    }
+
+    // preValidate를 통과한 토큰을 서명까지 검증한다.
+    TokenVerification verifyPreValidated(String token) {
+        long start = System.nanoTime();
+        TokenVerification verification = parse(token);
+        verifyTimers.get(verification.getReason()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return verification;
+    }
+
+    private TokenVerification parse(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            return TokenVerification.success(jwtParser.parseClaimsJws(token).getBody());
         } catch (SecurityException | MalformedJwtException e) {
-            log.error("잘못된 jwt 서명입니다.");
+            log.debug("잘못된 jwt 서명입니다.");
+            return TokenVerification.failure(TokenVerification.Reason.INVALID_SIGNATURE);
         } catch (ExpiredJwtException e) {
-            log.error("만료된 jwt 토큰입니다.");
+            log.debug("만료된 jwt 토큰입니다.");
+            return TokenVerification.failure(TokenVerification.Reason.EXPIRED);
         } catch (UnsupportedJwtException e) {
-            log.error("지원되지 않는 jwt 토큰입니다.");
+            log.debug("지원되지 않는 jwt 토큰입니다.");
+            return TokenVerification.failure(TokenVerification.Reason.UNSUPPORTED);
         } catch (IllegalArgumentException e) {
-            log.error("jwt 토큰 값이 잘못되었습니다.");
+            log.debug("jwt 토큰 값이 잘못되었습니다.");
+            return TokenVerification.failure(TokenVerification.Reason.ILLEGAL_ARGUMENT);
+        }
+    }
+
+    // 발급한 토큰과 토큰의 jti, 만료 시각 (검증한 토큰의 Authentication details로도 사용한다)
+    public static final class IssuedToken {
+        private final String token;
+        private final String jti;
+        private final Date expiration;
+
+        IssuedToken(String token, String jti, Date expiration) {
+            this.token = token;
+            this.jti = jti;
+            this.expiration = expiration;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getJti() {
+            return jti;
+        }
+
+        public Date getExpiration() {
+            return expiration;
         }
-        return false;
     }
 }
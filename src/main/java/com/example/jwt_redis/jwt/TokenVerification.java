@@ -0,0 +1,62 @@
+package com.example.jwt_redis.jwt;
+
+import io.jsonwebtoken.Claims;
+
+// 토큰을 한 번만 파싱해서 검증 결과와 claims를 같이 돌려주기 위한 클래스
+// 검증에 성공하면 claims를, 실패하면 실패 사유(Reason)를 담는다.
+public final class TokenVerification {
+
+    public enum Reason {
+        VALID,
+        INVALID_SIGNATURE, // 잘못된 서명 또는 형식
+        EXPIRED,           // 만료된 토큰
+        UNSUPPORTED,       // 지원되지 않는 토큰
+        ILLEGAL_ARGUMENT   // 토큰 값이 비어있거나 잘못됨
+    }
+
+    // 실패 결과는 상태가 없으므로 사유별로 하나씩만 만들어두고 재사용한다.
+    private static final TokenVerification INVALID_SIGNATURE = new TokenVerification(null, Reason.INVALID_SIGNATURE);
+    private static final TokenVerification EXPIRED = new TokenVerification(null, Reason.EXPIRED);
+    private static final TokenVerification UNSUPPORTED = new TokenVerification(null, Reason.UNSUPPORTED);
+    private static final TokenVerification ILLEGAL_ARGUMENT = new TokenVerification(null, Reason.ILLEGAL_ARGUMENT);
+
+    private final Claims claims;
+    private final Reason reason;
+
+    private TokenVerification(Claims claims, Reason reason) {
+        this.claims = claims;
+        this.reason = reason;
+    }
+
+    public static TokenVerification success(Claims claims) {
+        return new TokenVerification(claims, Reason.VALID);
+    }
+
+    public static TokenVerification failure(Reason reason) {
+        switch (reason) {
+            case INVALID_SIGNATURE:
+                return INVALID_SIGNATURE;
+            case EXPIRED:
+                return EXPIRED;
+            case UNSUPPORTED:
+                return UNSUPPORTED;
+            case ILLEGAL_ARGUMENT:
+                return ILLEGAL_ARGUMENT;
+            default:
+                throw new IllegalArgumentException("실패 사유가 아닙니다: " + reason);
+        }
+    }
+
+    public boolean isValid() {
+        return reason == Reason.VALID;
+    }
+
+    // 검증에 성공한 경우에만 claims가 존재한다.
+    public Claims getClaims() {
+        return claims;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.jwt_redis.jwt;
+
+import com.example.jwt_redis.dto.UserProfile;
+import com.example.jwt_redis.redis.UserProfileCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+// jwt.stateless-principal.enabled=true 일 때 사용하는 토큰 버전 확인
+// 토큰을 발급할 때 유저의 tokenVersion을 tv 클레임으로 넣어두고, 요청마다 UserProfileCache의 현재 버전과 비교한다.
+// 유저를 비활성화하면 tokenVersion이 올라가서 그 전에 발급된 토큰은 만료 전이라도 거절된다.
+public class TokenVersionChecker {
+
+    private final UserProfileCache userProfileCache; // 비활성화 상태면 null
+    private final boolean enabled;
+
+    public TokenVersionChecker(UserProfileCache userProfileCache,
+                               @Value("${jwt.stateless-principal.enabled:false}") boolean enabled) {
+        this.userProfileCache = enabled ? userProfileCache : null;
+        this.enabled = enabled;
+    }
+
+    // 벤치마크(src/jmh)처럼 Redis, DB 없이 JwtFilter를 만들 때 사용한다.
+    public static TokenVersionChecker disabled() {
+        return new TokenVersionChecker(null, false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 토큰에 넣을 현재 버전. 비활성화 상태면 null을 반환해서 tv 클레임을 넣지 않는다.
+    public Long currentVersion(String username) {
+        if (!enabled) {
+            return null;
+        }
+        return userProfileCache.get(username).map(UserProfile::getTokenVersion).orElse(0L);
+    }
+
+    // 유저가 없거나 비활성화되었거나 토큰 버전이 현재 버전보다 낮으면 false
+    // tv 클레임이 없는 토큰(이 모드를 켜기 전에 발급된 토큰)은 버전 0으로 취급한다.
+    public boolean isCurrent(String username, long tokenVersion) {
+        if (!enabled) {
+            return true;
+        }
+        Optional<UserProfile> profile = userProfileCache.get(username);
+        return profile.isPresent() && profile.get().isActivated() && tokenVersion >= profile.get().getTokenVersion();
+    }
+
+    // /api/user 응답에 사용할 프로필
+    public Optional<UserProfile> profile(String username) {
+        return enabled ? userProfileCache.get(username) : Optional.empty();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.jwt_redis.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@Component
+// 같은 토큰이 반복해서 들어올 때 서명 검증과 Authentication 생성을 다시 하지 않도록
+// 검증에 성공한 토큰의 Authentication을 보관하는 로컬 캐시
+// 키는 토큰 원문이 아니라 토큰의 SHA-256 해시를 사용하고, 토큰의 exp가 지나면 자동으로 제거된다.
+public class VerifiedTokenCache {
+
+    private final Cache<String, CachedToken> cache; // 비활성화 상태면 null
+
+    public VerifiedTokenCache(
+            @Value("${jwt.cache.enabled:false}") boolean enabled,
+            @Value("${jwt.cache.maximum-size:10000}") long maximumSize) {
+        // Caffeine은 내부적으로 lock striping을 사용하므로 하나의 전역 lock 없이 동시에 읽고 쓸 수 있다.
+        this.cache = enabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(maximumSize) // 크기를 넘으면 W-TinyLFU 정책으로 제거
+                        .expireAfter(new TokenExpiry()) // 토큰마다 exp 시각에 맞춰 제거
+                        .recordStats() // hit, miss, eviction 카운트 기록
+                        .build()
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    // 캐시에 있으면 CachedToken을, 없으면 null을 반환한다.
+    public CachedToken get(String token) {
+        if (cache == null) {
+            return null;
+        }
+        return cache.getIfPresent(hash(token));
+    }
+
+    // 서명 검증에 성공한 토큰만 넣어야 한다. exp가 없는 토큰은 언제 만료될지 알 수 없으므로 캐싱하지 않는다.
+    public void put(String token, Claims claims, Authentication authentication) {
+        if (cache == null) {
+            return;
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return;
+        }
+        cache.put(hash(token), new CachedToken(authentication, claims.getId(),
+                TokenProvider.getTokenVersion(claims), expiration.getTime()));
+    }
+
+    // 토큰이 폐기(로그아웃 등)되었을 때 캐시에서도 바로 제거한다.
+    public void invalidate(String token) {
+        if (cache != null) {
+            cache.invalidate(hash(token));
+        }
+    }
+
+    // hitCount, missCount, evictionCount 등을 담은 통계를 반환한다.
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.stats();
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashed = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hashed);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256은 모든 JVM에서 지원해야 하는 알고리즘이다.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 캐시에 보관하는 값. 폐기 여부와 토큰 버전을 확인할 수 있도록 jti, tv도 같이 보관한다.
+    public static final class CachedToken {
+        private final Authentication authentication;
+        private final String jti;
+        private final long tokenVersion;
+        private final long expiresAtMillis;
+
+        private CachedToken(Authentication authentication, String jti, long tokenVersion, long expiresAtMillis) {
+            this.authentication = authentication;
+            this.jti = jti;
+            this.tokenVersion = tokenVersion;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public Authentication getAuthentication() {
+            return authentication;
+        }
+
+        public String getJti() {
+            return jti;
+        }
+
+        public long getTokenVersion() {
+            return tokenVersion;
+        }
+    }
+
+    // 엔트리마다 토큰의 exp까지 남은 시간만큼만 캐시에 머무르게 한다.
+    private static final class TokenExpiry implements Expiry<String, CachedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.jwt_redis.redis;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.support.caching.CacheAccessor;
+import io.lettuce.core.support.caching.CacheFrontend;
+import io.lettuce.core.support.caching.ClientSideCaching;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+@Slf4j
+@Component
+// Redis 6의 RESP3 client-side caching(CLIENT TRACKING)으로 자주 읽는 키를 로컬 메모리에 보관하는 캐시
+// BCAST 모드로 지정한 prefix(revoked:, user:snapshot:)를 구독해두면, 키가 바뀌거나 지워질 때 Redis가 invalidation 메시지를 보내주고
+// Lettuce가 로컬 캐시에서 해당 키를 제거한다. 따라서 같은 키를 반복해서 읽어도 Redis까지 왕복하지 않는다.
+// tracking은 커넥션 단위로 동작하므로 RedisConnectionFactory와 별도로 전용 RESP3 커넥션을 하나 연다.
+// 단일 서버에서만 사용한다. Sentinel에서는 spring.redis.host가 master가 아닐 수 있고 failover 후에는 tracking이 끊기며,
+// Cluster에서는 노드마다 tracking 커넥션이 필요하므로 invalidation을 놓칠 수 있다. (폐기된 토큰을 유효하다고 볼 수 있다)
+public class ClientSideCache implements InitializingBean, DisposableBean {
+
+    private final boolean enabled;
+    private final String[] prefixes;
+    private final long maximumSize;
+    private final String host;
+    private final int port;
+    private final String password;
+    private final Duration timeout;
+    private final ClientResources clientResources;
+    private final RedisProperties redisProperties;
+
+    private RedisClient client;
+    private StatefulRedisConnection<String, byte[]> connection;
+    private volatile CacheFrontend<String, byte[]> frontend; // 비활성화 상태거나 연결에 실패하면 null
+
+    @Autowired
+    public ClientSideCache(
+            @Value("${redis.client.client-side-caching.enabled:false}") boolean enabled,
+            @Value("${redis.client.client-side-caching.prefixes:revoked:,user:snapshot:}") String[] prefixes,
+            @Value("${redis.client.client-side-caching.maximum-size:10000}") long maximumSize,
+            @Value("${spring.redis.host}") String host,
+            @Value("${spring.redis.port}") int port,
+            @Value("${spring.redis.password}") String password,
+            @Value("${spring.redis.timeout:2s}") Duration timeout,
+            ClientResources clientResources,
+            RedisProperties redisProperties) {
+        this.enabled = enabled;
+        this.prefixes = prefixes;
+        this.maximumSize = maximumSize;
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.timeout = timeout;
+        this.clientResources = clientResources;
+        this.redisProperties = redisProperties;
+    }
+
+    // 사용하지 않는 캐시 (벤치마크, 테스트용)
+    public static ClientSideCache disabled() {
+        return new ClientSideCache(false, new String[0], 0, null, 0, null, null, null, null);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        if (!RedisConfig.isStandalone(redisProperties)) {
+            log.warn("Redis Sentinel/Cluster에서는 client-side caching을 사용하지 않습니다. "
+                    + "redis.client.client-side-caching.enabled 설정을 무시합니다.");
+            return;
+        }
+        try {
+            RedisURI redisURI = RedisURI.builder()
+                    .withHost(host)
+                    .withPort(port)
+                    .withPassword(password.toCharArray())
+                    .withTimeout(timeout)
+                    .build();
+            client = RedisClient.create(clientResources, redisURI);
+            client.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP3).build());
+            // 값은 문자열(revoked:)과 RedisValueSerializers가 만든 바이너리(user:snapshot:)가 섞여 있으므로 byte[]로 보관한다.
+            connection = client.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+
+            // 로컬 저장소는 크기 제한이 있는 Caffeine 맵을 사용한다. (invalidation을 받지 못한 키도 결국 밀려난다)
+            Map<String, byte[]> store = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .<String, byte[]>build()
+                    .asMap();
+            frontend = ClientSideCaching.enable(CacheAccessor.forMap(store), connection,
+                    TrackingArgs.Builder.enabled().bcast().prefixes(prefixes));
+            log.info("Redis client-side caching 사용. prefixes: {}", String.join(",", prefixes));
+        } catch (RuntimeException e) {
+            // Redis 6 미만이거나 RESP3를 지원하지 않으면 캐시 없이 동작한다.
+            log.warn("Redis client-side caching을 사용할 수 없습니다.", e);
+            destroy();
+        }
+    }
+
+    public boolean isEnabled() {
+        return frontend != null;
+    }
+
+    // 로컬 캐시에 있으면 바로 반환하고, 없으면 Redis에서 읽어 로컬 캐시에 넣는다. 키가 없으면 null
+    public String get(String key) {
+        byte[] value = frontend.get(key);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    // 직렬화된 객체를 그대로 돌려준다. (RedisSerializer로 읽는다)
+    public byte[] getBytes(String key) {
+        return frontend.get(key);
+    }
+
+    @Override
+    public void destroy() {
+        frontend = null;
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+        if (client != null) {
+            client.shutdown();
+            client = null;
+        }
+    }
+}
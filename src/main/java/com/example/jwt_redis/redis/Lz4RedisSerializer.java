@@ -0,0 +1,92 @@
+package com.example.jwt_redis.redis;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+// 다른 RedisSerializer가 만든 값이 threshold 바이트 이상이면 LZ4로 압축해서 저장한다.
+// 첫 바이트로 압축 여부를 구분하므로 압축하지 않은 값과 압축한 값이 섞여 있어도 읽을 수 있다.
+// - RAW : [0x00][원본]
+// - LZ4 : [0x01][원본 길이 4바이트][압축된 값]
+public class Lz4RedisSerializer<T> implements RedisSerializer<T> {
+
+    private static final byte RAW = 0;
+    private static final byte LZ4 = 1;
+    private static final int LZ4_HEADER_LENGTH = 5;
+
+    // JNI 구현을 사용할 수 없으면 순수 Java 구현을 사용한다. (둘 다 thread-safe)
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final RedisSerializer<T> delegate;
+    private final int threshold;
+
+    public Lz4RedisSerializer(RedisSerializer<T> delegate, int threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        byte[] raw = delegate.serialize(value);
+        if (raw == null) {
+            return null;
+        }
+        if (raw.length >= threshold) {
+            byte[] compressed = new byte[LZ4_HEADER_LENGTH + COMPRESSOR.maxCompressedLength(raw.length)];
+            int compressedLength = COMPRESSOR.compress(raw, 0, raw.length, compressed, LZ4_HEADER_LENGTH);
+            // 압축해도 줄어들지 않는 값(이미 압축된 데이터 등)은 그대로 저장한다.
+            if (LZ4_HEADER_LENGTH + compressedLength < raw.length + 1) {
+                compressed[0] = LZ4;
+                writeInt(compressed, 1, raw.length);
+                return Arrays.copyOf(compressed, LZ4_HEADER_LENGTH + compressedLength);
+            }
+        }
+        byte[] bytes = new byte[raw.length + 1];
+        bytes[0] = RAW;
+        System.arraycopy(raw, 0, bytes, 1, raw.length);
+        return bytes;
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        switch (bytes[0]) {
+            case RAW:
+                return delegate.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+            case LZ4:
+                int rawLength = bytes.length < LZ4_HEADER_LENGTH ? -1 : readInt(bytes, 1);
+                if (rawLength < 0) {
+                    throw new SerializationException("LZ4 헤더가 잘못되었습니다.");
+                }
+                try {
+                    byte[] raw = DECOMPRESSOR.decompress(bytes, LZ4_HEADER_LENGTH, rawLength);
+                    return delegate.deserialize(raw);
+                } catch (LZ4Exception e) {
+                    throw new SerializationException("LZ4 압축을 풀지 못했습니다.", e);
+                }
+            default:
+                // 압축 설정을 켜기 전에 저장된 값 등 알 수 없는 형식은 캐시 miss로 처리되도록 예외를 던진다.
+                throw new SerializationException("알 수 없는 압축 형식입니다: " + bytes[0]);
+        }
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+}
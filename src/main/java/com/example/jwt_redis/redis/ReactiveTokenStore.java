@@ -0,0 +1,51 @@
+package com.example.jwt_redis.redis;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+// reactive 스택에서 사용하는 토큰 상태 저장소
+// 키 구조는 RevokedTokenStore, RefreshTokenRepository와 같아서 servlet 노드와 reactive 노드가 같은 Redis를 같이 쓸 수 있다.
+// 이벤트 루프 스레드를 막지 않도록 Redis 조회는 모두 ReactiveStringRedisTemplate으로 한다.
+public class ReactiveTokenStore {
+
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final RevokedTokenStore revokedTokenStore;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration refreshTokenValidity;
+
+    public ReactiveTokenStore(
+            ReactiveStringRedisTemplate reactiveRedisTemplate,
+            RevokedTokenStore revokedTokenStore,
+            RefreshTokenRepository refreshTokenRepository,
+            @Value("${jwt.refresh-token-validity-in-seconds}") long refreshTokenValidityInSeconds) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.revokedTokenStore = revokedTokenStore;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenValidity = Duration.ofSeconds(refreshTokenValidityInSeconds);
+    }
+
+    // 로컬 Bloom filter에 없으면 Redis 조회 없이 바로 false. jti가 없는 예전 토큰은 폐기 대상이 될 수 없다.
+    public Mono<Boolean> isRevoked(String jti) {
+        if (jti == null || !revokedTokenStore.mightBeRevoked(jti)) {
+            return Mono.just(false);
+        }
+        return reactiveRedisTemplate.hasKey(RevokedTokenStore.KEY_PREFIX + jti);
+    }
+
+    // 로그인 시 새로운 family로 refresh token을 발급한다. (RefreshTokenRepository.create와 같은 키 구조)
+    public Mono<String> createRefreshToken(String username) {
+        String family = UUID.randomUUID().toString();
+        String secret = refreshTokenRepository.generateToken();
+        return reactiveRedisTemplate.opsForValue()
+                .set(RefreshTokenRepository.tokenKey(family), secret + ":" + username, refreshTokenValidity)
+                .thenReturn(RefreshTokenRepository.token(family, secret));
+    }
+}
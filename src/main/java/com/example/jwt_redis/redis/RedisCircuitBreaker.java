@@ -0,0 +1,161 @@
+package com.example.jwt_redis.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+// Redis 호출을 감싸는 circuit breaker
+// 연결 실패나 타임아웃이 failure-threshold번 연속으로 나면 OPEN이 되어 open-duration-ms 동안 Redis를 호출하지 않고 바로 fallback을 실행한다.
+// (Redis가 내려가 있을 때 요청마다 spring.redis.timeout만큼 기다리지 않게 한다)
+// 시간이 지나면 HALF_OPEN이 되어 호출 하나만 Redis로 보내보고, 성공하면 CLOSED, 실패하면 다시 OPEN이 된다.
+// 명령어 오류(WRONGTYPE 등)처럼 Redis가 응답한 예외는 장애로 세지 않고 그대로 던진다.
+// Redis 장애 중의 동작은 호출하는 쪽에서 정한다.
+// - fail-open  : 값 없이도 처리할 수 있는 작업 (rate limiter, 세션 등록, /api/redisTest)
+// - fail-closed: 값 없이는 처리할 수 없는 작업 (refresh token 저장/교체, Bloom filter에 걸린 토큰의 폐기 여부 확인)
+public class RedisCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMillis;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean(); // HALF_OPEN에서 Redis로 보낸 호출이 있는지
+    private volatile long openedAt;
+
+    private final LongAdder openTransitions = new LongAdder();
+    private final LongAdder halfOpenTransitions = new LongAdder();
+    private final LongAdder closedTransitions = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder(); // OPEN이라서 Redis를 호출하지 않은 횟수
+
+    public RedisCircuitBreaker(
+            @Value("${redis.resilience.failure-threshold:5}") int failureThreshold,
+            @Value("${redis.resilience.open-duration-ms:5000}") long openDurationMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    // call을 Redis로 보낼 수 있으면 실행하고, OPEN이거나 연결 장애로 실패하면 fallback 결과를 반환한다.
+    public <T> T execute(Supplier<T> call, Supplier<T> fallback) {
+        if (!tryAcquire()) {
+            rejectedCalls.increment();
+            return fallback.get();
+        }
+        T result;
+        try {
+            result = call.get();
+        } catch (RedisConnectionFailureException | QueryTimeoutException e) {
+            onFailure(e);
+            return fallback.get();
+        } catch (RuntimeException e) {
+            onSuccess(); // Redis가 응답은 했으므로 연결은 정상이다.
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    // fallback이 없는 호출(fail-closed). OPEN이거나 연결 장애면 RedisUnavailableException을 던진다.
+    // spring.redis.timeout만큼 기다리지 않고 바로 503으로 응답하게 한다. (ApiExceptionHandler)
+    public <T> T execute(Supplier<T> call) {
+        return execute(call, () -> {
+            throw new RedisUnavailableException("Redis를 사용할 수 없습니다. 잠시 후 다시 시도해 주세요.");
+        });
+    }
+
+    // 쓰기 반영처럼 Redis가 정상일 때만 해야 하는 작업인지 판단할 때 사용한다.
+    public boolean isClosed() {
+        return state.get() == State.CLOSED;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public long getOpenTransitions() {
+        return openTransitions.sum();
+    }
+
+    public long getHalfOpenTransitions() {
+        return halfOpenTransitions.sum();
+    }
+
+    public long getClosedTransitions() {
+        return closedTransitions.sum();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    private boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                return false;
+            }
+            transition(State.OPEN, State.HALF_OPEN);
+        }
+        // HALF_OPEN에서는 호출 하나만 Redis로 보내고, 결과가 나올 때까지 나머지는 fallback으로 처리한다.
+        return trialInFlight.compareAndSet(false, true);
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.get() == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.CLOSED);
+        }
+        trialInFlight.set(false);
+    }
+
+    private void onFailure(RuntimeException e) {
+        if (state.get() == State.HALF_OPEN) {
+            open(State.HALF_OPEN, e);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED, e);
+        }
+        trialInFlight.set(false);
+    }
+
+    private void open(State from, RuntimeException e) {
+        openedAt = System.currentTimeMillis();
+        if (transition(from, State.OPEN)) {
+            consecutiveFailures.set(0);
+            log.warn("Redis 호출이 실패해서 {}ms 동안 Redis를 호출하지 않습니다. ({} -> OPEN)", openDurationMillis, from, e);
+        }
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false; // 다른 스레드가 먼저 바꿨다.
+        }
+        switch (to) {
+            case OPEN:
+                openTransitions.increment();
+                break;
+            case HALF_OPEN:
+                halfOpenTransitions.increment();
+                break;
+            default:
+                closedTransitions.increment();
+                log.info("Redis 연결이 복구되었습니다. ({} -> CLOSED)", from);
+        }
+        return true;
+    }
+}
@@ -1,14 +1,37 @@
 package com.example.jwt_redis.redis;
 
+import com.example.jwt_redis.dto.UserProfile;
+import com.example.jwt_redis.dto.UserSnapshot;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.resource.ClientResources;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+import java.util.HashSet;
+
 @Configuration
 public class RedisConfig {
     @Value("${spring.redis.host}")
@@ -20,22 +43,169 @@ public class RedisConfig {
     @Value("${spring.redis.password}")
     private String redisPassword;
 
+    // true면 spring.redis.lettuce.pool 설정으로 커넥션 풀을 사용하고, false면 하나의 네이티브 커넥션을 공유한다.
+    @Value("${redis.client.pooled:false}")
+    private boolean pooled;
+
+    // 0보다 크면 파이프라인에서 명령어를 이 개수만큼 모았다가 한 번에 flush 한다. (0이면 명령어마다 flush)
+    @Value("${redis.client.pipeline-flush-size:0}")
+    private int pipelineFlushSize;
+
+    // Sentinel/Cluster에서 읽기 명령어를 보낼 노드 (upstream, upstreamPreferred, replica, replicaPreferred, nearest, any)
+    @Value("${redis.client.read-from:upstream}")
+    private String readFrom;
+
+    // Spring Boot가 만들어주는 ClientResources에는 Actuator의 Lettuce 명령어 지연시간 측정(lettuce.command.*)이 설정되어 있다.
+    // 직접 만드는 ConnectionFactory에도 같은 ClientResources를 사용해야 Redis 명령어 지연시간이 측정된다.
+    private final ClientResources clientResources;
+    // timeout, pool, sentinel, cluster 설정은 spring.redis.* 를 그대로 사용한다.
+    private final RedisProperties redisProperties;
+
+    public RedisConfig(ClientResources clientResources, RedisProperties redisProperties) {
+        this.clientResources = clientResources;
+        this.redisProperties = redisProperties;
+    }
+
+    // LettuceConnectionFactory 타입으로 등록해야 reactive 프로필의 ReactiveStringRedisTemplate도 Spring Boot가 같은 커넥션으로 만들어준다.
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
+    public LettuceConnectionFactory redisConnectionFactory() {
+        LettuceConnectionFactory lettuceConnectionFactory = new LettuceConnectionFactory(redisConfiguration(), clientConfiguration());
+        // 풀을 사용하지 않으면 모든 스레드가 하나의 커넥션을 공유한다. (blocking/transaction 명령어는 별도 커넥션 사용)
+        lettuceConnectionFactory.setShareNativeConnection(!pooled);
+        if (pipelineFlushSize > 0) {
+            lettuceConnectionFactory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.buffered(pipelineFlushSize));
+        }
+        return lettuceConnectionFactory;
+    }
+
+    // spring.redis.cluster.nodes가 있으면 Cluster, spring.redis.sentinel.master가 있으면 Sentinel, 없으면 단일 서버에 접속한다.
+    private RedisConfiguration redisConfiguration() {
+        if (isCluster(redisProperties)) {
+            RedisClusterConfiguration clusterConfiguration = new RedisClusterConfiguration(redisProperties.getCluster().getNodes());
+            if (redisProperties.getCluster().getMaxRedirects() != null) {
+                clusterConfiguration.setMaxRedirects(redisProperties.getCluster().getMaxRedirects());
+            }
+            clusterConfiguration.setPassword(RedisPassword.of(redisPassword));
+            return clusterConfiguration;
+        }
+        if (isSentinel(redisProperties)) {
+            RedisSentinelConfiguration sentinelConfiguration = new RedisSentinelConfiguration(
+                    redisProperties.getSentinel().getMaster(), new HashSet<>(redisProperties.getSentinel().getNodes()));
+            sentinelConfiguration.setPassword(RedisPassword.of(redisPassword));
+            if (redisProperties.getSentinel().getPassword() != null) {
+                sentinelConfiguration.setSentinelPassword(RedisPassword.of(redisProperties.getSentinel().getPassword()));
+            }
+            return sentinelConfiguration;
+        }
         RedisStandaloneConfiguration redisStandaloneConfiguration = new RedisStandaloneConfiguration();
         redisStandaloneConfiguration.setHostName(redisHost);
         redisStandaloneConfiguration.setPort(Integer.parseInt(redisPort));
         redisStandaloneConfiguration.setPassword(redisPassword);
-        LettuceConnectionFactory lettuceConnectionFactory = new LettuceConnectionFactory(redisStandaloneConfiguration);
-        return lettuceConnectionFactory;
+        return redisStandaloneConfiguration;
+    }
+
+    private LettuceClientConfiguration clientConfiguration() {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder;
+        if (pooled) {
+            RedisProperties.Pool pool = redisProperties.getLettuce().getPool();
+            GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+            if (pool != null) {
+                poolConfig.setMaxTotal(pool.getMaxActive());
+                poolConfig.setMaxIdle(pool.getMaxIdle());
+                poolConfig.setMinIdle(pool.getMinIdle());
+                if (pool.getMaxWait() != null) {
+                    poolConfig.setMaxWait(pool.getMaxWait());
+                }
+            }
+            builder = LettucePoolingClientConfiguration.builder().poolConfig(poolConfig);
+        } else {
+            builder = LettuceClientConfiguration.builder();
+        }
+
+        // 명령어 타임아웃 (spring.redis.timeout), 응답이 없는 Redis 때문에 요청 스레드가 계속 묶여있지 않도록 한다.
+        Duration timeout = redisProperties.getTimeout() != null ? redisProperties.getTimeout() : Duration.ofSeconds(2);
+        builder.commandTimeout(timeout);
+
+        if (isCluster(redisProperties)) {
+            // 노드 장애나 슬롯 이동이 생기면 토폴로지를 다시 읽는다.
+            builder.clientOptions(ClusterClientOptions.builder()
+                    .timeoutOptions(TimeoutOptions.enabled(timeout))
+                    .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                            .enableAllAdaptiveRefreshTriggers()
+                            .enablePeriodicRefresh(Duration.ofSeconds(30))
+                            .build())
+                    .build());
+        } else {
+            builder.clientOptions(ClientOptions.builder()
+                    .timeoutOptions(TimeoutOptions.enabled(timeout))
+                    .build());
+        }
+
+        // 단일 서버에는 replica가 없으므로 읽기 노드는 Sentinel/Cluster에서만 지정한다.
+        if (!isStandalone(redisProperties)) {
+            builder.readFrom(ReadFrom.valueOf(readFrom));
+        }
+
+        return builder
+                .clientResources(clientResources)
+                .build();
     }
 
+    // spring.redis.cluster.nodes, spring.redis.sentinel.master가 모두 없으면 단일 서버 (ClientSideCache도 같은 기준을 사용한다)
+    static boolean isStandalone(RedisProperties redisProperties) {
+        return !isCluster(redisProperties) && !isSentinel(redisProperties);
+    }
+
+    private static boolean isCluster(RedisProperties redisProperties) {
+        return redisProperties.getCluster() != null && redisProperties.getCluster().getNodes() != null;
+    }
+
+    private static boolean isSentinel(RedisProperties redisProperties) {
+        return redisProperties.getSentinel() != null && redisProperties.getSentinel().getMaster() != null;
+    }
+
+    // 문자열 값은 StringRedisTemplate을, 객체는 아래의 타입별 RedisTemplate을 사용한다.
+    // 값은 redis.serializer.* 설정의 형식으로 저장되고, 타입 정보가 없으므로 Map/List 등 JSON 기본 타입으로 읽힌다.
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       RedisValueSerializers redisValueSerializers) {
+        return typedTemplate(redisConnectionFactory, redisValueSerializers.forType(Object.class));
+    }
+
+    // 유저 스냅샷 캐시 (user:snapshot:{username})
     @Bean
-    public RedisTemplate<String, Object> redisTemplate() {
-        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
-        redisTemplate.setConnectionFactory(redisConnectionFactory());
+    public RedisTemplate<String, UserSnapshot> userSnapshotRedisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                                         RedisValueSerializers redisValueSerializers) {
+        return typedTemplate(redisConnectionFactory, redisValueSerializers.forType(UserSnapshot.class));
+    }
+
+    // 유저 프로필 캐시 (user:profile:{username})
+    @Bean
+    public RedisTemplate<String, UserProfile> userProfileRedisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                                       RedisValueSerializers redisValueSerializers) {
+        return typedTemplate(redisConnectionFactory, redisValueSerializers.forType(UserProfile.class));
+    }
+
+    private static <T> RedisTemplate<String, T> typedTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                              RedisSerializer<T> valueSerializer) {
+        RedisTemplate<String, T> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(redisConnectionFactory);
         redisTemplate.setKeySerializer(new StringRedisSerializer());
-        redisTemplate.setValueSerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(valueSerializer);
         return redisTemplate;
     }
+
+    // 토큰 폐기, 유저 캐시 무효화 이벤트를 다른 노드로부터 전달받기 위한 pub/sub 리스너 컨테이너
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       RevokedTokenStore revokedTokenStore,
+                                                                       UserSnapshotCache userSnapshotCache,
+                                                                       UserProfileCache userProfileCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(revokedTokenStore, new ChannelTopic(RevokedTokenStore.CHANNEL));
+        container.addMessageListener(userSnapshotCache, new ChannelTopic(UserSnapshotCache.CHANNEL));
+        container.addMessageListener(userProfileCache, new ChannelTopic(UserSnapshotCache.CHANNEL));
+        return container;
+    }
 }
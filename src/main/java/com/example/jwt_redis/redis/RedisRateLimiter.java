@@ -0,0 +1,65 @@
+package com.example.jwt_redis.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Component
+// 여러 노드가 같이 사용하는 token bucket 기반의 rate limiter
+// bucket 상태는 Redis hash에 있고, 여러 bucket을 확인하고 토큰을 꺼내는 작업을 Lua 스크립트 한 번으로 처리한다.
+// 키에는 같은 hash tag({auth})를 붙여서 Cluster에서도 한 슬롯에서 스크립트가 실행되게 한다.
+public class RedisRateLimiter {
+
+    static final String KEY_PREFIX = "rate:{auth}:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisScript<Long> tokenBucketScript;
+
+    public RedisRateLimiter(StringRedisTemplate redisTemplate, RedisCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.tokenBucketScript = RedisScript.of(new ClassPathResource("redis/token-bucket.lua"), Long.class);
+    }
+
+    // 모든 bucket에서 토큰을 하나씩 꺼낸다. 허용되면 0, 거절되면 다시 시도할 수 있을 때까지 남은 시간(ms)
+    // Redis에 장애가 있으면 로그인 자체를 막지 않도록 허용한다. (로컬 pre-limiter는 계속 동작한다)
+    // breaker가 OPEN이면 spring.redis.timeout만큼 기다리지 않고 바로 허용한다. (fail-open)
+    public long acquire(List<Bucket> buckets) {
+        List<String> keys = new ArrayList<>(buckets.size());
+        Object[] args = new Object[buckets.size() * 2 + 1];
+        args[0] = String.valueOf(System.currentTimeMillis());
+        for (int i = 0; i < buckets.size(); i++) {
+            Bucket bucket = buckets.get(i);
+            keys.add(KEY_PREFIX + bucket.name);
+            args[2 * i + 1] = String.valueOf(bucket.capacity);
+            args[2 * i + 2] = String.valueOf(bucket.refillPerMillis);
+        }
+        try {
+            Long waitMillis = circuitBreaker.execute(() -> redisTemplate.execute(tokenBucketScript, keys, args), () -> 0L);
+            return waitMillis == null ? 0 : waitMillis;
+        } catch (RuntimeException e) {
+            log.warn("Redis rate limiter를 사용할 수 없어서 요청을 허용합니다.", e);
+            return 0;
+        }
+    }
+
+    // bucket 하나의 이름과 크기, 초당 채워지는 토큰 수
+    public static final class Bucket {
+        private final String name;
+        private final long capacity;
+        private final double refillPerMillis;
+
+        public Bucket(String name, long capacity, double refillPerSecond) {
+            this.name = name;
+            this.capacity = capacity;
+            this.refillPerMillis = refillPerSecond / 1000;
+        }
+    }
+}
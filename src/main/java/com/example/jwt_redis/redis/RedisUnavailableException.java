@@ -0,0 +1,9 @@
+package com.example.jwt_redis.redis;
+
+// Redis 없이는 처리할 수 없는 작업(refresh token 저장 등)을 RedisCircuitBreaker가 거절할 때 발생하는 예외
+public class RedisUnavailableException extends RuntimeException {
+
+    public RedisUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.jwt_redis.redis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+@Component
+// Redis에 객체를 저장할 때 사용할 value serializer를 만든다. (RedisConfig의 타입별 RedisTemplate)
+// - json  : Jackson JSON (redis-cli로 값을 바로 읽을 수 있다)
+// - smile : Jackson Smile, JSON과 같은 모델의 바이너리 형식. 필드 이름을 재사용하고 숫자를 바이너리로 넣어서 더 작고 빠르다.
+// 두 형식 모두 DTO의 Jackson 어노테이션(@JsonCreator 등)을 그대로 사용한다.
+// compression-threshold가 0보다 크면 직렬화된 값이 그 크기 이상일 때 LZ4로 압축한다. (Lz4RedisSerializer)
+// 형식이나 압축 설정을 바꾸면 이전 형식으로 저장된 값은 읽지 못하고 캐시 miss로 처리된 뒤 새 형식으로 다시 저장된다.
+public class RedisValueSerializers {
+
+    public enum Format {
+        JSON,
+        SMILE
+    }
+
+    private final Format format;
+    private final int compressionThreshold;
+    private final ObjectMapper objectMapper;
+
+    public RedisValueSerializers(
+            @Value("${redis.serializer.format:json}") String format,
+            @Value("${redis.serializer.compression-threshold:0}") int compressionThreshold,
+            ObjectMapper objectMapper) {
+        this.format = Format.valueOf(format.toUpperCase(Locale.ROOT));
+        this.compressionThreshold = compressionThreshold;
+        this.objectMapper = this.format == Format.SMILE ? Jackson2ObjectMapperBuilder.smile().build() : objectMapper;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public <T> RedisSerializer<T> forType(Class<T> type) {
+        Jackson2JsonRedisSerializer<T> serializer = new Jackson2JsonRedisSerializer<>(type);
+        serializer.setObjectMapper(objectMapper); // Smile이면 Smile ObjectMapper로 바이너리를 읽고 쓴다.
+        return compressionThreshold > 0 ? new Lz4RedisSerializer<>(serializer, compressionThreshold) : serializer;
+    }
+}
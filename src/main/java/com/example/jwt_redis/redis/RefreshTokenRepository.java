@@ -0,0 +1,171 @@
+package com.example.jwt_redis.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Repository
+// refresh token을 Redis에 저장하고 교체(rotation)하는 저장소
+// 토큰은 TTL을 가지고 저장되기 때문에 만료된 토큰은 별도의 정리 작업 없이 Redis가 직접 제거한다.
+// refresh token은 "{family}.{secret}" 형태이고 family의 키는 모두 refresh:{family}: 로 시작한다.
+// hash tag({family})가 같아서 Redis Cluster에서도 한 family의 키는 같은 슬롯에 있으므로 Lua 스크립트 하나로 교체할 수 있다.
+// Redis 없이는 발급, 교체, 폐기를 할 수 없으므로 RedisCircuitBreaker가 OPEN이면 기다리지 않고 RedisUnavailableException(503)을 던진다.
+public class RefreshTokenRepository {
+
+    static final String KEY_PREFIX = "refresh:";
+    private static final char TOKEN_SEPARATOR = '.';
+
+    private static final String REUSED = "REUSED";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final long refreshTokenValidityInSeconds;
+    private final RedisScript<String> rotateScript;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenRepository(
+            StringRedisTemplate redisTemplate,
+            RedisCircuitBreaker circuitBreaker,
+            @Value("${jwt.refresh-token-validity-in-seconds}") long refreshTokenValidityInSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.refreshTokenValidityInSeconds = refreshTokenValidityInSeconds;
+        this.rotateScript = RedisScript.of(new ClassPathResource("redis/rotate-refresh-token.lua"), String.class);
+    }
+
+    // 로그인 시 새로운 family로 refresh token을 발급한다.
+    public RefreshToken create(String username) {
+        String family = UUID.randomUUID().toString();
+        String secret = generateToken();
+        circuitBreaker.execute(() -> {
+            redisTemplate.opsForValue().set(tokenKey(family), secret + ":" + username,
+                    refreshTokenValidityInSeconds, TimeUnit.SECONDS);
+            return null;
+        });
+        return new RefreshToken(token(family, secret), family);
+    }
+
+    // 기존 refresh token을 지우고 새 토큰을 저장하는 작업을 Lua 스크립트 한 번으로 처리한다.
+    // TTL은 교체할 때마다 다시 설정되므로(sliding) 계속 사용하는 동안에는 만료되지 않는다.
+    public Rotation rotate(String refreshToken) {
+        int separator = refreshToken.indexOf(TOKEN_SEPARATOR);
+        if (separator <= 0 || separator == refreshToken.length() - 1) {
+            return Rotation.INVALID; // family가 없는 토큰은 Redis에 물어볼 필요도 없다.
+        }
+        String family = refreshToken.substring(0, separator);
+        String secret = refreshToken.substring(separator + 1);
+        String newSecret = generateToken();
+        String username = circuitBreaker.execute(() -> redisTemplate.execute(rotateScript,
+                Arrays.asList(tokenKey(family), usedKey(family)),
+                secret, newSecret, String.valueOf(refreshTokenValidityInSeconds),
+                String.valueOf(System.currentTimeMillis())));
+
+        if (username == null) {
+            return Rotation.INVALID;
+        }
+        if (REUSED.equals(username)) {
+            log.warn("이미 사용된 refresh token이 재사용되었습니다. 해당 토큰 family를 폐기합니다.");
+            return Rotation.REUSED_TOKEN;
+        }
+        return new Rotation(Rotation.Status.ROTATED, username, new RefreshToken(token(family, newSecret), family));
+    }
+
+    // family의 현재 refresh token을 폐기해서 더 이상 access token을 재발급받지 못하게 한다.
+    // 현재 토큰은 family 키 하나에만 있으므로 DEL 한 번으로 교체(rotate)와 겹쳐도 새 토큰이 남지 않는다.
+    // 사용 흔적 키는 남겨둔다. 이전 토큰이 다시 들어오면 재사용으로 처리되고, 현재 토큰은 없는 토큰이 된다.
+    public void revokeFamily(String family) {
+        circuitBreaker.execute(() -> redisTemplate.delete(tokenKey(family)));
+    }
+
+    // 세션 만료 시각 계산에 사용한다. (SessionRegistry)
+    public long getValidityInMillis() {
+        return TimeUnit.SECONDS.toMillis(refreshTokenValidityInSeconds);
+    }
+
+    static String tokenKey(String family) {
+        return KEY_PREFIX + "{" + family + "}:token";
+    }
+
+    static String usedKey(String family) {
+        return KEY_PREFIX + "{" + family + "}:used";
+    }
+
+    static String token(String family, String secret) {
+        return family + TOKEN_SEPARATOR + secret;
+    }
+
+    String generateToken() {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // 발급한 refresh token과 token이 속한 family (로그인 한 번에 family 하나)
+    public static final class RefreshToken {
+
+        private final String token;
+        private final String family;
+
+        RefreshToken(String token, String family) {
+            this.token = token;
+            this.family = family;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getFamily() {
+            return family;
+        }
+    }
+
+    // refresh token 교체 결과
+    public static final class Rotation {
+
+        public enum Status {
+            ROTATED,  // 정상적으로 교체됨
+            INVALID,  // 존재하지 않거나 만료된 토큰
+            REUSED    // 이미 교체된 토큰이 다시 사용됨 (family 전체 폐기)
+        }
+
+        static final Rotation INVALID = new Rotation(Status.INVALID, null, null);
+        static final Rotation REUSED_TOKEN = new Rotation(Status.REUSED, null, null);
+
+        private final Status status;
+        private final String username;
+        private final RefreshToken refreshToken;
+
+        Rotation(Status status, String username, RefreshToken refreshToken) {
+            this.status = status;
+            this.username = username;
+            this.refreshToken = refreshToken;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken == null ? null : refreshToken.getToken();
+        }
+
+        public String getFamily() {
+            return refreshToken == null ? null : refreshToken.getFamily();
+        }
+    }
+}
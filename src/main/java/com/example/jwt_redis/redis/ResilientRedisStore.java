@@ -0,0 +1,221 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.util.StripedTtlStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+// Redis가 내려가도 문자열 값 읽기/쓰기가 실패하지 않도록 RedisCircuitBreaker와 노드 메모리 저장소(StripedTtlStore)를 묶은 저장소
+// Redis가 정상일 때 읽고 쓴 값은 fallback.ttl-seconds 동안 로컬에도 복사해두고, breaker가 OPEN이면 로컬 값으로 응답한다.
+// OPEN일 때의 쓰기와 삭제는 로컬에 dirty로 기록해두고, breaker가 CLOSED로 돌아오면 writeBack에서 파이프라인으로 묶어서 Redis에 반영한다.
+// 로컬 저장소는 노드마다 따로 있으므로 장애 중에는 노드끼리 값이 다를 수 있고, 같은 키를 여러 노드에서 썼다면 나중에 반영한 노드의 값이 남는다.
+// 로컬 저장소가 가득 차서 반영 전에 버려진 쓰기는 redis.fallback.evictions{dirty=true}로 알 수 있다.
+public class ResilientRedisStore {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final StripedTtlStore fallback;
+    private final long fallbackTtlMillis;
+    private final int writeBackBatchSize;
+
+    private final LongAdder fallbackHits = new LongAdder();
+    private final LongAdder fallbackMisses = new LongAdder();
+    private final LongAdder writtenBack = new LongAdder();
+    private final LongAdder writeBackFailures = new LongAdder();
+
+    public ResilientRedisStore(
+            StringRedisTemplate redisTemplate,
+            RedisCircuitBreaker circuitBreaker,
+            @Value("${redis.resilience.fallback.stripes:16}") int stripes,
+            @Value("${redis.resilience.fallback.maximum-entries:10000}") int maximumEntries,
+            @Value("${redis.resilience.fallback.maximum-bytes:16777216}") long maximumBytes,
+            @Value("${redis.resilience.fallback.ttl-seconds:60}") long fallbackTtlSeconds,
+            @Value("${redis.resilience.write-back.batch-size:100}") int writeBackBatchSize) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.fallback = new StripedTtlStore(stripes, maximumEntries, maximumBytes);
+        this.fallbackTtlMillis = TimeUnit.SECONDS.toMillis(fallbackTtlSeconds);
+        this.writeBackBatchSize = writeBackBatchSize;
+    }
+
+    // 아직 Redis에 반영하지 못한 쓰기가 있으면 그 값이 최신이므로 Redis보다 먼저 본다.
+    // writeBack이 꺼내서 반영하는 중인 쓰기도 마찬가지다. Redis에서 읽은 값으로 그 항목을 덮어쓰거나 지우지 않는다.
+    public String get(String key) {
+        long now = System.currentTimeMillis();
+        StripedTtlStore.Entry pending = fallback.find(key, now);
+        if (pending != null && pending.isPending()) {
+            fallbackHits.increment();
+            return pending.getValue();
+        }
+        return circuitBreaker.execute(() -> {
+            String value = redisTemplate.opsForValue().get(key);
+            if (value != null) {
+                fallback.putIfNotPending(key, value, now + fallbackTtlMillis, now);
+            } else {
+                fallback.removeIfNotPending(key); // 다른 노드가 지운 키를 장애 중에 되살리지 않도록
+            }
+            return value;
+        }, () -> readFallback(key));
+    }
+
+    // ttlMillis가 0이면 만료되지 않는다.
+    public void set(String key, String value, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        circuitBreaker.execute(() -> {
+            if (ttlMillis > 0) {
+                redisTemplate.opsForValue().set(key, value, ttlMillis, TimeUnit.MILLISECONDS);
+            } else {
+                redisTemplate.opsForValue().set(key, value);
+            }
+            fallback.put(key, value, now + localTtlMillis(ttlMillis), false, now);
+            return null;
+        }, () -> {
+            fallback.put(key, value, ttlMillis > 0 ? now + ttlMillis : 0, true, now);
+            return null;
+        });
+    }
+
+    public void multiSet(Map<String, String> entries) {
+        long now = System.currentTimeMillis();
+        circuitBreaker.execute(() -> {
+            redisTemplate.opsForValue().multiSet(entries);
+            entries.forEach((key, value) -> fallback.put(key, value, now + fallbackTtlMillis, false, now));
+            return null;
+        }, () -> {
+            entries.forEach((key, value) -> fallback.put(key, value, 0, true, now));
+            return null;
+        });
+    }
+
+    public void delete(String key) {
+        long now = System.currentTimeMillis();
+        circuitBreaker.execute(() -> {
+            redisTemplate.delete(key);
+            fallback.remove(key);
+            return null;
+        }, () -> {
+            fallback.put(key, null, 0, true, now); // Redis에도 지워야 하므로 삭제 표시를 남긴다.
+            return null;
+        });
+    }
+
+    // breaker가 CLOSED일 때 장애 중에 쌓인 쓰기를 batch-size개씩 파이프라인으로 Redis에 반영한다.
+    // 반영하지 못한 batch는 다시 dirty로 표시해서 다음 주기에 재시도한다.
+    @Scheduled(fixedDelayString = "${redis.resilience.write-back.interval-ms:1000}")
+    public void writeBack() {
+        // breaker는 호출이 있어야 HALF_OPEN으로 넘어가므로, 요청이 없으면 쌓인 쓰기가 반영되지 못하고 로컬에서 만료된다.
+        // 반영할 쓰기가 있으면 PING을 HALF_OPEN의 시험 호출로 직접 보내고, 성공해서 CLOSED가 되면 이어서 반영한다.
+        if (!circuitBreaker.isClosed() && (fallback.dirtyCount() == 0 || !ping())) {
+            return;
+        }
+        while (circuitBreaker.isClosed()) {
+            long now = System.currentTimeMillis();
+            List<StripedTtlStore.Entry> batch = fallback.drainDirty(writeBackBatchSize, now);
+            if (batch.isEmpty()) {
+                return;
+            }
+            boolean written;
+            try {
+                written = circuitBreaker.execute(() -> {
+                    redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                        StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                        for (StripedTtlStore.Entry entry : batch) {
+                            write(stringConnection, entry, now);
+                        }
+                        return null;
+                    });
+                    return true;
+                }, () -> false);
+            } catch (DataAccessException e) {
+                log.warn("장애 중에 기록한 쓰기를 Redis에 반영하지 못했습니다. keys: {}", batch.size(), e);
+                written = false;
+            }
+            if (!written) {
+                fallback.markDirty(batch);
+                writeBackFailures.add(batch.size());
+                return;
+            }
+            fallback.removeAll(batch);
+            writtenBack.add(batch.size());
+            log.debug("장애 중에 기록한 쓰기 {}개를 Redis에 반영했습니다.", batch.size());
+        }
+    }
+
+    public long getFallbackHits() {
+        return fallbackHits.sum();
+    }
+
+    public long getFallbackMisses() {
+        return fallbackMisses.sum();
+    }
+
+    public long getWrittenBack() {
+        return writtenBack.sum();
+    }
+
+    public long getWriteBackFailures() {
+        return writeBackFailures.sum();
+    }
+
+    public long getFallbackSize() {
+        return fallback.size();
+    }
+
+    public long getPendingWrites() {
+        return fallback.dirtyCount();
+    }
+
+    public long getFallbackEvictions() {
+        return fallback.getEvictions();
+    }
+
+    public long getDroppedWrites() {
+        return fallback.getDirtyEvictions();
+    }
+
+    // open-duration-ms가 지나지 않았거나 Redis가 아직 응답하지 않으면 false
+    private boolean ping() {
+        return circuitBreaker.execute(() -> {
+            redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+            return true;
+        }, () -> false);
+    }
+
+    private String readFallback(String key) {
+        StripedTtlStore.Entry entry = fallback.find(key, System.currentTimeMillis());
+        if (entry == null) {
+            fallbackMisses.increment();
+            return null;
+        }
+        fallbackHits.increment();
+        return entry.getValue();
+    }
+
+    private long localTtlMillis(long ttlMillis) {
+        return ttlMillis > 0 ? Math.min(ttlMillis, fallbackTtlMillis) : fallbackTtlMillis;
+    }
+
+    private static void write(StringRedisConnection connection, StripedTtlStore.Entry entry, long now) {
+        if (entry.getValue() == null) {
+            connection.del(entry.getKey());
+        } else if (entry.getExpireAtMillis() > 0) {
+            // 장애 중에 흐른 시간만큼 줄어든 남은 TTL로 쓴다. (drainDirty가 만료된 항목은 이미 걸렀다)
+            connection.pSetEx(entry.getKey(), entry.getExpireAtMillis() - now, entry.getValue());
+        } else {
+            connection.set(entry.getKey(), entry.getValue());
+        }
+    }
+}
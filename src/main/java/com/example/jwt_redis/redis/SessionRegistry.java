@@ -0,0 +1,187 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.dto.SessionDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Component
+// 유저별 로그인 세션을 관리하는 저장소
+// 세션 하나는 로그인 한 번으로 만들어진 refresh token family이고, 그 family로 마지막에 발급한 access token을 같이 기록한다.
+// Redis sorted set(session:{username})에 "{jti}:{access token 만료 시각}:{family}"를 member로, 세션 만료 시각(ms)을 score로 저장한다.
+// 세션 만료 시각은 refresh token 만료 시각이라서, access token이 만료되어도 재발급받을 수 있는 동안은 세션 목록에 남는다.
+// 로그인과 재발급(reissue)할 때 등록하고, session.max-concurrent를 넘으면 가장 오래된 세션을 같은 Lua 스크립트에서 제거한다.
+// 재발급할 때는 같은 family의 이전 세션을 새 access token으로 교체하고 이전 access token은 폐기한다.
+// 제거되거나 관리자가 종료한 세션은 access token을 RevokedTokenStore로 폐기하고 refresh token family도 폐기해서
+// 모든 노드에서 바로 거절되고 재발급도 받을 수 없게 한다.
+// 만료된 세션은 별도의 정리 작업 없이 다음 등록 때 지우고, 조회할 때는 만료 시각으로 걸러낸다.
+// Redis 장애 중(RedisCircuitBreaker)에는 세션을 등록하지 않고 로그인은 그대로 진행한다. (fail-open)
+// 그 동안 발급한 access token은 세션 목록에 없어서 최대 세션 수에 세지 않고, refresh token family로 다음 재발급 때 다시 등록된다.
+public class SessionRegistry {
+
+    static final String KEY_PREFIX = "session:";
+    private static final char SEPARATOR = ':';
+
+    private final StringRedisTemplate redisTemplate;
+    private final RevokedTokenStore revokedTokenStore;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final int maxConcurrentSessions;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> registerScript;
+
+    public SessionRegistry(
+            StringRedisTemplate redisTemplate,
+            RevokedTokenStore revokedTokenStore,
+            RefreshTokenRepository refreshTokenRepository,
+            RedisCircuitBreaker circuitBreaker,
+            @Value("${session.max-concurrent:0}") int maxConcurrentSessions) {
+        this.redisTemplate = redisTemplate;
+        this.revokedTokenStore = revokedTokenStore;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.circuitBreaker = circuitBreaker;
+        this.maxConcurrentSessions = maxConcurrentSessions;
+        this.registerScript = RedisScript.of(new ClassPathResource("redis/register-session.lua"), List.class);
+    }
+
+    // 로그인하거나 재발급받은 access token을 refresh token family의 세션으로 등록한다.
+    // 같은 family의 이전 access token과 최대 세션 수를 넘어서 제거된 세션은 폐기한다.
+    // 폐기 키(revoked:{jti}, refresh:{family}:token)는 다른 슬롯일 수 있으므로(Redis Cluster) 스크립트 밖에서 처리한다.
+    public void register(String username, String jti, Date expiration, String family) {
+        long now = System.currentTimeMillis();
+        String member = jti + SEPARATOR + expiration.getTime() + SEPARATOR + family;
+        List<?> removed = circuitBreaker.execute(() -> redisTemplate.execute(registerScript,
+                Collections.singletonList(KEY_PREFIX + username),
+                member, String.valueOf(now + refreshTokenRepository.getValidityInMillis()),
+                String.valueOf(now), String.valueOf(maxConcurrentSessions), SEPARATOR + family), () -> {
+            log.warn("Redis를 사용할 수 없어서 세션을 등록하지 않았습니다. username: {}", username);
+            return null;
+        });
+        if (removed == null) {
+            return;
+        }
+        for (int i = 0; i + 1 < removed.size(); i += 2) {
+            Session previous = Session.parse(removed.get(i).toString(), toMillis(removed.get(i + 1)));
+            if (family.equals(previous.family)) {
+                revokedTokenStore.revoke(previous.jti, new Date(previous.accessExpiresAt)); // 재발급으로 교체된 토큰
+            } else {
+                end(previous);
+                log.debug("최대 동시 세션 수를 넘어서 가장 오래된 세션을 종료했습니다. username: {}, jti: {}", username, previous.jti);
+            }
+        }
+    }
+
+    // 만료되지 않은 세션을 오래 사용하지 않은 순서로 반환한다.
+    public List<SessionDto> findSessions(String username) {
+        List<SessionDto> result = new ArrayList<>();
+        for (Session session : findActive(username)) {
+            result.add(new SessionDto(session.jti, new Date(session.accessExpiresAt), new Date(session.expiresAt)));
+        }
+        return result;
+    }
+
+    // 세션 하나를 종료한다. 없는 세션이면 false
+    public boolean revoke(String username, String jti) {
+        Session session = find(username, jti);
+        if (session == null) {
+            return false;
+        }
+        redisTemplate.opsForZSet().remove(KEY_PREFIX + username, session.member);
+        end(session);
+        return true;
+    }
+
+    // 로그아웃처럼 토큰을 이미 폐기한 경우 세션 목록에서만 지운다.
+    public void unregister(String username, String jti) {
+        Session session = find(username, jti);
+        if (session != null) {
+            redisTemplate.opsForZSet().remove(KEY_PREFIX + username, session.member);
+        }
+    }
+
+    // 유저의 모든 세션을 종료하고 종료한 세션 수를 반환한다.
+    public int revokeAll(String username) {
+        List<Session> sessions = findActive(username);
+        if (sessions.isEmpty()) {
+            return 0;
+        }
+        // 조회한 뒤에 새로 등록된 세션은 남겨두도록 키 전체를 지우지 않고 조회한 세션만 지운다.
+        Object[] members = sessions.stream().map(session -> session.member).toArray();
+        redisTemplate.opsForZSet().remove(KEY_PREFIX + username, members);
+        for (Session session : sessions) {
+            end(session);
+        }
+        return sessions.size();
+    }
+
+    // access token을 폐기하고 refresh token family도 폐기해서 재발급을 막는다.
+    private void end(Session session) {
+        revokedTokenStore.revoke(session.jti, new Date(session.accessExpiresAt));
+        if (session.family != null) {
+            refreshTokenRepository.revokeFamily(session.family);
+        }
+    }
+
+    private Session find(String username, String jti) {
+        for (Session session : findActive(username)) {
+            if (session.jti.equals(jti)) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    private List<Session> findActive(String username) {
+        Set<ZSetOperations.TypedTuple<String>> members = redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(KEY_PREFIX + username, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        List<Session> result = new ArrayList<>();
+        if (members != null) {
+            for (ZSetOperations.TypedTuple<String> member : members) {
+                result.add(Session.parse(member.getValue(), member.getScore().longValue()));
+            }
+        }
+        return result;
+    }
+
+    private static long toMillis(Object score) {
+        return (long) Double.parseDouble(score.toString());
+    }
+
+    private static final class Session {
+        private final String member;
+        private final String jti;
+        private final long accessExpiresAt;
+        private final String family; // family 없이 jti만 저장하던 세션이면 null
+        private final long expiresAt;
+
+        private Session(String member, String jti, long accessExpiresAt, String family, long expiresAt) {
+            this.member = member;
+            this.jti = jti;
+            this.accessExpiresAt = accessExpiresAt;
+            this.family = family;
+            this.expiresAt = expiresAt;
+        }
+
+        // jti와 family는 UUID라서 ':'가 들어있지 않다.
+        private static Session parse(String member, long score) {
+            int first = member.indexOf(SEPARATOR);
+            int second = first < 0 ? -1 : member.indexOf(SEPARATOR, first + 1);
+            if (second < 0) {
+                return new Session(member, member, score, null, score); // access token 만료 시각이 곧 세션 만료 시각
+            }
+            return new Session(member, member.substring(0, first),
+                    Long.parseLong(member.substring(first + 1, second)), member.substring(second + 1), score);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.dto.UserProfile;
+import com.example.jwt_redis.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+// 토큰 버전 확인과 /api/user 응답에 사용하는 UserProfile의 2단 캐시 (로컬 캐시 -> Redis user:profile:{username} -> DB)
+// UserSnapshotCache와 같은 user:invalidate 채널을 구독하므로, 유저 정보가 바뀌어서 UserSnapshotCache.evict가 호출되면
+// 다른 노드의 로컬 캐시에서도 같이 지워진다.
+public class UserProfileCache implements MessageListener {
+
+    static final String KEY_PREFIX = "user:profile:";
+
+    private final RedisTemplate<String, UserProfile> redisTemplate; // redis.serializer.* 형식 (RedisConfig.userProfileRedisTemplate)
+    private final UserRepository userRepository;
+    private final long redisTtlSeconds;
+    private final Cache<String, UserProfile> nearCache;
+
+    public UserProfileCache(
+            RedisTemplate<String, UserProfile> redisTemplate,
+            UserRepository userRepository,
+            @Value("${user-cache.near.maximum-size:10000}") long nearMaximumSize,
+            @Value("${user-cache.near.ttl-seconds:60}") long nearTtlSeconds,
+            @Value("${user-cache.redis.ttl-seconds:600}") long redisTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.userRepository = userRepository;
+        this.redisTtlSeconds = redisTtlSeconds;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearMaximumSize)
+                .expireAfterWrite(nearTtlSeconds, TimeUnit.SECONDS) // pub/sub 메시지를 놓치더라도 이 시간이 지나면 다시 읽는다.
+                .build();
+    }
+
+    // 존재하지 않는 유저는 캐싱하지 않는다.
+    public Optional<UserProfile> get(String username) {
+        UserProfile profile = nearCache.getIfPresent(username);
+        if (profile != null) {
+            return Optional.of(profile);
+        }
+
+        profile = readRedis(username);
+        if (profile == null) {
+            profile = userRepository.findProfileByUsername(username).orElse(null);
+            if (profile == null) {
+                return Optional.empty();
+            }
+            writeRedis(profile);
+        }
+        nearCache.put(username, profile);
+        return Optional.of(profile);
+    }
+
+    // 이 노드의 로컬 캐시와 Redis에서 지운다. 다른 노드에는 UserSnapshotCache.evict가 user:invalidate 채널로 알려준다.
+    public void evict(String username) {
+        nearCache.invalidate(username);
+        try {
+            redisTemplate.delete(KEY_PREFIX + username);
+        } catch (DataAccessException e) {
+            log.warn("Redis의 유저 프로필 캐시를 지우지 못했습니다. username: {}", username, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        nearCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    // Redis에 장애가 있으면 DB에서 조회하도록 Redis 오류는 캐시 miss로 취급한다.
+    private UserProfile readRedis(String username) {
+        try {
+            return redisTemplate.opsForValue().get(KEY_PREFIX + username);
+        } catch (RuntimeException e) {
+            log.warn("Redis에서 유저 프로필 캐시를 읽지 못했습니다. username: {}", username, e);
+            return null;
+        }
+    }
+
+    private void writeRedis(UserProfile profile) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + profile.getUsername(), profile, redisTtlSeconds, TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            log.warn("Redis에 유저 프로필 캐시를 저장하지 못했습니다. username: {}", profile.getUsername(), e);
+        }
+    }
+}
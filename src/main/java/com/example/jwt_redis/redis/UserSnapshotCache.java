@@ -0,0 +1,142 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.dto.UserSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+// 유저 조회 결과(UserSnapshot)를 보관하는 2단 캐시
+// 1단계는 노드별 로컬 캐시(near cache), 2단계는 Redis(user:snapshot:{username})이고 둘 다 없을 때만 DB를 조회한다.
+// 유저 정보가 바뀌면 Redis에서 지우고 user:invalidate 채널로 알려서 다른 노드의 로컬 캐시도 지우게 한다.
+// Redis에 저장하는 형식은 redis.serializer.* 설정을 따른다. (RedisConfig.userSnapshotRedisTemplate)
+public class UserSnapshotCache implements MessageListener {
+
+    public static final String CHANNEL = "user:invalidate";
+    static final String KEY_PREFIX = "user:snapshot:";
+
+    private final StringRedisTemplate redisTemplate; // 삭제, pub/sub
+    private final RedisTemplate<String, UserSnapshot> snapshotTemplate;
+    private final RedisSerializer<UserSnapshot> snapshotSerializer; // client-side cache가 돌려준 값을 읽을 때 사용
+    private final ClientSideCache clientSideCache;
+    private final long redisTtlSeconds;
+    private final Cache<String, UserSnapshot> nearCache;
+
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public UserSnapshotCache(
+            StringRedisTemplate redisTemplate,
+            RedisTemplate<String, UserSnapshot> snapshotTemplate,
+            ClientSideCache clientSideCache,
+            @Value("${user-cache.near.maximum-size:10000}") long nearMaximumSize,
+            @Value("${user-cache.near.ttl-seconds:60}") long nearTtlSeconds,
+            @Value("${user-cache.redis.ttl-seconds:600}") long redisTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.snapshotTemplate = snapshotTemplate;
+        this.snapshotSerializer = valueSerializer(snapshotTemplate);
+        this.clientSideCache = clientSideCache;
+        this.redisTtlSeconds = redisTtlSeconds;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearMaximumSize)
+                .expireAfterWrite(nearTtlSeconds, TimeUnit.SECONDS) // pub/sub 메시지를 놓치더라도 이 시간이 지나면 다시 읽는다.
+                .build();
+    }
+
+    // 로컬 캐시 -> Redis -> loader(DB) 순서로 조회한다. 존재하지 않는 유저는 캐싱하지 않는다.
+    public Optional<UserSnapshot> get(String username, Function<String, Optional<UserSnapshot>> loader) {
+        UserSnapshot snapshot = nearCache.getIfPresent(username);
+        if (snapshot != null) {
+            nearHits.increment();
+            return Optional.of(snapshot);
+        }
+
+        snapshot = readRedis(username);
+        if (snapshot != null) {
+            redisHits.increment();
+            nearCache.put(username, snapshot);
+            return Optional.of(snapshot);
+        }
+
+        misses.increment();
+        Optional<UserSnapshot> loaded = loader.apply(username);
+        loaded.ifPresent(value -> {
+            writeRedis(value);
+            nearCache.put(username, value);
+        });
+        return loaded;
+    }
+
+    // 가입, 권한 변경 등으로 유저 정보가 바뀌었을 때 호출한다.
+    public void evict(String username) {
+        nearCache.invalidate(username);
+        try {
+            redisTemplate.delete(KEY_PREFIX + username);
+            redisTemplate.convertAndSend(CHANNEL, username);
+        } catch (DataAccessException e) {
+            log.warn("Redis의 유저 캐시를 지우지 못했습니다. username: {}", username, e);
+        }
+    }
+
+    // 다른 노드에서 바뀐 유저 정보를 pub/sub으로 전달받아 로컬 캐시에서 지운다.
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        nearCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    public long getNearHits() {
+        return nearHits.sum();
+    }
+
+    public long getRedisHits() {
+        return redisHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Redis에 장애가 있어도 로그인은 되어야 하므로 Redis 오류는 캐시 miss로 취급한다.
+    private UserSnapshot readRedis(String username) {
+        try {
+            String key = KEY_PREFIX + username;
+            if (clientSideCache.isEnabled()) {
+                byte[] bytes = clientSideCache.getBytes(key);
+                return bytes == null ? null : snapshotSerializer.deserialize(bytes);
+            }
+            return snapshotTemplate.opsForValue().get(key);
+        } catch (RuntimeException e) {
+            log.warn("Redis에서 유저 캐시를 읽지 못했습니다. username: {}", username, e);
+            return null;
+        }
+    }
+
+    private void writeRedis(UserSnapshot snapshot) {
+        try {
+            snapshotTemplate.opsForValue().set(KEY_PREFIX + snapshot.getUsername(), snapshot, redisTtlSeconds, TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            log.warn("Redis에 유저 캐시를 저장하지 못했습니다. username: {}", snapshot.getUsername(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisSerializer<UserSnapshot> valueSerializer(RedisTemplate<String, UserSnapshot> template) {
+        return (RedisSerializer<UserSnapshot>) template.getValueSerializer();
+    }
+}
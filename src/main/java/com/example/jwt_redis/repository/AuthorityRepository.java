@@ -0,0 +1,7 @@
+package com.example.jwt_redis.repository;
+
+import com.example.jwt_redis.entity.Authority;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AuthorityRepository extends JpaRepository<Authority, String> {
+}
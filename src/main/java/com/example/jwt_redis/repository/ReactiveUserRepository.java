@@ -0,0 +1,62 @@
+package com.example.jwt_redis.repository;
+
+import com.example.jwt_redis.dto.UserSnapshot;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+// reactive 스택에서 R2DBC로 유저와 권한 정보를 조회한다.
+// R2DBC는 연관관계 매핑이 없으므로 user, user_authority 테이블을 직접 join해서 UserSnapshot으로 모은다.
+public class ReactiveUserRepository {
+
+    private static final String FIND_WITH_AUTHORITIES =
+            "SELECT u.username, u.nickname, u.activated, ua.authority_name " +
+            "FROM USER u LEFT JOIN user_authority ua ON u.user_id = ua.user_id " +
+            "WHERE u.username = :username";
+    private static final String FIND_PASSWORD = "SELECT u.password FROM USER u WHERE u.username = :username";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<UserSnapshot> findOneWithAuthoritiesByUsername(String username) {
+        return databaseClient.sql(FIND_WITH_AUTHORITIES)
+                .bind("username", username)
+                .map((row, metadata) -> new Object[]{
+                        row.get("username", String.class),
+                        row.get("nickname", String.class),
+                        row.get("activated", Boolean.class),
+                        row.get("authority_name", String.class)})
+                .all()
+                .collectList()
+                .flatMap(rows -> rows.isEmpty() ? Mono.empty() : Mono.just(toSnapshot(rows)));
+    }
+
+    // 로그인할 때만 비밀번호 해시를 조회한다. (UserSnapshot에는 해시를 넣지 않는다)
+    public Mono<String> findPasswordByUsername(String username) {
+        return databaseClient.sql(FIND_PASSWORD)
+                .bind("username", username)
+                .map((row, metadata) -> row.get("password", String.class))
+                .one();
+    }
+
+    private static UserSnapshot toSnapshot(List<Object[]> rows) {
+        Object[] first = rows.get(0);
+        List<String> authorities = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[3] != null) {
+                authorities.add((String) row[3]);
+            }
+        }
+        authorities.sort(null);
+        return new UserSnapshot((String) first[0], (String) first[1], Boolean.TRUE.equals(first[2]), authorities);
+    }
+}
@@ -1,16 +1,50 @@
 package com.example.jwt_redis.repository;
 
 
+import com.example.jwt_redis.dto.UserProfile;
 import com.example.jwt_redis.entity.User;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    // 유저 캐시(UserSnapshotCache)를 채우는 조회라서 readOnly가 아닌 트랜잭션으로 primary에서 읽는다.
+    // replica에서 읽으면 비활성화 직후처럼 캐시를 지운 바로 다음에 복제가 늦은 값을 다시 캐싱할 수 있다. (ReplicaRoutingDataSourceConfig)
+    @Transactional
     @EntityGraph(attributePaths = "authorities") // 쿼리가 수행될 때 Lazy조회가 아니라 Eager 조회로 authorities 정보를 같이 가져오게 된다.
     Optional<User> findOneWithAuthoritiesByUsername(String username);
     // username을 기준으로 User정보를 가져올 때 권한 정보도 같이 가져온다.
-}
 
+    // 로그인할 때 비밀번호 해시만 조회한다. 해시는 유저 캐시(UserSnapshot)에 넣지 않는다.
+    // 캐싱하지 않으므로 replica에서 읽어도 된다. (복제가 늦어도 rehash 이전의 해시라서 같은 비밀번호로 검증된다)
+    @Query("select u.password from User u where u.username = :username")
+    Optional<String> findPasswordByUsername(@Param("username") String username);
+
+    // 가입 여부만 확인한다. 권한 테이블과 조인하지 않고 엔티티도 만들지 않는다.
+    boolean existsByUsername(String username);
+
+    // 일괄 가입 시 이미 가입된 username만 한 번의 쿼리로 골라낸다.
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // 토큰으로 인증된 요청에서 필요한 프로필만 조회한다. (권한 테이블 조인 없음)
+    // 프로필 캐시(UserProfileCache)를 채우는 조회라서 findOneWithAuthoritiesByUsername처럼 primary에서 읽는다.
+    @Transactional
+    @Query("select new com.example.jwt_redis.dto.UserProfile(u.username, u.nickname, u.activated, u.tokenVersion) " +
+            "from User u where u.username = :username")
+    Optional<UserProfile> findProfileByUsername(@Param("username") String username);
+
+    // 활성화 여부를 바꾸면서 토큰 버전을 올려서 이미 발급된 토큰을 무효화한다.
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.activated = :activated, u.tokenVersion = u.tokenVersion + 1 where u.username = :username")
+    int updateActivated(@Param("username") String username, @Param("activated") boolean activated);
+}
@@ -1,46 +1,88 @@
 package com.example.jwt_redis.service;
 
+import com.example.jwt_redis.dto.UserSnapshot;
+import com.example.jwt_redis.redis.UserSnapshotCache;
 import com.example.jwt_redis.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
+    private final Timer dbLookupTimer;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserSnapshotCache userSnapshotCache, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
+        this.dbLookupTimer = Timer.builder("user.lookup.db")
+                .description("캐시 miss 시 유저와 권한 정보를 DB에서 조회하는 시간")
+                .register(meterRegistry);
     }
 
     @Override
-    @Transactional(readOnly = true)
     // UserDetailsService의 loadUserByUsername를 오버라이드해서 로그인시에 db에서 유저정보와 권한정보를 가져오게 된다.
     // 해당정보를 기반으로 userdetails.User 객체를 생성해서 반환한다.
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findOneWithAuthoritiesByUsername(username)
-                .map(user -> createUser(username, user))
+        // 캐시에 없을 때만 authorities join 쿼리를 수행한다.
+        // 바깥에 readOnly 트랜잭션을 두지 않는다. 안쪽 조회가 그 트랜잭션에 참여하면 캐시를 채우는 조회도 replica로 가기 때문이다.
+        UserSnapshot user = userSnapshotCache.get(username, this::loadFromDatabase)
                 .orElseThrow(() -> new UsernameNotFoundException(username + " -> 해당 유저를 찾을 수 없습니다."));
+        checkActivated(username, user);
+        // 비밀번호 해시는 캐시에 두지 않고 username 인덱스로 컬럼 하나만 읽는다.
+        String password = userRepository.findPasswordByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException(username + " -> 해당 유저를 찾을 수 없습니다."));
+        return createUser(user, password);
     }
 
-    private User createUser(String username, com.example.jwt_redis.entity.User user) {
+    private Optional<UserSnapshot> loadFromDatabase(String username) {
+        long start = System.nanoTime();
+        try {
+            return userRepository.findOneWithAuthoritiesByUsername(username).map(UserSnapshot::from);
+        } finally {
+            dbLookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void checkActivated(String username, UserSnapshot user) {
         // db에서 가져온 정보를 기준으로 그 user가 활성화 상태라면
         if (!user.isActivated()) {
-            throw new RuntimeException(username + " -> 활성화되어 있지 않습니다.");
+            // AuthenticationException이라서 로그인과 재발급(/api/reissue) 모두 401로 응답된다.
+            throw new DisabledException(username + " -> 활성화되어 있지 않습니다.");
         }
+    }
+
+    private static User createUser(UserSnapshot user, String password) {
         List<GrantedAuthority> grantedAuthorities = user.getAuthorities().stream()
-                .map(authority -> new SimpleGrantedAuthority(authority.getAuthorityName()))
+                .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
         // username, password, grantedAuthorities(유저의 권한정보)를 가지고 User객체를 반환한다
-        return new User(user.getUsername(), user.getPassword(), grantedAuthorities);
+        return new User(user.getUsername(), password, grantedAuthorities);
+    }
+
+    @Override
+    @Transactional
+    // 로그인에 성공했는데 저장된 해시가 현재 설정보다 약하면(cost가 낮거나 알고리즘이 다르면)
+    // DaoAuthenticationProvider가 새로 해싱한 비밀번호로 이 메서드를 호출한다.
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.findOneWithAuthoritiesByUsername(user.getUsername())
+                .ifPresent(entity -> entity.setPassword(newPassword)); // 변경 감지로 update 된다. (해시는 캐시에 없으므로 지울 캐시도 없다)
+        return User.withUserDetails(user).password(newPassword).build();
     }
 }
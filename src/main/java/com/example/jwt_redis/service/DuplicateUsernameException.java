@@ -0,0 +1,9 @@
+package com.example.jwt_redis.service;
+
+// 이미 가입된 username으로 가입하려고 할 때 발생하는 예외 (409)
+public class DuplicateUsernameException extends RuntimeException {
+
+    public DuplicateUsernameException(String message) {
+        super(message);
+    }
+}
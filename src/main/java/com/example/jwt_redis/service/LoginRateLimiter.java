@@ -0,0 +1,75 @@
+package com.example.jwt_redis.service;
+
+import com.example.jwt_redis.redis.RedisRateLimiter;
+import com.example.jwt_redis.util.LocalRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+// 로그인, 회원가입 요청의 횟수를 IP별, username별로 제한한다.
+// credential stuffing처럼 요청이 몰려도 BCrypt 해싱과 DB 조회가 한계를 넘지 않게 하는 것이 목적이다.
+// 1단계: 노드 로컬 token bucket(IP별)으로 명백한 폭주를 Redis 호출 없이 거절한다.
+// 2단계: Redis token bucket(IP별 + username별)으로 모든 노드를 합친 횟수를 제한한다.
+public class LoginRateLimiter {
+
+    private final boolean enabled;
+    private final LocalRateLimiter localRateLimiter;
+    private final RedisRateLimiter redisRateLimiter;
+    private final long ipCapacity;
+    private final double ipRefillPerSecond;
+    private final long usernameCapacity;
+    private final double usernameRefillPerSecond;
+    private final Counter localRejected;
+    private final Counter redisRejected;
+
+    public LoginRateLimiter(
+            RedisRateLimiter redisRateLimiter,
+            MeterRegistry meterRegistry,
+            @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.local.capacity:50}") long localCapacity,
+            @Value("${rate-limit.local.refill-per-second:10}") double localRefillPerSecond,
+            @Value("${rate-limit.local.maximum-keys:100000}") long localMaximumKeys,
+            @Value("${rate-limit.ip.capacity:20}") long ipCapacity,
+            @Value("${rate-limit.ip.refill-per-second:1}") double ipRefillPerSecond,
+            @Value("${rate-limit.username.capacity:5}") long usernameCapacity,
+            @Value("${rate-limit.username.refill-per-second:0.1}") double usernameRefillPerSecond) {
+        this.enabled = enabled;
+        this.redisRateLimiter = redisRateLimiter;
+        this.localRateLimiter = new LocalRateLimiter(localCapacity, localRefillPerSecond, localMaximumKeys);
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerSecond = ipRefillPerSecond;
+        this.usernameCapacity = usernameCapacity;
+        this.usernameRefillPerSecond = usernameRefillPerSecond;
+        this.localRejected = Counter.builder("rate.limit.rejected").tag("layer", "local").register(meterRegistry);
+        this.redisRejected = Counter.builder("rate.limit.rejected").tag("layer", "redis").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 허용되면 0, 거절되면 다시 시도할 수 있을 때까지 남은 시간(ms). username은 없으면 null
+    public long acquire(String ip, String username) {
+        long waitMillis = localRateLimiter.tryAcquire(ip);
+        if (waitMillis > 0) {
+            localRejected.increment();
+            return waitMillis;
+        }
+
+        List<RedisRateLimiter.Bucket> buckets = new ArrayList<>(2);
+        buckets.add(new RedisRateLimiter.Bucket("ip:" + ip, ipCapacity, ipRefillPerSecond));
+        if (username != null) {
+            buckets.add(new RedisRateLimiter.Bucket("user:" + username, usernameCapacity, usernameRefillPerSecond));
+        }
+        waitMillis = redisRateLimiter.acquire(buckets);
+        if (waitMillis > 0) {
+            redisRejected.increment();
+        }
+        return waitMillis;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.jwt_redis.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+// BCrypt 해싱처럼 CPU를 오래 쓰는 작업을 Tomcat 요청 스레드가 아닌 전용 스레드풀에서 실행한다.
+// 큐 크기가 제한되어 있어서 로그인 요청이 몰리면 기다리게 하지 않고 바로 거절(503)한다.
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHashingExecutor(
+            @Value("${password-hashing.pool-size:0}") int poolSize,
+            @Value("${password-hashing.queue-capacity:100}") int queueCapacity) {
+        // pool-size를 지정하지 않으면 CPU 코어 수만큼 스레드를 만든다.
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingRejectedException("비밀번호 해싱 요청이 너무 많습니다.");
+        }
+    }
+
+    // 해싱 스레드 수. 일괄 가입(UserService.importUsers)에서 해싱을 나눌 개수로 사용한다.
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    // 처리되기를 기다리고 있는 작업 수
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.jwt_redis.service;
+
+// 비밀번호 해싱 작업 큐가 가득 차서 요청을 바로 거절할 때 발생하는 예외
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.jwt_redis.service;
+
+import com.example.jwt_redis.dto.UserSnapshot;
+import com.example.jwt_redis.repository.ReactiveUserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+// reactive 스택의 로그인에서 사용하는 UserDetailsService (servlet 스택의 CustomUserDetailsService와 같은 역할)
+// 유저가 없으면 빈 Mono를 반환하고, UserDetailsRepositoryReactiveAuthenticationManager가 BadCredentialsException으로 처리한다.
+public class ReactiveCustomUserDetailsService implements ReactiveUserDetailsService {
+
+    private final ReactiveUserRepository reactiveUserRepository;
+
+    public ReactiveCustomUserDetailsService(ReactiveUserRepository reactiveUserRepository) {
+        this.reactiveUserRepository = reactiveUserRepository;
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        // 유저와 권한, 비밀번호 해시를 동시에 조회한다. 둘 중 하나라도 없으면 빈 Mono
+        return Mono.zip(reactiveUserRepository.findOneWithAuthoritiesByUsername(username),
+                        reactiveUserRepository.findPasswordByUsername(username))
+                .map(found -> createUser(username, found.getT1(), found.getT2()));
+    }
+
+    private UserDetails createUser(String username, UserSnapshot user, String password) {
+        if (!user.isActivated()) {
+            throw new DisabledException(username + " -> 활성화되어 있지 않습니다.");
+        }
+        List<GrantedAuthority> grantedAuthorities = user.getAuthorities().stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+        return new User(user.getUsername(), password, grantedAuthorities);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.jwt_redis.service;
+
+// 배치 요청의 키 개수나 값 크기가 redis-batch.* 제한을 넘었을 때 발생하는 예외
+public class RedisBatchLimitExceededException extends RuntimeException {
+
+    public RedisBatchLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.jwt_redis.service;
+
+import com.example.jwt_redis.dto.RedisBatchDto;
+import com.example.jwt_redis.dto.RedisBatchResultDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+// 배치 작업에서 수천 개의 키를 읽고 쓸 때 키마다 왕복하지 않도록 MGET/MSET과 파이프라인을 사용한다.
+// 배치마다 걸린 시간은 응답(elapsedMicros)과 redis.batch 타이머(operation 태그)로 남긴다.
+public class RedisBatchService {
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final StringRedisTemplate redisTemplate;
+    private final int maxKeys;
+    private final int maxValueBytes;
+    private final int scanCount;
+    private final Timer msetTimer;
+    private final Timer pipelinedSetTimer;
+    private final Timer mgetTimer;
+    private final Timer scanTimer;
+
+    public RedisBatchService(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${redis-batch.max-keys:1000}") int maxKeys,
+            @Value("${redis-batch.max-value-bytes:65536}") int maxValueBytes,
+            @Value("${redis-batch.scan-count:1000}") int scanCount) {
+        this.redisTemplate = redisTemplate;
+        this.maxKeys = maxKeys;
+        this.maxValueBytes = maxValueBytes;
+        this.scanCount = scanCount;
+        this.msetTimer = batchTimer(meterRegistry, "mset");
+        this.pipelinedSetTimer = batchTimer(meterRegistry, "pipelined_set");
+        this.mgetTimer = batchTimer(meterRegistry, "mget");
+        this.scanTimer = batchTimer(meterRegistry, "scan");
+    }
+
+    // TTL이 없으면 MSET 한 번으로, TTL이 있으면 SET EX 명령어들을 하나의 파이프라인으로 보낸다. (MSET은 TTL을 지정할 수 없다)
+    public RedisBatchResultDto write(RedisBatchDto redisBatchDto) {
+        Map<String, String> entries = redisBatchDto.getEntries();
+        checkKeyCount(entries.size());
+        for (String value : entries.values()) {
+            checkValueSize(value);
+        }
+
+        long start = System.nanoTime();
+        Long ttlSeconds = redisBatchDto.getTtlSeconds();
+        if (ttlSeconds == null) {
+            redisTemplate.opsForValue().multiSet(entries);
+        } else {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                entries.forEach((key, value) -> stringConnection.setEx(key, ttlSeconds, value));
+                return null;
+            });
+        }
+        long elapsed = System.nanoTime() - start;
+        (ttlSeconds == null ? msetTimer : pipelinedSetTimer).record(elapsed, TimeUnit.NANOSECONDS);
+
+        return RedisBatchResultDto.builder()
+                .count(entries.size())
+                .elapsedMicros(TimeUnit.NANOSECONDS.toMicros(elapsed))
+                .build();
+    }
+
+    public RedisBatchResultDto read(List<String> keys) {
+        checkKeyCount(keys.size());
+
+        long start = System.nanoTime();
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        long elapsed = System.nanoTime() - start;
+        mgetTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), values == null ? null : values.get(i));
+        }
+        return RedisBatchResultDto.builder()
+                .count(keys.size())
+                .elapsedMicros(TimeUnit.NANOSECONDS.toMicros(elapsed))
+                .values(result)
+                .build();
+    }
+
+    // KEYS 대신 SCAN으로 pattern에 맞는 키를 한 줄에 하나씩 바로 써 내려간다.
+    // 전체 목록을 메모리에 모으지 않고, scan-count 개마다 flush 해서 클라이언트가 받는 즉시 처리할 수 있게 한다.
+    public void scan(String pattern, long limit, OutputStream outputStream) {
+        long start = System.nanoTime();
+        long written = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            long count = 0;
+            try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().match(pattern).count(scanCount).build())) {
+                while (cursor.hasNext() && (limit <= 0 || count < limit)) {
+                    outputStream.write(cursor.next());
+                    outputStream.write(NEW_LINE);
+                    if (++count % scanCount == 0) {
+                        outputStream.flush();
+                    }
+                }
+                outputStream.flush();
+            } catch (IOException e) {
+                // 클라이언트가 연결을 끊은 경우
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        scanTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("SCAN pattern: {}, keys: {}", pattern, written);
+    }
+
+    private void checkKeyCount(int count) {
+        if (count > maxKeys) {
+            throw new RedisBatchLimitExceededException("한 번에 처리할 수 있는 키는 최대 " + maxKeys + "개입니다.");
+        }
+    }
+
+    private void checkValueSize(String value) {
+        // UTF-8은 한 글자가 최대 4byte이므로 확실히 작은 값은 인코딩하지 않고 넘어간다.
+        if (value.length() * 4L > maxValueBytes && value.getBytes(StandardCharsets.UTF_8).length > maxValueBytes) {
+            throw new RedisBatchLimitExceededException("값의 크기는 최대 " + maxValueBytes + "byte입니다.");
+        }
+    }
+
+    private static Timer batchTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("redis.batch")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
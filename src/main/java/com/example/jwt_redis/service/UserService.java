@@ -1,61 +1,223 @@
 package com.example.jwt_redis.service;
 
 import com.example.jwt_redis.dto.UserDto;
+import com.example.jwt_redis.dto.UserImportDto;
+import com.example.jwt_redis.dto.UserImportResultDto;
+import com.example.jwt_redis.dto.UserSnapshot;
 import com.example.jwt_redis.entity.Authority;
 import com.example.jwt_redis.entity.User;
+import com.example.jwt_redis.jwt.TokenVersionChecker;
+import com.example.jwt_redis.redis.UserProfileCache;
+import com.example.jwt_redis.redis.UserSnapshotCache;
+import com.example.jwt_redis.repository.AuthorityRepository;
 import com.example.jwt_redis.repository.UserRepository;
 import com.example.jwt_redis.util.SecurityUtil;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
 
+    private static final String ROLE_USER = "ROLE_USER";
+
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
+    private final UserSnapshotCache userSnapshotCache;
+    private final AuthorityRepository authorityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserProfileCache userProfileCache;
+    private final TokenVersionChecker tokenVersionChecker;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    // 가입하는 유저에게 부여하는 ROLE_USER. 권한 정보는 바뀌지 않으므로 처음 한 번만 조회해서 계속 사용한다.
+    private volatile Authority userAuthority;
 
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSnapshotCache userSnapshotCache,
+                       AuthorityRepository authorityRepository, TransactionTemplate transactionTemplate,
+                       UserProfileCache userProfileCache, TokenVersionChecker tokenVersionChecker,
+                       PasswordHashingExecutor passwordHashingExecutor) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userSnapshotCache = userSnapshotCache;
+        this.authorityRepository = authorityRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.userProfileCache = userProfileCache;
+        this.tokenVersionChecker = tokenVersionChecker;
+        this.passwordHashingExecutor = passwordHashingExecutor;
     }
 
-    @Transactional
+    // 트랜잭션 없이 실행해서 BCrypt 해싱 동안 DB 커넥션을 잡고 있지 않는다.
+    // 가입 여부는 exists 쿼리로 먼저 확인하고, 동시에 같은 username으로 가입하는 경우는 unique 제약조건으로 막는다.
     public User signup(UserDto userDto) {
-        if (userRepository.findOneWithAuthoritiesByUsername(userDto.getUsername()).orElse(null) != null) {
-            throw new RuntimeException("이미 가입된 유저 입니다.");
+        if (userRepository.existsByUsername(userDto.getUsername())) {
+            throw new DuplicateUsernameException("이미 가입된 유저 입니다.");
         }
 
         // 중요한점은 signup메서드를 통해 가입한 회원은 USER ROLE을 가지고 있고
         // data.sql에서 자동 생성되는 admin 계정은 USER, ADMIN ROLE을 가지고 있다.
         // 이 차이를 통한 권한 부분을 테스트하자
-        Authority authority = Authority.builder()
-                .authorityName("ROLE_USER")
+        User user = newUser(userDto);
+
+        User saved;
+        try {
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateUsernameException("이미 가입된 유저 입니다.");
+        }
+        userSnapshotCache.evict(saved.getUsername()); // 다른 노드에 남아있을 수 있는 캐시도 지운다.
+        return saved;
+    }
+
+    // 여러 유저를 한 번에 가입시킨다. 이미 가입된 username과 요청 안에서 중복된 username은 건너뛴다.
+    // 비밀번호 해싱은 password-hashing 스레드 수만큼 나눠서 전용 스레드풀에서 동시에 실행한다. (스레드 하나에서 순서대로 하면 너무 오래 걸린다)
+    // 요청 스레드는 해싱이 끝나기를 기다렸다가 직접 하나의 트랜잭션에서 저장한다. (해싱 스레드가 DB 작업을 기다리지 않는다)
+    // insert는 hibernate.jdbc.batch_size 단위로 묶여서 실행된다.
+    // 해싱 큐가 가득 차면 이미 넣은 해싱을 취소하고 PasswordHashingRejectedException(503)으로 거절한다.
+    public UserImportResultDto importUsers(UserImportDto userImportDto) {
+        Map<String, UserDto> candidates = new LinkedHashMap<>();
+        List<String> skipped = new ArrayList<>();
+        for (UserDto userDto : userImportDto.getUsers()) {
+            if (candidates.putIfAbsent(userDto.getUsername(), userDto) != null) {
+                skipped.add(userDto.getUsername());
+            }
+        }
+        Set<String> existing = new HashSet<>(userRepository.findExistingUsernames(candidates.keySet()));
+        candidates.keySet().removeIf(username -> {
+            if (existing.contains(username)) {
+                skipped.add(username);
+                return true;
+            }
+            return false;
+        });
+
+        userAuthority(); // 해싱 스레드들이 동시에 조회하지 않도록 미리 읽어둔다.
+        List<UserDto> pending = new ArrayList<>(candidates.values());
+        int threads = passwordHashingExecutor.getPoolSize();
+        int chunkSize = Math.max(1, (pending.size() + threads - 1) / threads); // 스레드마다 한 덩어리씩
+        List<CompletableFuture<List<User>>> chunks = new ArrayList<>();
+        try {
+            for (int from = 0; from < pending.size(); from += chunkSize) {
+                List<UserDto> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+                chunks.add(passwordHashingExecutor.submit(() -> chunk.stream().map(this::newUser).collect(Collectors.toList())));
+            }
+        } catch (PasswordHashingRejectedException e) {
+            // 아직 시작하지 않은 덩어리는 큐에서 꺼내져도 해싱하지 않는다.
+            chunks.forEach(chunk -> chunk.cancel(false));
+            throw e;
+        }
+
+        List<User> users = new ArrayList<>(pending.size());
+        try {
+            chunks.forEach(chunk -> users.addAll(chunk.join()));
+        } catch (CompletionException e) {
+            chunks.forEach(chunk -> chunk.cancel(false));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return saveImported(users, skipped);
+    }
+
+    private UserImportResultDto saveImported(List<User> users, List<String> skipped) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(users));
+        } catch (DataIntegrityViolationException e) {
+            // 확인한 뒤에 다른 요청이 같은 username으로 가입한 경우. 트랜잭션이 롤백되어 아무도 가입되지 않는다.
+            throw new DuplicateUsernameException("가입 중에 이미 가입된 유저가 생겼습니다. 다시 시도해 주세요.");
+        }
+        // 존재하지 않는 유저는 캐싱하지 않으므로(UserSnapshotCache) 새로 가입한 유저의 캐시는 지울 필요가 없다.
+        return UserImportResultDto.builder()
+                .imported(users.size())
+                .skipped(skipped)
                 .build();
+    }
+
+    // username을 기준으로 유저와 권한 정보를 가져온다.
+    // 캐시를 채우는 조회가 primary에서 실행되도록 readOnly 트랜잭션으로 감싸지 않는다. (UserRepository.findOneWithAuthoritiesByUsername)
+    public Optional<User> getUserWithAuthorities(String username) {
+        return findSnapshot(username).map(UserSnapshot::toUser);
+    }
 
-        User user = User.builder()
+    // 현재 SecurityContext에 저장된 username에 해당하는 유저와 권한 정보를 가져온다
+    // 캐시 miss일 때만 DB를 조회하므로 트랜잭션(DB 커넥션)은 조회하는 repository 메서드에서만 시작한다.
+    public Optional<User> getMyUserWithAuthorities() {
+        if (tokenVersionChecker.isEnabled()) {
+            return getMyUserFromToken();
+        }
+        return SecurityUtil.getCurrentUsername().flatMap(this::findSnapshot).map(UserSnapshot::toUser);
+    }
+
+    // 유저를 활성화/비활성화한다. 토큰 버전이 올라가므로 그 전에 발급된 토큰은 stateless-principal 모드에서 거절된다.
+    // 유저가 없으면 false
+    public boolean setActivated(String username, boolean activated) {
+        if (userRepository.updateActivated(username, activated) == 0) {
+            return false;
+        }
+        evictUserCache(username);
+        return true;
+    }
+
+    // 유저의 권한이 바뀌었을 때 호출해서 모든 노드의 캐시를 지운다.
+    public void evictUserCache(String username) {
+        userProfileCache.evict(username);
+        userSnapshotCache.evict(username); // user:invalidate 채널로 다른 노드의 두 캐시를 모두 지운다.
+    }
+
+    // stateless-principal 모드: username과 권한은 검증된 토큰의 클레임을, 닉네임과 활성화 여부는 프로필 캐시를 사용한다.
+    // JwtFilter에서 이미 같은 프로필로 토큰 버전을 확인했으므로 보통 로컬 캐시에서 바로 찾는다.
+    private Optional<User> getMyUserFromToken() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return Optional.empty();
+        }
+        Set<Authority> authorities = authentication.getAuthorities().stream()
+                .map(authority -> Authority.builder().authorityName(authority.getAuthority()).build())
+                .collect(Collectors.toSet());
+        return tokenVersionChecker.profile(authentication.getName())
+                .map(profile -> User.builder()
+                        .username(profile.getUsername())
+                        .nickname(profile.getNickname())
+                        .activated(profile.isActivated())
+                        .authorities(authorities)
+                        .build());
+    }
+
+    private User newUser(UserDto userDto) {
+        return User.builder()
                 .username(userDto.getUsername())
                 .password(passwordEncoder.encode(userDto.getPassword()))
                 .nickname(userDto.getNickname())
-                .authorities(Collections.singleton(authority))
+                .authorities(Collections.singleton(userAuthority()))
                 .activated(true)
                 .build();
-
-        return userRepository.save(user);
     }
 
-    // username을 기준으로 유저와 권한 정보를 가져온다.
-    @Transactional(readOnly = true)
-    public Optional<User> getUserWithAuthorities(String username) {
-        return userRepository.findOneWithAuthoritiesByUsername(username);
+    // 조회한 Authority는 detached 상태로 보관한다. 연관관계 저장에는 authority_name(PK)만 사용되므로 다시 조회하지 않는다.
+    private Authority userAuthority() {
+        Authority authority = userAuthority;
+        if (authority == null) {
+            authority = authorityRepository.findById(ROLE_USER)
+                    .orElseThrow(() -> new IllegalStateException(ROLE_USER + " 권한이 없습니다."));
+            userAuthority = authority;
+        }
+        return authority;
     }
 
-    // 현재 SecurityContext에 저장된 username에 해당하는 유저와 권한 정보를 가져온다
-    @Transactional(readOnly = true)
-    public Optional<User> getMyUserWithAuthorities() {
-        return SecurityUtil.getCurrentUsername().flatMap(userRepository::findOneWithAuthoritiesByUsername);
+    private Optional<UserSnapshot> findSnapshot(String username) {
+        return userSnapshotCache.get(username, name -> userRepository.findOneWithAuthoritiesByUsername(name).map(UserSnapshot::from));
     }
 }
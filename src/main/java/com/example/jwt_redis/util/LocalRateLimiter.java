@@ -0,0 +1,54 @@
+package com.example.jwt_redis.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.TimeUnit;
+
+// 노드 메모리 안에서만 동작하는 키별 token bucket
+// Redis rate limiter 앞에 두고, 한 IP에서 짧은 시간에 몰려오는 요청을 Redis 호출 없이 바로 거절하는 용도로 사용한다.
+// 키가 많아져도 메모리가 계속 늘지 않도록 bucket은 크기가 제한된 Caffeine 캐시에 보관한다.
+public class LocalRateLimiter {
+
+    private final long capacity;
+    private final double refillPerNanos;
+    private final Cache<String, Bucket> buckets;
+
+    public LocalRateLimiter(long capacity, double refillPerSecond, long maximumKeys) {
+        this.capacity = capacity;
+        this.refillPerNanos = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+        // 가득 차는 데 걸리는 시간 동안 요청이 없으면 새 bucket과 같은 상태이므로 제거해도 된다.
+        long idleNanos = (long) Math.ceil(capacity / refillPerNanos);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(idleNanos, TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    // 허용되면 0, 거절되면 다시 시도할 수 있을 때까지 남은 시간(ms)
+    public long tryAcquire(String key) {
+        Bucket bucket = buckets.get(key, k -> new Bucket(capacity));
+        return bucket.tryAcquire(capacity, refillPerNanos);
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private Bucket(long capacity) {
+            this.tokens = capacity;
+        }
+
+        // bucket 하나는 같은 키(IP)의 요청끼리만 경쟁하므로 bucket 단위로 lock을 건다.
+        private synchronized long tryAcquire(long capacity, double refillPerNanos) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerNanos);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / refillPerNanos / TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.jwt_redis.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Redis 장애 중에 Redis 대신 값을 보관하는 노드 메모리 저장소 (문자열 key/value, TTL 지원)
+// 키의 해시로 stripe를 골라서 stripe 단위로 lock을 건다. 서로 다른 stripe의 키는 동시에 읽고 쓸 수 있다.
+// stripe마다 최대 항목 수와 대략적인 바이트 수(문자 수 * 2)를 넘지 않도록, 가장 오래 사용되지 않은 항목부터 버린다.
+// 만료된 항목은 따로 정리하지 않고, 읽을 때와 공간이 필요할 때 지운다.
+//
+// Redis에 아직 반영되지 않은 쓰기(dirty)를 표시해두고 drainDirty로 꺼내서 Redis에 다시 쓸 수 있다.
+// 꺼낸 항목은 removeAll이나 markDirty가 호출될 때까지 반영 중(in-flight)으로 표시되고, dirty와 함께 pending으로 취급한다.
+// pending 항목은 Redis보다 최신 값이므로 putIfNotPending, removeIfNotPending은 이 항목을 덮어쓰거나 지우지 않는다.
+// 삭제도 반영해야 하므로 값이 null인 항목(tombstone)으로 남겨둔다.
+// I/O 없이 메모리만 다루지만 virtual thread에서도 pinning이 없도록 ReentrantLock을 사용한다.
+public class StripedTtlStore {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 64; // 항목 객체, map 노드 등 문자열 외의 대략적인 크기
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final int maximumEntriesPerStripe;
+    private final long maximumBytesPerStripe;
+
+    private final LongAdder evictions = new LongAdder(); // Redis에 이미 있는 값이라 버려도 되는 항목
+    private final LongAdder dirtyEvictions = new LongAdder(); // Redis에 반영되기 전에 버려진 쓰기
+
+    public StripedTtlStore(int stripeCount, int maximumEntries, long maximumBytes) {
+        if (stripeCount <= 0 || maximumEntries < stripeCount || maximumBytes <= 0) {
+            throw new IllegalArgumentException("stripeCount > 0, maximumEntries >= stripeCount, maximumBytes > 0 이어야 합니다.");
+        }
+        int size = stripeCount == 1 ? 1 : Integer.highestOneBit((stripeCount - 1) << 1); // 2의 거듭제곱으로 올림
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.maximumEntriesPerStripe = Math.max(1, maximumEntries / size);
+        this.maximumBytesPerStripe = Math.max(1, maximumBytes / size);
+    }
+
+    // 값이 없거나 만료되었으면 null, 삭제로 기록된 키는 값이 null인 항목을 반환한다.
+    public Entry find(String key, long nowMillis) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(key); // access order이므로 최근 사용한 항목으로 옮겨진다.
+            if (entry != null && entry.isExpired(nowMillis)) {
+                stripe.entries.remove(key);
+                stripe.bytes -= entry.bytes;
+                return null;
+            }
+            return entry;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // expireAtMillis가 0이면 만료되지 않는다. value가 null이면 삭제로 기록한다.
+    public void put(String key, String value, long expireAtMillis, boolean dirty, long nowMillis) {
+        Stripe stripe = stripeFor(key);
+        Entry entry = new Entry(key, value, expireAtMillis, dirty);
+        stripe.lock.lock();
+        try {
+            Entry previous = stripe.entries.put(key, entry);
+            if (previous != null) {
+                stripe.bytes -= previous.bytes;
+            }
+            stripe.bytes += entry.bytes;
+            evictIfNeeded(stripe, nowMillis);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Redis에서 읽은 값으로 채울 때 사용한다. 아직 Redis에 반영되지 않은 쓰기가 있으면 그 값을 남긴다.
+    public void putIfNotPending(String key, String value, long expireAtMillis, long nowMillis) {
+        Stripe stripe = stripeFor(key);
+        Entry entry = new Entry(key, value, expireAtMillis, false);
+        stripe.lock.lock();
+        try {
+            Entry previous = stripe.entries.get(key);
+            if (previous != null && previous.isPending()) {
+                return;
+            }
+            stripe.entries.put(key, entry);
+            if (previous != null) {
+                stripe.bytes -= previous.bytes;
+            }
+            stripe.bytes += entry.bytes;
+            evictIfNeeded(stripe, nowMillis);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Redis에 없는 키를 지울 때 사용한다. 아직 Redis에 반영되지 않은 쓰기가 있으면 남긴다.
+    public void removeIfNotPending(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Entry previous = stripe.entries.get(key);
+            if (previous != null && !previous.isPending()) {
+                stripe.entries.remove(key);
+                stripe.bytes -= previous.bytes;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void remove(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Entry previous = stripe.entries.remove(key);
+            if (previous != null) {
+                stripe.bytes -= previous.bytes;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // dirty 항목을 최대 maxEntries개까지 꺼낸다. 꺼낸 항목은 dirty 대신 in-flight로 표시하고, Redis에 반영될 때까지 읽을 수 있도록 저장소에는 그대로 남긴다.
+    // 호출한 쪽은 꺼낸 항목마다 반드시 removeAll(반영 성공)이나 markDirty(반영 실패)를 호출해야 한다.
+    // 만료된 항목은 Redis에 쓸 필요가 없으므로 지운다.
+    public List<Entry> drainDirty(int maxEntries, long nowMillis) {
+        List<Entry> drained = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            if (drained.size() >= maxEntries) {
+                break;
+            }
+            stripe.lock.lock();
+            try {
+                Iterator<Entry> iterator = stripe.entries.values().iterator();
+                while (iterator.hasNext() && drained.size() < maxEntries) {
+                    Entry entry = iterator.next();
+                    if (entry.isExpired(nowMillis)) {
+                        stripe.bytes -= entry.bytes;
+                        iterator.remove();
+                    } else if (entry.dirty) {
+                        entry.dirty = false;
+                        entry.inFlight = true;
+                        drained.add(entry);
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return drained;
+    }
+
+    // Redis에 쓰지 못한 항목을 다시 dirty로 표시한다. 그 사이에 새 값으로 바뀐 키는 새 값이 우선이다.
+    public void markDirty(List<Entry> entries) {
+        for (Entry entry : entries) {
+            Stripe stripe = stripeFor(entry.key);
+            stripe.lock.lock();
+            try {
+                entry.inFlight = false;
+                if (stripe.entries.get(entry.key) == entry) {
+                    entry.dirty = true;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    // Redis에 반영한 항목을 지운다. 그 사이에 새 값으로 바뀐 키는 남겨둔다.
+    public void removeAll(List<Entry> entries) {
+        for (Entry entry : entries) {
+            Stripe stripe = stripeFor(entry.key);
+            stripe.lock.lock();
+            try {
+                entry.inFlight = false;
+                if (stripe.entries.get(entry.key) == entry) {
+                    stripe.entries.remove(entry.key);
+                    stripe.bytes -= entry.bytes;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long dirtyCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (Entry entry : stripe.entries.values()) {
+                    if (entry.dirty) {
+                        count++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getDirtyEvictions() {
+        return dirtyEvictions.sum();
+    }
+
+    // lock을 잡은 상태에서 호출한다. 만료된 항목을 먼저 버리고, 그래도 넘치면 오래 사용되지 않은 항목부터 버린다.
+    private void evictIfNeeded(Stripe stripe, long nowMillis) {
+        if (!stripe.isOverflowing(maximumEntriesPerStripe, maximumBytesPerStripe)) {
+            return;
+        }
+        Iterator<Entry> iterator = stripe.entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.isExpired(nowMillis)) {
+                stripe.bytes -= entry.bytes;
+                iterator.remove();
+            }
+        }
+        iterator = stripe.entries.values().iterator();
+        // 방금 넣은 항목(가장 최근)은 남긴다.
+        while (stripe.isOverflowing(maximumEntriesPerStripe, maximumBytesPerStripe) && stripe.entries.size() > 1) {
+            Entry eldest = iterator.next();
+            stripe.bytes -= eldest.bytes;
+            iterator.remove();
+            (eldest.isPending() ? dirtyEvictions : evictions).increment();
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // LRU 순서
+        private long bytes;
+
+        private boolean isOverflowing(int maximumEntries, long maximumBytes) {
+            return entries.size() > maximumEntries || bytes > maximumBytes;
+        }
+    }
+
+    public static final class Entry {
+        private final String key;
+        private final String value; // null이면 삭제
+        private final long expireAtMillis;
+        private final long bytes;
+        private volatile boolean dirty; // stripe lock 안에서만 바꾼다.
+        private volatile boolean inFlight; // drainDirty로 꺼내서 Redis에 반영하는 중 (stripe lock 안에서만 바꾼다)
+
+        private Entry(String key, String value, long expireAtMillis, boolean dirty) {
+            this.key = key;
+            this.value = value;
+            this.expireAtMillis = expireAtMillis;
+            this.dirty = dirty;
+            this.bytes = ENTRY_OVERHEAD_BYTES + 2L * (key.length() + (value == null ? 0 : value.length()));
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public long getExpireAtMillis() {
+            return expireAtMillis;
+        }
+
+        public boolean isDirty() {
+            return dirty;
+        }
+
+        // 아직 Redis에 반영되지 않은 쓰기 (dirty이거나 반영 중)
+        public boolean isPending() {
+            return dirty || inFlight;
+        }
+
+        private boolean isExpired(long nowMillis) {
+            return expireAtMillis > 0 && expireAtMillis <= nowMillis;
+        }
+    }
+}
@@ -1,8 +1,9 @@
-INSERT INTO USER (USER_ID, USERNAME, PASSWORD, NICKNAME, ACTIVATED)
-VALUES (1, 'admin', '$2a$08$lDnHPz7eUkSi6ao14Twuau08mzhWrL4kyZGGU5xfiGALO/Vxd5DOi', 'admin', 1);
+-- USER_ID는 Hibernate와 같은 sequence(USER_SEQ)에서 받아야 이후에 가입하는 유저의 id와 겹치지 않는다.
+INSERT INTO USER (USER_ID, USERNAME, PASSWORD, NICKNAME, ACTIVATED, TOKEN_VERSION)
+VALUES (NEXT VALUE FOR USER_SEQ, 'admin', '$2a$08$lDnHPz7eUkSi6ao14Twuau08mzhWrL4kyZGGU5xfiGALO/Vxd5DOi', 'admin', 1, 0);
 
-INSERT INTO AUTHORITY (AUTHORITY_NAME) values ('ROLE_USER');
-INSERT INTO AUTHORITY (AUTHORITY_NAME) values ('ROLE_ADMIN');
+INSERT INTO AUTHORITY (AUTHORITY_NAME, AUTHORITY_BIT) values ('ROLE_USER', 0);
+INSERT INTO AUTHORITY (AUTHORITY_NAME, AUTHORITY_BIT) values ('ROLE_ADMIN', 1);
 
-INSERT INTO USER_AUTHORITY (USER_ID, AUTHORITY_NAME) values (1, 'ROLE_USER');
-INSERT INTO USER_AUTHORITY (USER_ID, AUTHORITY_NAME) values (1, 'ROLE_ADMIN');
\ No newline at end of file
+INSERT INTO USER_AUTHORITY (USER_ID, AUTHORITY_NAME) values ((SELECT USER_ID FROM USER WHERE USERNAME = 'admin'), 'ROLE_USER');
+INSERT INTO USER_AUTHORITY (USER_ID, AUTHORITY_NAME) values ((SELECT USER_ID FROM USER WHERE USERNAME = 'admin'), 'ROLE_ADMIN');
\ No newline at end of file
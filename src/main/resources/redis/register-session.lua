@@ -0,0 +1,47 @@
+-- 유저의 세션을 등록하고 최대 동시 세션 수를 넘으면 가장 오래된 세션을 제거하는 스크립트
+-- KEYS[1] : 유저의 세션 키      (session:{username}), member = "{jti}:{access token 만료 시각(ms)}:{refresh token family}"
+--                                                   score = 세션 만료 시각(ms, refresh token 만료 시각)
+-- ARGV[1] : 새 세션의 member
+-- ARGV[2] : 새 세션의 만료 시각(ms)
+-- ARGV[3] : 현재 시각(ms)
+-- ARGV[4] : 최대 동시 세션 수 (0이면 제한 없음)
+-- ARGV[5] : 같은 family로 이미 등록된 세션을 찾기 위한 member 끝부분 (":{family}", family가 없으면 빈 문자열)
+-- 반환값 : 제거된 세션 목록 {member, 만료 시각, member, 만료 시각, ...}
+--         재발급(reissue)으로 교체된 같은 family의 세션과, 최대 세션 수를 넘어서 제거된 세션이 들어있다.
+-- refresh token은 재발급할 때마다 수명이 다시 늘어나므로 만료 시각이 가장 빠른 세션이 가장 오래 사용하지 않은 세션이다.
+
+-- 만료된 세션은 따로 정리하지 않고 등록할 때 지운다.
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[3])
+
+local removed = {}
+local suffix = ARGV[5]
+if suffix ~= '' then
+    local sessions = redis.call('ZRANGE', KEYS[1], 0, -1, 'WITHSCORES')
+    for i = 1, #sessions, 2 do
+        local member = sessions[i]
+        if #member > #suffix and string.sub(member, -#suffix) == suffix then
+            redis.call('ZREM', KEYS[1], member)
+            table.insert(removed, member)
+            table.insert(removed, sessions[i + 1])
+        end
+    end
+end
+
+redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+
+local max = tonumber(ARGV[4])
+if max > 0 then
+    local overflow = redis.call('ZCARD', KEYS[1]) - max
+    if overflow > 0 then
+        local evicted = redis.call('ZRANGE', KEYS[1], 0, overflow - 1, 'WITHSCORES')
+        redis.call('ZREMRANGEBYRANK', KEYS[1], 0, overflow - 1)
+        for i = 1, #evicted do
+            table.insert(removed, evicted[i])
+        end
+    end
+end
+
+-- 마지막 세션이 만료되면 키도 같이 사라지게 한다.
+local last = redis.call('ZRANGE', KEYS[1], -1, -1, 'WITHSCORES')
+redis.call('PEXPIREAT', KEYS[1], last[2])
+return removed
@@ -0,0 +1,35 @@
+-- refresh token 교체(rotation)를 한 번의 왕복으로 원자적으로 처리하는 스크립트
+-- refresh token은 "{family}.{secret}" 형태이고, 한 family의 키는 모두 같은 hash tag({family})를 가지므로 Redis Cluster에서도 같은 슬롯에 있다.
+-- KEYS[1] : family의 현재 토큰 키   (refresh:{family}:token), 값 = "{secret}:{username}"
+-- KEYS[2] : family의 사용 흔적 키   (refresh:{family}:used), sorted set, member = 사용된 secret, score = 흔적 만료 시각(ms)
+-- ARGV[1] : 교체를 요청한 토큰의 secret
+-- ARGV[2] : 새 토큰의 secret
+-- ARGV[3] : TTL(초)
+-- ARGV[4] : 현재 시각(ms)
+-- 반환값 : 교체되면 username, 이미 사용된 토큰이면 'REUSED', 없거나 만료된 토큰이면 nil
+
+local now = tonumber(ARGV[4])
+local ttl = tonumber(ARGV[3])
+
+local value = redis.call('GET', KEYS[1])
+if value then
+    local separator = string.find(value, ':', 1, true)
+    if string.sub(value, 1, separator - 1) == ARGV[1] then
+        local username = string.sub(value, separator + 1)
+        redis.call('SET', KEYS[1], ARGV[2] .. ':' .. username, 'EX', ttl)
+        -- 이미 사용된 토큰이라는 흔적을 남겨서 재사용을 탐지할 수 있게 한다. 만료된 흔적은 여기서 정리한다.
+        redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', '(' .. now)
+        redis.call('ZADD', KEYS[2], now + ttl * 1000, ARGV[1])
+        redis.call('EXPIRE', KEYS[2], ttl)
+        return username
+    end
+end
+
+-- 이미 교체된 토큰이 다시 들어왔다면 탈취된 것으로 보고 family 전체를 폐기한다.
+local used = redis.call('ZSCORE', KEYS[2], ARGV[1])
+if used and tonumber(used) >= now then
+    redis.call('DEL', KEYS[1])
+    return 'REUSED'
+end
+
+return false
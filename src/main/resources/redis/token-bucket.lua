@@ -0,0 +1,42 @@
+-- 여러 token bucket(IP별, username별)에서 토큰을 한 번의 왕복으로 원자적으로 꺼내는 스크립트
+-- KEYS[i]      : bucket 키 (rate:{auth}:ip:{ip}, rate:{auth}:user:{username})
+-- ARGV[1]      : 현재 시각(ms)
+-- ARGV[2i]     : KEYS[i] bucket의 최대 토큰 수(capacity)
+-- ARGV[2i + 1] : KEYS[i] bucket에 1ms마다 채워지는 토큰 수
+-- 모든 bucket에 토큰이 있을 때만 하나씩 꺼내고 0을 반환한다.
+-- 하나라도 비어있으면 아무것도 꺼내지 않고, 다시 시도할 수 있을 때까지 남은 시간(ms)을 반환한다.
+-- bucket 키는 hash 필드 tokens(남은 토큰), ts(마지막 계산 시각)를 가진다.
+
+local now = tonumber(ARGV[1])
+local tokens = {}
+local wait = 0
+
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[2 * i])
+    local rate = tonumber(ARGV[2 * i + 1])
+    local bucket = redis.call('HMGET', KEYS[i], 'tokens', 'ts')
+    local current = tonumber(bucket[1])
+    local ts = tonumber(bucket[2])
+    if current == nil or ts == nil then
+        current = capacity
+    else
+        current = math.min(capacity, current + math.max(0, now - ts) * rate)
+    end
+    tokens[i] = current
+    if current < 1 then
+        wait = math.max(wait, math.ceil((1 - current) / rate))
+    end
+end
+
+if wait > 0 then
+    return wait
+end
+
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[2 * i])
+    local rate = tonumber(ARGV[2 * i + 1])
+    redis.call('HMSET', KEYS[i], 'tokens', tostring(tokens[i] - 1), 'ts', ARGV[1])
+    -- bucket이 다시 가득 차는 시간이 지나면 키가 없어도 같은 상태이므로 지운다.
+    redis.call('PEXPIRE', KEYS[i], math.ceil(capacity / rate))
+end
+return 0
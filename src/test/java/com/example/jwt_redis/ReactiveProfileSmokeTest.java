@@ -0,0 +1,76 @@
+package com.example.jwt_redis;
+
+import com.example.jwt_redis.dto.TokenDto;
+import com.example.jwt_redis.loadtest.AppLauncher;
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// reactive 프로필로 앱을 띄워서 로그인과 유저 조회가 동작하는지 확인한다.
+// R2DBC 쿼리(ReactiveUserRepository)는 JPA가 만든 테이블을 직접 사용하므로 테이블 이름이 맞지 않으면 여기서 드러난다.
+class ReactiveProfileSmokeTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static EmbeddedRedis redis;
+    private static AppLauncher app;
+    private static WebClient webClient;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        app = AppLauncher.start(redis, "reactive");
+        webClient = WebClient.create(app.getBaseUrl());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (app != null) {
+            app.close();
+        }
+        redis.close();
+    }
+
+    @Test
+    void logsInAndReadsUserWithAuthorities() {
+        TokenDto token = login("admin", "admin").getBody();
+        assertThat(token).isNotNull();
+        assertThat(token.getRefreshToken()).isNotBlank();
+
+        ResponseEntity<Map> user = webClient.get().uri("/api/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .retrieve()
+                .toEntity(Map.class)
+                .block(TIMEOUT);
+        assertThat(user.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(user.getBody()).containsEntry("username", "admin");
+        assertThat(user.getBody().get("authorities").toString()).contains("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void rejectsWrongPasswordAndUnknownUser() {
+        assertThat(login("admin", "wrong").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(login("nobody", "admin").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private static ResponseEntity<TokenDto> login(String username, String password) {
+        Map<String, String> body = new HashMap<>();
+        body.put("username", username);
+        body.put("password", password);
+        return webClient.post().uri("/api/authenticate")
+                .bodyValue(body)
+                .exchangeToMono(response -> response.toEntity(TokenDto.class))
+                .block(TIMEOUT);
+    }
+}
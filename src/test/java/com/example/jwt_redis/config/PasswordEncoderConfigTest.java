@@ -0,0 +1,90 @@
+package com.example.jwt_redis.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 예전 해시(접두어 없는 BCrypt, 낮은 cost)가 로그인에 성공할 때 UserDetailsPasswordService.updatePassword로
+// 현재 설정의 해시로 바뀌는지, 목표 시간을 맞출 수 없을 때 calibrate가 최소값을 쓰는지 확인한다.
+class PasswordEncoderConfigTest {
+
+    private static final String PASSWORD = "password";
+
+    @Test
+    void upgradesLegacyUnprefixedHashOnLogin() {
+        PasswordEncoder encoder = passwordEncoder("bcrypt");
+        // data.sql의 admin처럼 접두어 없이 저장된 해시
+        InMemoryUserDetailsManager users = users(new BCryptPasswordEncoder(10).encode(PASSWORD));
+
+        login(encoder, users, PASSWORD);
+
+        String upgraded = users.loadUserByUsername("legacy").getPassword();
+        assertThat(upgraded).startsWith("{bcrypt}$2a$10$");
+        assertThat(encoder.matches(PASSWORD, upgraded)).isTrue();
+        assertThat(encoder.upgradeEncoding(upgraded)).isFalse();
+    }
+
+    @Test
+    void upgradesLowerBCryptCostOnLogin() {
+        PasswordEncoder encoder = passwordEncoder("bcrypt");
+        InMemoryUserDetailsManager users = users("{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD));
+
+        login(encoder, users, PASSWORD);
+
+        assertThat(users.loadUserByUsername("legacy").getPassword()).startsWith("{bcrypt}$2a$10$");
+    }
+
+    @Test
+    void upgradesBCryptToArgon2WhenAlgorithmChanges() {
+        PasswordEncoder encoder = passwordEncoder("argon2");
+        InMemoryUserDetailsManager users = users(new BCryptPasswordEncoder(10).encode(PASSWORD));
+
+        login(encoder, users, PASSWORD);
+
+        String upgraded = users.loadUserByUsername("legacy").getPassword();
+        assertThat(upgraded).startsWith("{argon2}");
+        assertThat(encoder.matches(PASSWORD, upgraded)).isTrue();
+    }
+
+    @Test
+    void keepsHashWhenLoginFails() {
+        PasswordEncoder encoder = passwordEncoder("bcrypt");
+        String legacy = new BCryptPasswordEncoder(10).encode(PASSWORD);
+        InMemoryUserDetailsManager users = users(legacy);
+
+        assertThatThrownBy(() -> login(encoder, users, "wrong-password")).isInstanceOf(BadCredentialsException.class);
+        assertThat(users.loadUserByUsername("legacy").getPassword()).isEqualTo(legacy);
+    }
+
+    @Test
+    void calibrationFallsBackToMinimumWhenTargetIsUnreachable() {
+        assertThat(BCryptCostCalibrator.calibrate(0)).isEqualTo(10);
+        assertThat(Argon2CostCalibrator.calibrate(0, 16, 32, 1, 4096, 3)).isEqualTo(3);
+    }
+
+    private static PasswordEncoder passwordEncoder(String algorithm) {
+        return new PasswordEncoderConfig().passwordEncoder(algorithm, 10, false, 250,
+                16, 32, 1, 4096, 3, new SimpleMeterRegistry());
+    }
+
+    private static InMemoryUserDetailsManager users(String storedHash) {
+        return new InMemoryUserDetailsManager(User.withUsername("legacy").password(storedHash).roles("USER").build());
+    }
+
+    private static void login(PasswordEncoder encoder, InMemoryUserDetailsManager users, String password) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsService(users);
+        provider.setUserDetailsPasswordService(users);
+        provider.authenticate(new UsernamePasswordAuthenticationToken("legacy", password));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.jwt_redis.config;
+
+import com.example.jwt_redis.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 읽기 전용 트랜잭션만 replica로 가고, 캐시를 채우는 조회는 primary에서 읽도록 선언되어 있는지 확인한다.
+// primary와 replica는 서로 다른 H2 메모리 DB이고, 각 DB의 node 테이블에 자기 이름을 넣어두고 어느 쪽에서 읽었는지 구분한다.
+class ReplicaRoutingDataSourceConfigTest {
+
+    private static HikariDataSource primary;
+    private static HikariDataSource replica;
+    private static JdbcTemplate jdbcTemplate;
+    private static DataSourceTransactionManager transactionManager;
+
+    @BeforeAll
+    static void setUp() {
+        primary = h2("primary");
+        replica = h2("replica");
+        DataSource dataSource = new ReplicaRoutingDataSourceConfig().dataSource(primary, replica);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void routesReadOnlyTransactionToReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String node = readOnly.execute(status -> node());
+        assertThat(node).isEqualTo("replica");
+    }
+
+    @Test
+    void routesReadWriteTransactionAndNoTransactionToPrimary() {
+        String node = new TransactionTemplate(transactionManager).execute(status -> node());
+        assertThat(node).isEqualTo("primary");
+        assertThat(node()).isEqualTo("primary");
+    }
+
+    @Test
+    void cacheLoadingQueriesAreNotReadOnly() throws NoSuchMethodException {
+        // readOnly = true로 바뀌면 캐시를 지운 직후에 replica의 늦은 값을 다시 캐싱할 수 있다.
+        assertThat(UserRepository.class.getMethod("findOneWithAuthoritiesByUsername", String.class)
+                .getAnnotation(Transactional.class).readOnly()).isFalse();
+        assertThat(UserRepository.class.getMethod("findProfileByUsername", String.class)
+                .getAnnotation(Transactional.class).readOnly()).isFalse();
+    }
+
+    private static String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static HikariDataSource h2(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("create table node (name varchar(20))");
+        template.update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
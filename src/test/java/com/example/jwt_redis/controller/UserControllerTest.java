@@ -0,0 +1,104 @@
+package com.example.jwt_redis.controller;
+
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 가입 API의 응답 코드를 확인한다. (중복 가입 409, 일괄 가입 유저 수 제한)
+@SpringBootTest(properties = "rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class UserControllerTest {
+
+    private static EmbeddedRedis redis;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        redis = EmbeddedRedis.start();
+        registry.add("spring.redis.port", redis::getPort);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void signupWithExistingUsernameReturnsConflict() throws Exception {
+        signup("duplicate").andExpect(status().isOk());
+
+        signup("duplicate").andExpect(status().isConflict());
+        // data.sql로 만들어진 유저
+        signup("admin").andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void importSkipsExistingAndDuplicatedUsernames() throws Exception {
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(users("imported", "imported", "admin")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.skipped.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void importRejectsMoreThanHundredUsers() throws Exception {
+        String[] usernames = new String[101];
+        for (int i = 0; i < usernames.length; i++) {
+            usernames[i] = "bulk" + i;
+        }
+
+        // 해싱을 시작하기 전에 검증에서 거절한다.
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(users(usernames)))
+                .andExpect(status().isBadRequest());
+    }
+
+    // signup은 해싱 스레드풀에서 비동기로 처리되므로 결과가 나온 뒤에 다시 dispatch 한다.
+    private ResultActions signup(String username) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(user(username)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private static String users(String... usernames) {
+        StringBuilder sb = new StringBuilder("{\"users\":[");
+        for (int i = 0; i < usernames.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(user(usernames[i]));
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String user(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"password\",\"nickname\":\"nickname\"}";
+    }
+}
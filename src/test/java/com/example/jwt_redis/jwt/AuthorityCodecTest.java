@@ -0,0 +1,65 @@
+package com.example.jwt_redis.jwt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// compact 모드의 권한 비트마스크 변환과, 같은 권한 조합이 같은 불변 목록을 공유하는지 확인한다.
+// 비트는 data.sql과 같게 지정한다.
+class AuthorityCodecTest {
+
+    private final AuthorityCodec codec = AuthorityCodec.forBits(bits());
+
+    @Test
+    void roundTripsMask() {
+        List<GrantedAuthority> admin = AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN");
+
+        long mask = codec.encode(admin);
+
+        assertThat(mask).isEqualTo(0b11);
+        assertThat(codec.decode(mask)).containsExactlyInAnyOrderElementsOf(admin);
+        assertThat(codec.decode(codec.encode(AuthorityUtils.createAuthorityList("ROLE_USER"))))
+                .containsExactly(new SimpleGrantedAuthority("ROLE_USER"));
+        assertThat(codec.encode(Collections.emptyList())).isZero();
+        assertThat(codec.decode(0)).isEmpty();
+    }
+
+    @Test
+    void returnsMinusOneForAuthorityWithoutBit() {
+        // 비트가 없는 권한이 있으면 auth claim 형식으로 넣어야 한다. (TokenProvider)
+        assertThat(codec.encode(AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_AUDITOR"))).isEqualTo(-1);
+    }
+
+    @Test
+    void ignoresBitsWithoutAuthority() {
+        // 다른 노드에서 새로 추가된 비트는 모르는 권한이므로 무시한다.
+        assertThat(codec.decode(0b101)).containsExactly(new SimpleGrantedAuthority("ROLE_USER"));
+    }
+
+    @Test
+    void sharesImmutableListsForSameCombination() {
+        List<GrantedAuthority> byMask = codec.decode(0b11);
+        List<GrantedAuthority> byClaim = codec.decode("ROLE_USER,ROLE_ADMIN");
+
+        assertThat(codec.decode(0b11)).isSameAs(byMask);
+        assertThat(codec.decode("ROLE_USER,ROLE_ADMIN")).isSameAs(byClaim);
+        // 형식이 달라도 같은 권한은 같은 GrantedAuthority 인스턴스다.
+        assertThat(byClaim.get(0)).isSameAs(codec.decode(0b01).get(0));
+        assertThat(byMask).isUnmodifiable();
+    }
+
+    private static Map<String, Integer> bits() {
+        Map<String, Integer> bits = new HashMap<>();
+        bits.put("ROLE_USER", 0);
+        bits.put("ROLE_ADMIN", 1);
+        return bits;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.jwt_redis.jwt;
+
+import com.example.jwt_redis.controller.JwksController;
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 두 노드가 같은 Redis(jwt:jwks)를 공유할 때 ES256 키의 공유, 교체, 폐기와 JWKS의 ETag 응답을 확인한다.
+// refresh 주기는 길게 잡아서 테스트 중에는 자동으로 다시 읽지 않는 상황을 만든다.
+class JwtKeyManagerTest {
+
+    private static final String SECRET = "c2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQtc2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQK";
+    private static final long REFRESH_INTERVAL_MILLIS = 3600000;
+
+    private static EmbeddedRedis redis;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        redisTemplate = redis.stringRedisTemplate();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @BeforeEach
+    void clear() {
+        redisTemplate.delete(JwtKeyManager.JWKS_KEY);
+    }
+
+    @Test
+    void verifiesKeyOfNodeStartedAfterLastRefresh() {
+        JwtKeyManager nodeA = node(1800);
+        JwtKeyManager nodeB = node(1800);
+
+        // A는 B가 뜨기 전에 refresh 했지만, B가 서명한 토큰을 다음 refresh 전에도 검증할 수 있다.
+        assertThat(nodeA.verificationKey(nodeB.activeKey().getKid())).isNotNull();
+        assertThat(nodeA.verificationKey("unknown-kid")).isNull();
+        assertThat(nodeA.verificationKey(null)).isNull();
+    }
+
+    @Test
+    void unknownKidIsLookedUpOnlyOncePerRefreshInterval() {
+        JwtKeyManager nodeA = node(1800);
+        assertThat(nodeA.verificationKey("late-kid")).isNull();
+
+        // 이미 없다고 기억한 kid는 refresh 전까지 Redis를 다시 보지 않는다.
+        JwtKeyManager nodeB = node(1800);
+        redisTemplate.opsForHash().put(JwtKeyManager.JWKS_KEY, "late-kid",
+                redisTemplate.opsForHash().get(JwtKeyManager.JWKS_KEY, nodeB.activeKey().getKid()));
+        assertThat(nodeA.verificationKey("late-kid")).isNull();
+
+        nodeA.refresh();
+        assertThat(nodeA.verificationKey("late-kid")).isNotNull();
+    }
+
+    @Test
+    void rotationKeepsRetiredKeyForVerification() {
+        JwtKeyManager nodeA = node(1800);
+        JwtKeyManager nodeB = node(1800);
+        String oldKid = nodeA.activeKey().getKid();
+
+        nodeA.rotate();
+
+        String newKid = nodeA.activeKey().getKid();
+        assertThat(newKid).isNotEqualTo(oldKid);
+        assertThat(nodeA.verificationKey(oldKid)).isNotNull();
+        assertThat(nodeA.verificationKey(newKid)).isNotNull();
+        // 새 active 키는 교체 전에 next로 공개되어 있었다.
+        assertThat(nodeB.verificationKey(oldKid)).isNotNull();
+        assertThat(nodeB.verificationKey(newKid)).isNotNull();
+    }
+
+    @Test
+    void retiredKeyIsRemovedAfterTokenValidity() throws InterruptedException {
+        JwtKeyManager nodeA = node(1);
+        String retiredKid = nodeA.activeKey().getKid();
+
+        nodeA.rotate();
+        assertThat(nodeA.verificationKey(retiredKid)).isNotNull();
+
+        // retired 키로 서명된 토큰이 모두 만료된 뒤의 교체에서 검증 키와 Redis에서 모두 지운다.
+        Thread.sleep(1100);
+        nodeA.rotate();
+
+        assertThat(redisTemplate.opsForHash().hasKey(JwtKeyManager.JWKS_KEY, retiredKid)).isFalse();
+        assertThat(nodeA.verificationKey(retiredKid)).isNull();
+        assertThat(nodeA.jwksJson()).doesNotContain(retiredKid);
+    }
+
+    @Test
+    void jwksAnswersNotModifiedForSameEtagAndChangesAfterRotation() {
+        JwtKeyManager nodeA = node(1800);
+        JwksController controller = new JwksController(nodeA, 300);
+
+        ResponseEntity<String> first = controller.jwks(webRequest(null));
+        String etag = first.getHeaders().getETag();
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getBody()).contains(nodeA.activeKey().getKid());
+
+        ResponseEntity<String> cached = controller.jwks(webRequest(etag));
+        assertThat(cached.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(cached.getBody()).isNull();
+
+        nodeA.rotate();
+        ResponseEntity<String> rotated = controller.jwks(webRequest(etag));
+        assertThat(rotated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rotated.getHeaders().getETag()).isNotEqualTo(etag);
+    }
+
+    private static JwtKeyManager node(long tokenValidityInSeconds) {
+        JwtKeyManager keyManager = new JwtKeyManager("ES256", SECRET, tokenValidityInSeconds, 86400000,
+                REFRESH_INTERVAL_MILLIS, redisTemplate, new ObjectMapper());
+        keyManager.afterPropertiesSet();
+        return keyManager;
+    }
+
+    private static ServletWebRequest webRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/.well-known/jwks.json");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
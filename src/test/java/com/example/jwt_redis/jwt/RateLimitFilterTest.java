@@ -0,0 +1,132 @@
+package com.example.jwt_redis.jwt;
+
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import com.example.jwt_redis.redis.RedisCircuitBreaker;
+import com.example.jwt_redis.redis.RedisRateLimiter;
+import com.example.jwt_redis.service.LoginRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 로그인 body의 username으로 username별 제한이 걸리는지, body를 부풀려서 그 제한을 피할 수 없는지 확인한다.
+class RateLimitFilterTest {
+
+    private static final int USERNAME_CAPACITY = 2;
+
+    private static EmbeddedRedis redis;
+    private static RateLimitFilter filter;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        RedisRateLimiter redisRateLimiter = new RedisRateLimiter(redis.stringRedisTemplate(), new RedisCircuitBreaker(5, 5000));
+        LoginRateLimiter loginRateLimiter = new LoginRateLimiter(redisRateLimiter, new SimpleMeterRegistry(),
+                true, 1000, 100, 100000, 1000, 100, USERNAME_CAPACITY, 0.001);
+        filter = new RateLimitFilter(loginRateLimiter, new ObjectMapper(),
+                new AntPathRequestMatcher("/api/authenticate", "POST"));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void limitsUsernameAcrossIpsAndPassesBodyToController() throws Exception {
+        String body = login("victim", "");
+        for (int i = 0; i < USERNAME_CAPACITY; i++) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = send(request("10.0.1." + i, body), chain);
+
+            assertThat(response.getStatus()).isEqualTo(200);
+            // 컨트롤러는 필터가 읽은 body를 그대로 다시 읽을 수 있다.
+            assertThat(StreamUtils.copyToString(chain.getRequest().getInputStream(), StandardCharsets.UTF_8)).isEqualTo(body);
+        }
+
+        MockHttpServletResponse limited = send(request("10.0.1.99", body), new MockFilterChain());
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(limited.getHeader("Retry-After")).isNotNull();
+    }
+
+    @Test
+    void rejectsOversizedBodyInsteadOfSkippingUsernameLimit() throws Exception {
+        String padded = login("padded", repeat(' ', 5000));
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = send(request("10.0.2.1", padded), chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void rejectsOversizedChunkedBody() throws Exception {
+        // Content-Length 없이 보낸 body도 읽어보고 크면 거절한다.
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/authenticate") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+        };
+        request.setServletPath("/api/authenticate");
+        request.setRemoteAddr("10.0.3.1");
+        request.setContent(login("chunked", repeat(' ', 5000)).getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+
+        assertThat(send(request, chain).getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void paddingWithinLimitStillCountsAgainstUsername() throws Exception {
+        for (int i = 0; i < USERNAME_CAPACITY; i++) {
+            send(request("10.0.4." + i, login("stuffed", repeat(' ', i * 1000))), new MockFilterChain());
+        }
+
+        MockHttpServletResponse limited = send(request("10.0.4.99", login("stuffed", repeat(' ', 3900))), new MockFilterChain());
+        assertThat(limited.getStatus()).isEqualTo(429);
+    }
+
+    private static MockHttpServletResponse send(MockHttpServletRequest request, MockFilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String ip, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/authenticate");
+        request.setServletPath("/api/authenticate"); // AntPathRequestMatcher는 servletPath로 비교한다.
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static String login(String username, String padding) {
+        return "{\"username\":\"" + username + "\"," + padding + "\"password\":\"password\"}";
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
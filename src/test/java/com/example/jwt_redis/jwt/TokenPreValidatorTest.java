@@ -0,0 +1,163 @@
+package com.example.jwt_redis.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 서명 검증 전에 형식, alg, exp만 보고 토큰을 걸러내는 사전 검사를 확인한다.
+// 확실히 잘못된 토큰만 거부하고, 판단할 수 없는 값(소수나 지수 표기의 exp 등)은 jjwt에 넘겨야 한다.
+class TokenPreValidatorTest {
+
+    private static final String ALG = "HS512";
+    private static final long NOW = 1_700_000_000_000L;
+    private static final String HEADER = "{\"alg\":\"HS512\"}";
+    private static final String SIGNATURE = "c2lnbmF0dXJl";
+
+    @Test
+    void acceptsValidToken() {
+        String token = token(HEADER, payload(NOW / 1000 + 60));
+
+        assertThat(check(token)).isEqualTo(TokenVerification.Reason.VALID);
+        // Authorization 헤더에서 "Bearer " 뒤부터 검사할 수 있다.
+        assertThat(TokenPreValidator.check("Bearer " + token, 7, ALG, NOW)).isEqualTo(TokenVerification.Reason.VALID);
+    }
+
+    @Test
+    void rejectsWrongSegmentCount() {
+        String header = encode(HEADER);
+        String payload = encode(payload(NOW / 1000 + 60));
+
+        assertThat(check(header + "." + payload)).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+        assertThat(check(header + "." + payload + "." + SIGNATURE + "." + SIGNATURE))
+                .isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+        assertThat(check(header + ".." + SIGNATURE)).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+    }
+
+    @Test
+    void rejectsCharactersOutsideBase64Url() {
+        String token = token(HEADER, payload(NOW / 1000 + 60));
+
+        // 일반 Base64 문자, 패딩, 공백, ASCII가 아닌 문자
+        assertThat(check(token + "+abc")).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+        assertThat(check(token + "/abc")).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+        assertThat(check(token + "==")).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+        assertThat(check(token + " abc")).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+        assertThat(check(token + "가나다")).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+    }
+
+    @Test
+    void rejectsSegmentLengthThatCannotBeBase64() {
+        String header = encode(HEADER);
+        String payload = encode(payload(NOW / 1000 + 60));
+
+        // 길이를 4로 나눈 나머지가 1인 Base64URL 문자열은 디코딩할 수 없다.
+        assertThat(check(header + "." + payload + ".abcde")).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+        String broken = oneOverMultipleOfFour(header) + "." + payload + "." + SIGNATURE;
+        assertThat(check(broken)).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+    }
+
+    @Test
+    void rejectsNoneAndUnexpectedAlgorithm() {
+        String payload = payload(NOW / 1000 + 60);
+
+        assertThat(check(token("{\"alg\":\"none\"}", payload))).isEqualTo(TokenVerification.Reason.UNSUPPORTED);
+        assertThat(check(token("{\"alg\":\"HS256\"}", payload))).isEqualTo(TokenVerification.Reason.UNSUPPORTED);
+        // 기대한 alg로 시작하지만 더 긴 값
+        assertThat(check(token("{\"alg\":\"HS5120\"}", payload))).isEqualTo(TokenVerification.Reason.UNSUPPORTED);
+        // alg가 없거나 문자열이 아닌 헤더
+        assertThat(check(token("{\"typ\":\"JWT\"}", payload))).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+        assertThat(check(token("{\"alg\":512}", payload))).isEqualTo(TokenVerification.Reason.INVALID_SIGNATURE);
+    }
+
+    @Test
+    void allowsWhitespaceAroundColon() {
+        String header = "{\"typ\":\"JWT\", \"alg\" :  \"HS512\"}";
+
+        assertThat(check(token(header, "{\"sub\":\"admin\",\"exp\" : " + (NOW / 1000 + 60) + "}")))
+                .isEqualTo(TokenVerification.Reason.VALID);
+        assertThat(check(token(header, "{\"sub\":\"admin\",\"exp\"\t:\t" + (NOW / 1000 - 60) + "}")))
+                .isEqualTo(TokenVerification.Reason.EXPIRED);
+    }
+
+    @Test
+    void leavesExpThatIsNotPlainIntegerToJjwt() {
+        // 이미 지난 시각이라도 정수가 아니거나 너무 긴 exp는 여기서 판단하지 않는다.
+        assertThat(check(token(HEADER, "{\"exp\":1600000000.5}"))).isEqualTo(TokenVerification.Reason.VALID);
+        assertThat(check(token(HEADER, "{\"exp\":1.6e9}"))).isEqualTo(TokenVerification.Reason.VALID);
+        assertThat(check(token(HEADER, "{\"exp\":16E8}"))).isEqualTo(TokenVerification.Reason.VALID);
+        assertThat(check(token(HEADER, "{\"exp\":1000000000000000}"))).isEqualTo(TokenVerification.Reason.VALID);
+        // 15자리까지는 직접 비교한다.
+        assertThat(check(token(HEADER, "{\"exp\":000000000000001}"))).isEqualTo(TokenVerification.Reason.EXPIRED);
+        assertThat(check(token(HEADER, "{\"exp\":-1}"))).isEqualTo(TokenVerification.Reason.VALID);
+    }
+
+    @Test
+    void treatsExpEqualToNowAsNotExpired() {
+        long exp = NOW / 1000;
+
+        assertThat(TokenPreValidator.check(token(HEADER, payload(exp)), 0, ALG, exp * 1000))
+                .isEqualTo(TokenVerification.Reason.VALID);
+        assertThat(TokenPreValidator.check(token(HEADER, payload(exp)), 0, ALG, exp * 1000 + 1))
+                .isEqualTo(TokenVerification.Reason.EXPIRED);
+        assertThat(TokenPreValidator.check(token(HEADER, payload(exp - 1)), 0, ALG, exp * 1000))
+                .isEqualTo(TokenVerification.Reason.EXPIRED);
+    }
+
+    @Test
+    void acceptsTokenOfMaxLengthAndRejectsLonger() {
+        String token = tokenOfLength(TokenPreValidator.MAX_TOKEN_LENGTH);
+        assertThat(token).hasSize(TokenPreValidator.MAX_TOKEN_LENGTH);
+        assertThat(check(token)).isEqualTo(TokenVerification.Reason.VALID);
+
+        assertThat(check(token + "A")).isEqualTo(TokenVerification.Reason.ILLEGAL_ARGUMENT);
+        assertThat(check("")).isEqualTo(TokenVerification.Reason.ILLEGAL_ARGUMENT);
+    }
+
+    private static TokenVerification.Reason check(String token) {
+        return TokenPreValidator.check(token, 0, ALG, NOW);
+    }
+
+    private static String payload(long exp) {
+        return "{\"sub\":\"admin\",\"exp\":" + exp + "}";
+    }
+
+    private static String token(String header, String payload) {
+        return encode(header) + "." + encode(payload) + "." + SIGNATURE;
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 길이를 4로 나눈 나머지가 1이 되도록 끝에 문자를 붙인다.
+    private static String oneOverMultipleOfFour(String segment) {
+        StringBuilder sb = new StringBuilder(segment);
+        while (sb.length() % 4 != 1) {
+            sb.append('A');
+        }
+        return sb.toString();
+    }
+
+    // 서명 길이로 전체 길이를 맞춘다. 서명 길이를 4로 나눈 나머지가 1이 되지 않도록 payload에 공백을 넣어 조정한다.
+    private static String tokenOfLength(int length) {
+        String header = encode(HEADER);
+        for (int pad = 0; ; pad++) {
+            String payload = encode("{\"sub\":\"admin\"," + repeat(' ', pad) + "\"exp\":" + (NOW / 1000 + 60) + "}");
+            int signatureLength = length - header.length() - payload.length() - 2;
+            if (signatureLength % 4 != 1) {
+                return header + "." + payload + "." + repeat('s', signatureLength);
+            }
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
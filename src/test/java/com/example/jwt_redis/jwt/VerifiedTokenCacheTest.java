@@ -0,0 +1,131 @@
+package com.example.jwt_redis.jwt;
+
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import com.example.jwt_redis.redis.ClientSideCache;
+import com.example.jwt_redis.redis.RedisCircuitBreaker;
+import com.example.jwt_redis.redis.RevokedTokenStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 검증된 토큰 캐시가 토큰의 exp에 맞춰 비워지는지, 캐시에서 찾은 토큰도 JwtFilter가 폐기 여부를 확인하는지 확인한다.
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = "c2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQtc2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQK";
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void expiresEntryAtTokenExpiration() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100);
+        // exp는 초 단위로 저장된다.
+        long expiresAtMillis = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        cache.put("token", claims("jti", expiresAtMillis), authentication());
+
+        assertThat(cache.get("token")).isNotNull();
+        assertThat(cache.get("token").getJti()).isEqualTo("jti");
+
+        Thread.sleep(expiresAtMillis - System.currentTimeMillis() + 100);
+        assertThat(cache.get("token")).isNull();
+    }
+
+    @Test
+    void doesNotCacheTokenWithoutExpiration() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100);
+        Claims claims = Jwts.claims();
+        claims.setId("jti");
+
+        cache.put("token", claims, authentication());
+
+        assertThat(cache.get("token")).isNull();
+    }
+
+    @Test
+    void invalidatesEntryAndDoesNothingWhenDisabled() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100);
+        cache.put("token", claims("jti", System.currentTimeMillis() + 60000), authentication());
+        cache.invalidate("token");
+        assertThat(cache.get("token")).isNull();
+
+        VerifiedTokenCache disabled = new VerifiedTokenCache(false, 100);
+        disabled.put("token", claims("jti", System.currentTimeMillis() + 60000), authentication());
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.get("token")).isNull();
+    }
+
+    @Test
+    void filterRejectsRevokedTokenFoundInCache() throws Exception {
+        try (EmbeddedRedis redis = EmbeddedRedis.start()) {
+            RevokedTokenStore revokedTokenStore = new RevokedTokenStore(redis.stringRedisTemplate(),
+                    new RedisCircuitBreaker(5, 5000), ClientSideCache.disabled(), 1000, 0.01, 1800);
+            VerifiedTokenCache cache = new VerifiedTokenCache(true, 100);
+            TokenProvider tokenProvider = tokenProvider();
+            JwtFilter filter = new JwtFilter(tokenProvider, cache, revokedTokenStore, new SecurityEventLogger(),
+                    TokenVersionChecker.disabled(), request -> false);
+            TokenProvider.IssuedToken issued = tokenProvider.issueToken(authentication(), null);
+
+            filter.doFilter(request(issued.getToken()), new MockHttpServletResponse(), new MockFilterChain());
+            assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+            assertThat(cache.get(issued.getToken())).isNotNull();
+            SecurityContextHolder.clearContext();
+
+            // 캐시에 남아있는 토큰이라도 폐기된 뒤에는 인증하지 않고 캐시에서 지운다.
+            revokedTokenStore.revoke(issued.getJti(), issued.getExpiration());
+            filter.doFilter(request(issued.getToken()), new MockHttpServletResponse(), new MockFilterChain());
+
+            assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+            assertThat(cache.get(issued.getToken())).isNull();
+        }
+    }
+
+    private static Claims claims(String jti, long expiresAtMillis) {
+        Claims claims = Jwts.claims();
+        claims.setId(jti);
+        claims.setExpiration(new Date(expiresAtMillis));
+        return claims;
+    }
+
+    private static Authentication authentication() {
+        return new UsernamePasswordAuthenticationToken("admin", null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    private static TokenProvider tokenProvider() throws Exception {
+        JwtKeyManager keyManager = new JwtKeyManager("HS512", SECRET, 1800, 86400000, 30000,
+                new StringRedisTemplate(), new ObjectMapper());
+        keyManager.afterPropertiesSet();
+        Map<String, Integer> bits = new HashMap<>();
+        bits.put("ROLE_USER", 0);
+        TokenProvider tokenProvider = new TokenProvider(1800, new SimpleMeterRegistry(), keyManager,
+                AuthorityCodec.forBits(bits), false);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/hello");
+        request.addHeader(JwtFilter.AUTHORIZATION_HEADER, "Bearer " + token);
+        return request;
+    }
+}
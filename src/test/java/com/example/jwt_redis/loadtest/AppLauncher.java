@@ -0,0 +1,110 @@
+package com.example.jwt_redis.loadtest;
+
+import com.example.jwt_redis.JwtRedisApplication;
+import com.example.jwt_redis.dto.TokenDto;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// embedded Redis에 붙은 앱을 임의의 포트로 띄우고 HTTP로 호출하는 도구 (부하 테스트, 스모크 테스트)
+// 모든 테스트에 공통인 설정(server.port=0, Redis 포트, rate limit 끄기)만 넣고 나머지는 start에 넘긴다.
+public final class AppLauncher implements AutoCloseable {
+
+    // 측정에 영향을 주지 않도록 SQL과 애플리케이션 debug 로그를 끈다.
+    static final String QUIET_SQL = "spring.jpa.properties.hibernate.show_sql=false";
+    static final String QUIET_LOGGING = "logging.level.com.example=INFO";
+
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+
+    private AppLauncher(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    // profile이 null이면 기본 프로필로 띄운다. properties는 공통 설정보다 우선한다.
+    // SpringApplicationBuilder.properties()는 application.yml보다 우선순위가 낮은 기본값이므로 커맨드라인 인자로 넘긴다.
+    public static AppLauncher start(EmbeddedRedis redis, String profile, String... properties) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        put(settings, "server.port=0");
+        put(settings, "spring.redis.port=" + redis.getPort());
+        put(settings, "rate-limit.enabled=false");
+        for (String property : properties) {
+            put(settings, property);
+        }
+        String[] args = settings.entrySet().stream()
+                .map(setting -> "--" + setting.getKey() + "=" + setting.getValue())
+                .toArray(String[]::new);
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(JwtRedisApplication.class);
+        if (profile != null) {
+            builder.profiles(profile);
+        }
+        return new AppLauncher(builder.run(args));
+    }
+
+    // 같은 키를 두 번 넘기면 커맨드라인 값이 목록이 되므로 마지막 값만 남긴다.
+    private static void put(Map<String, String> settings, String property) {
+        int separator = property.indexOf('=');
+        settings.put(property.substring(0, separator), property.substring(separator + 1));
+    }
+
+    public ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    // data.sql의 admin 계정으로 로그인한다.
+    public Mono<TokenDto> login(WebClient webClient) {
+        Map<String, String> body = new HashMap<>();
+        body.put("username", "admin");
+        body.put("password", "admin");
+        return webClient.post().uri(baseUrl + "/api/authenticate")
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(TokenDto.class);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    // 동시에 maxConnections개까지 요청을 보내는 WebClient. 커넥션을 기다리는 요청 수는 제한하지 않는다.
+    public static final class Client implements AutoCloseable {
+
+        private final ConnectionProvider connectionProvider;
+        private final WebClient webClient;
+
+        public Client(String name, int maxConnections) {
+            this.connectionProvider = ConnectionProvider.builder(name)
+                    .maxConnections(maxConnections)
+                    .pendingAcquireMaxCount(-1)
+                    .build();
+            this.webClient = WebClient.builder()
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                    .build();
+        }
+
+        public WebClient getWebClient() {
+            return webClient;
+        }
+
+        @Override
+        public void close() {
+            connectionProvider.dispose();
+        }
+    }
+}
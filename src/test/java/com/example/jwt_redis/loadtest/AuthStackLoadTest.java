@@ -0,0 +1,78 @@
+package com.example.jwt_redis.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// servlet 스택(Tomcat + JwtFilter)과 reactive 스택(Netty + WebFilter)을 같은 조건으로 띄워서 비교하는 부하 테스트
+// ./gradlew loadTest 로 실행한다. (일반 test 태스크에서는 제외된다)
+// 시나리오
+// - user  : 로그인한 토큰으로 GET /api/user (토큰 검증 + 유저 조회)
+//           servlet 스택은 유저 스냅샷 캐시를 거치고, reactive 스택은 매번 R2DBC로 조회한다.
+// - login : POST /api/authenticate (BCrypt 검증, password-hashing 스레드 수로 처리량이 제한된다)
+@Tag("load")
+class AuthStackLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 512);
+    private static final int USER_REQUESTS = Integer.getInteger("load.user-requests", 50000);
+    private static final int LOGIN_REQUESTS = Integer.getInteger("load.login-requests", 500);
+
+    private static EmbeddedRedis redis;
+    private static AppLauncher.Client client;
+    private static WebClient webClient;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        client = new AppLauncher.Client("load-test", CONCURRENCY);
+        webClient = client.getWebClient();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        client.close();
+        redis.close();
+    }
+
+    @Test
+    void compareServletAndReactiveStacks() {
+        Map<String, LoadResult[]> results = new HashMap<>();
+        for (String stack : new String[]{"servlet", "reactive"}) {
+            try (AppLauncher app = AppLauncher.start(redis, "reactive".equals(stack) ? "reactive" : null,
+                    AppLauncher.QUIET_SQL, AppLauncher.QUIET_LOGGING)) {
+                String token = app.login(webClient).block(Duration.ofSeconds(10)).getToken();
+
+                run(app.getBaseUrl(), token, 2000); // warm-up
+                LoadResult user = run(app.getBaseUrl(), token, USER_REQUESTS);
+                LoadResult login = LoadResult.measure(LOGIN_REQUESTS, CONCURRENCY, () -> app.login(webClient).then());
+                results.put(stack, new LoadResult[]{user, login});
+            }
+        }
+
+        LoadResult.printHeader("stack");
+        for (String stack : new String[]{"servlet", "reactive"}) {
+            results.get(stack)[0].print(stack, "user");
+            results.get(stack)[1].print(stack, "login");
+        }
+
+        assertThat(results.get("servlet")[0].errors).isZero();
+        assertThat(results.get("reactive")[0].errors).isZero();
+    }
+
+    private static LoadResult run(String baseUrl, String token, int requests) {
+        return LoadResult.measure(requests, CONCURRENCY, () -> webClient.get().uri(baseUrl + "/api/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .toBodilessEntity()
+                .then());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.jwt_redis.loadtest;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+// 테스트에서 사용하는 embedded Redis (Redis 단위 테스트, 부하 테스트, 스모크 테스트)
+// 비어 있는 포트를 골라서 띄우므로 테스트 클래스마다 포트를 따로 정하지 않아도 되고 동시에 실행해도 겹치지 않는다.
+// 앱(AppLauncher)이 붙을 수 있도록 application.yml의 spring.redis.password와 같은 비밀번호를 설정한다.
+public final class EmbeddedRedis implements AutoCloseable {
+
+    static final String PASSWORD = "1234";
+
+    private final RedisServer server;
+    private final int port;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+
+    private EmbeddedRedis(RedisServer server, int port) {
+        this.server = server;
+        this.port = port;
+    }
+
+    public static EmbeddedRedis start() {
+        int port = freePort();
+        RedisServer server = RedisServer.builder().port(port).setting("requirepass " + PASSWORD).build();
+        server.start();
+        return new EmbeddedRedis(server, port);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    // 앱 없이 Redis 저장소를 직접 만들어서 테스트할 때 사용한다. 처음 호출할 때 연결한다.
+    public synchronized StringRedisTemplate stringRedisTemplate() {
+        if (redisTemplate == null) {
+            RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration("localhost", port);
+            configuration.setPassword(PASSWORD);
+            connectionFactory = new LettuceConnectionFactory(configuration);
+            connectionFactory.afterPropertiesSet();
+            redisTemplate = new StringRedisTemplate(connectionFactory);
+        }
+        return redisTemplate;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        server.stop();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.jwt_redis.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// 부하 테스트 한 번의 결과 (처리량, 지연시간 분포, 에러 수)
+final class LoadResult {
+
+    final double throughput;
+    final int errors;
+    private final long[] sortedLatencies;
+
+    private LoadResult(int requests, long elapsedNanos, long[] latencies, int errors) {
+        this.throughput = requests / (elapsedNanos / 1_000_000_000.0);
+        this.sortedLatencies = latencies.clone();
+        Arrays.sort(sortedLatencies);
+        this.errors = errors;
+    }
+
+    // request가 만드는 요청을 동시에 concurrency개까지 보내면서 requests번 실행한다.
+    static LoadResult measure(int requests, int concurrency, Supplier<Mono<Void>> request) {
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long requestStart = System.nanoTime();
+                    return request.get()
+                            .doOnError(e -> errors.incrementAndGet())
+                            .onErrorResume(e -> Mono.empty())
+                            .doFinally(signal -> latencies[i] = System.nanoTime() - requestStart);
+                }, concurrency)
+                .blockLast(Duration.ofMinutes(10));
+        long elapsed = System.nanoTime() - start;
+        return new LoadResult(requests, elapsed, latencies, errors.get());
+    }
+
+    // 응답 시간과 관계없이 초당 ratePerSecond개의 요청을 duration 동안 일정한 간격으로 보낸다. (open model)
+    // 지연시간은 요청을 보내야 했던 시각부터 재기 때문에 서버가 밀려서 늦게 보낸 요청의 대기 시간도 포함된다.
+    // 진행 중인 요청이 maxInFlight개가 되면 더 보내지 않고 기다린다. (클라이언트 메모리 보호)
+    static LoadResult measureAtRate(double ratePerSecond, Duration duration, int maxInFlight, Supplier<Mono<Void>> request) {
+        int requests = (int) (ratePerSecond * duration.toMillis() / 1000);
+        double intervalNanos = 1_000_000_000.0 / ratePerSecond;
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .delayUntil(i -> {
+                    long wait = start + (long) (i * intervalNanos) - System.nanoTime();
+                    return wait > 0 ? Mono.delay(Duration.ofNanos(wait)) : Mono.empty();
+                })
+                .flatMap(i -> {
+                    long scheduled = start + (long) (i * intervalNanos);
+                    return request.get()
+                            .doOnError(e -> errors.incrementAndGet())
+                            .onErrorResume(e -> Mono.empty())
+                            .doFinally(signal -> latencies[i] = System.nanoTime() - scheduled);
+                }, maxInFlight)
+                .blockLast(duration.plus(Duration.ofMinutes(10)));
+        long elapsed = System.nanoTime() - start;
+        return new LoadResult(requests, elapsed, latencies, errors.get());
+    }
+
+    double percentileMillis(double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    static void printHeader(String first) {
+        System.out.printf("%n%-10s %-8s %10s %10s %10s %10s %8s%n", first, "scenario", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "errors");
+    }
+
+    void print(String first, String scenario) {
+        System.out.printf("%-10s %-8s %10.0f %10.2f %10.2f %10.2f %8d%n", first, scenario, throughput,
+                percentileMillis(0.50), percentileMillis(0.99), percentileMillis(0.999), errors);
+    }
+
+    // 빌드 간 비교를 위해 시나리오별 결과를 JSON 파일로 남긴다.
+    static void writeJson(Path file, Map<String, Object> metadata, Map<String, LoadResult> results) throws IOException {
+        List<Map<String, Object>> scenarios = new ArrayList<>();
+        for (Map.Entry<String, LoadResult> entry : results.entrySet()) {
+            LoadResult result = entry.getValue();
+            Map<String, Object> scenario = new LinkedHashMap<>();
+            scenario.put("name", entry.getKey());
+            scenario.put("requests", result.sortedLatencies.length);
+            scenario.put("errors", result.errors);
+            scenario.put("throughput", result.throughput);
+            scenario.put("p50Ms", result.percentileMillis(0.50));
+            scenario.put("p99Ms", result.percentileMillis(0.99));
+            scenario.put("p999Ms", result.percentileMillis(0.999));
+            scenario.put("maxMs", result.percentileMillis(1.0));
+            scenarios.add(scenario);
+        }
+        Map<String, Object> report = new LinkedHashMap<>(metadata);
+        report.put("scenarios", scenarios);
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+}
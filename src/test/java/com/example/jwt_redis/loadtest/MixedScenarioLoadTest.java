@@ -0,0 +1,219 @@
+package com.example.jwt_redis.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// embedded Redis와 인메모리 H2로 앱을 띄우고 여러 API를 동시에 호출하는 부하 테스트
+// 시나리오마다 초당 요청 수를 정해두고 응답과 관계없이 그 간격으로 요청을 보낸다. (LoadResult.measureAtRate)
+// ./gradlew loadTest --tests '*MixedScenarioLoadTest' -Dload.mixed.rate.user=2000 -Dload.build-id=$(git rev-parse --short HEAD)
+// 시나리오 (기본 초당 요청 수)
+// - signup       : POST /api/signup, 매번 새 유저 (20)
+// - authenticate : POST /api/authenticate, admin 로그인 (20)
+// - user         : GET /api/user (500)
+// - redis        : GET /api/redisTest/{key} (500)
+// 결과는 콘솔과 build/load-results/mixed-scenarios.json(load.results-file)에 남긴다.
+//
+// login storm: 해싱 스레드가 처리할 수 있는 것보다 많은 로그인이 몰릴 때 GET /api/hello 지연시간이 얼마나 늘어나는지 비교한다.
+// - idle  : /api/hello만 보낸다. (load.mixed.rate.hello, 기본 500)
+// - storm : 같은 /api/hello와 함께 POST /api/authenticate를 load.mixed.storm.rate(기본 코어 수 * 50)로 보낸다.
+//           bcrypt cost 10은 코어 하나에서 초당 10~15번 정도라서 기본값은 해싱 처리량의 3배를 넘는다. 넘친 로그인은 503으로 거절된다.
+// 결과는 build/load-results/login-storm.json(load.storm-results-file)에 남긴다.
+@Tag("load")
+class MixedScenarioLoadTest {
+
+    private static final int DURATION_SECONDS = Integer.getInteger("load.mixed.duration-seconds", 30);
+    private static final int WARM_UP_SECONDS = Integer.getInteger("load.mixed.warm-up-seconds", 10);
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("load.mixed.max-in-flight", 2000);
+    private static final String RESULTS_FILE = System.getProperty("load.results-file", "build/load-results/mixed-scenarios.json");
+    private static final String STORM_RESULTS_FILE = System.getProperty("load.storm-results-file", "build/load-results/login-storm.json");
+    private static final String[] REDIS_KEYS = {"yellow", "red", "green"}; // POST /api/redisTest가 저장하는 키
+
+    private static EmbeddedRedis redis;
+    private static AppLauncher.Client client;
+    private static WebClient webClient;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        client = new AppLauncher.Client("mixed-load-test", MAX_IN_FLIGHT);
+        webClient = client.getWebClient();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        client.close();
+        redis.close();
+    }
+
+    @Test
+    void runMixedScenarios() throws Exception {
+        Map<String, Double> rates = new LinkedHashMap<>();
+        rates.put("signup", rate("signup", 20));
+        rates.put("authenticate", rate("authenticate", 20));
+        rates.put("user", rate("user", 500));
+        rates.put("redis", rate("redis", 500));
+
+        Map<String, LoadResult> results;
+        try (AppLauncher app = start()) {
+            String token = app.login(webClient).block(Duration.ofSeconds(10)).getToken();
+            webClient.post().uri(app.getBaseUrl() + "/api/redisTest").retrieve().toBodilessEntity().block(Duration.ofSeconds(10));
+
+            Map<String, Supplier<Mono<Void>>> scenarios = scenarios(app, token);
+            runAll(scenarios, rates, Duration.ofSeconds(WARM_UP_SECONDS));
+            results = runAll(scenarios, rates, Duration.ofSeconds(DURATION_SECONDS));
+        }
+
+        LoadResult.printHeader("run");
+        for (Map.Entry<String, LoadResult> entry : results.entrySet()) {
+            entry.getValue().print("mixed", entry.getKey());
+        }
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("test", "mixed-scenarios");
+        metadata.put("buildId", System.getProperty("load.build-id", "local"));
+        metadata.put("timestamp", Instant.now().toString());
+        metadata.put("javaVersion", System.getProperty("java.version"));
+        metadata.put("durationSeconds", DURATION_SECONDS);
+        metadata.put("maxInFlight", MAX_IN_FLIGHT);
+        metadata.put("targetRates", rates);
+        Path resultsFile = Paths.get(RESULTS_FILE);
+        LoadResult.writeJson(resultsFile, metadata, results);
+        System.out.println("결과 파일: " + resultsFile.toAbsolutePath());
+
+        assertThat(results.get("user").errors).isZero();
+        assertThat(results.get("redis").errors).isZero();
+    }
+
+    @Test
+    void measureHelloLatencyDuringLoginStorm() throws Exception {
+        double helloRate = rate("hello", 500);
+        double stormRate = Double.parseDouble(System.getProperty("load.mixed.storm.rate",
+                String.valueOf(Runtime.getRuntime().availableProcessors() * 50)));
+
+        Map<String, LoadResult> results = new LinkedHashMap<>();
+        try (AppLauncher app = start()) {
+            Map<String, Supplier<Mono<Void>>> scenarios = new LinkedHashMap<>();
+            scenarios.put("hello", () -> webClient.get().uri(app.getBaseUrl() + "/api/hello")
+                    .retrieve()
+                    .toBodilessEntity()
+                    .then());
+            scenarios.put("authenticate", () -> app.login(webClient).then());
+
+            Map<String, Double> rates = new LinkedHashMap<>();
+            rates.put("hello", helloRate);
+            rates.put("authenticate", stormRate);
+            Map<String, Supplier<Mono<Void>>> helloOnly = new LinkedHashMap<>();
+            helloOnly.put("hello", scenarios.get("hello"));
+
+            runAll(scenarios, rates, Duration.ofSeconds(WARM_UP_SECONDS));
+            results.put("hello-idle", runAll(helloOnly, rates, Duration.ofSeconds(DURATION_SECONDS)).get("hello"));
+            Map<String, LoadResult> storm = runAll(scenarios, rates, Duration.ofSeconds(DURATION_SECONDS));
+            results.put("hello-storm", storm.get("hello"));
+            results.put("authenticate-storm", storm.get("authenticate"));
+        }
+
+        LoadResult.printHeader("run");
+        results.get("hello-idle").print("idle", "hello");
+        results.get("hello-storm").print("storm", "hello");
+        results.get("authenticate-storm").print("storm", "authenticate");
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("test", "login-storm");
+        metadata.put("buildId", System.getProperty("load.build-id", "local"));
+        metadata.put("timestamp", Instant.now().toString());
+        metadata.put("javaVersion", System.getProperty("java.version"));
+        metadata.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        metadata.put("durationSeconds", DURATION_SECONDS);
+        metadata.put("helloRate", helloRate);
+        metadata.put("stormRate", stormRate);
+        Path resultsFile = Paths.get(STORM_RESULTS_FILE);
+        LoadResult.writeJson(resultsFile, metadata, results);
+        System.out.println("결과 파일: " + resultsFile.toAbsolutePath());
+
+        // 해싱은 전용 스레드풀에서 하므로 로그인이 거절되더라도 /api/hello는 실패하지 않아야 한다.
+        assertThat(results.get("hello-idle").errors).isZero();
+        assertThat(results.get("hello-storm").errors).isZero();
+    }
+
+    private static double rate(String scenario, double defaultRate) {
+        return Double.parseDouble(System.getProperty("load.mixed.rate." + scenario, String.valueOf(defaultRate)));
+    }
+
+    private static AppLauncher start() {
+        return AppLauncher.start(redis, null, AppLauncher.QUIET_SQL, AppLauncher.QUIET_LOGGING);
+    }
+
+    private static Map<String, Supplier<Mono<Void>>> scenarios(AppLauncher app, String token) {
+        String baseUrl = app.getBaseUrl();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        AtomicInteger signups = new AtomicInteger();
+        AtomicInteger redisReads = new AtomicInteger();
+
+        Map<String, Supplier<Mono<Void>>> scenarios = new LinkedHashMap<>();
+        scenarios.put("signup", () -> {
+            Map<String, String> body = new HashMap<>();
+            String username = "load-" + runId + "-" + signups.incrementAndGet();
+            body.put("username", username);
+            body.put("password", "load-password");
+            body.put("nickname", username);
+            return webClient.post().uri(baseUrl + "/api/signup")
+                    .bodyValue(body)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .then();
+        });
+        scenarios.put("authenticate", () -> app.login(webClient).then());
+        scenarios.put("user", () -> webClient.get().uri(baseUrl + "/api/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .toBodilessEntity()
+                .then());
+        scenarios.put("redis", () -> webClient.get()
+                .uri(baseUrl + "/api/redisTest/{key}", REDIS_KEYS[Math.floorMod(redisReads.incrementAndGet(), REDIS_KEYS.length)])
+                .retrieve()
+                .toBodilessEntity()
+                .then());
+        return scenarios;
+    }
+
+    // 모든 시나리오를 동시에 실행한다. 시나리오마다 요청 간격을 맞추는 스레드 하나씩 사용한다.
+    private static Map<String, LoadResult> runAll(Map<String, Supplier<Mono<Void>>> scenarios, Map<String, Double> rates,
+                                                  Duration duration) {
+        ExecutorService executor = Executors.newFixedThreadPool(scenarios.size());
+        try {
+            Map<String, CompletableFuture<LoadResult>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, Supplier<Mono<Void>>> entry : scenarios.entrySet()) {
+                double rate = rates.get(entry.getKey());
+                futures.put(entry.getKey(), CompletableFuture.supplyAsync(
+                        () -> LoadResult.measureAtRate(rate, duration, MAX_IN_FLIGHT, entry.getValue()), executor));
+            }
+            Map<String, LoadResult> results = new LinkedHashMap<>();
+            for (Map.Entry<String, CompletableFuture<LoadResult>> entry : futures.entrySet()) {
+                results.put(entry.getKey(), entry.getValue().join());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
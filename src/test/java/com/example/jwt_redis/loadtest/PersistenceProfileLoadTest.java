@@ -0,0 +1,144 @@
+package com.example.jwt_redis.loadtest;
+
+import com.example.jwt_redis.entity.Authority;
+import com.example.jwt_redis.entity.User;
+import com.example.jwt_redis.repository.AuthorityRepository;
+import com.example.jwt_redis.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 기본 설정(인메모리 H2, show_sql)과 prod 프로필(파일 H2, Hikari 튜닝, batch fetch, 2차 캐시, replica 라우팅)의
+// DB 조회 비용을 비교하는 부하 테스트. ./gradlew loadTest 로 실행한다.
+// 시나리오
+// - login : 로그인에서 유저 캐시가 miss일 때 실행되는 조회 (findOneWithAuthoritiesByUsername)
+// - list  : 유저 100명을 조회하고 authorities를 지연 로딩 (batch fetch가 없으면 1 + 100번 조회)
+// 쿼리 수는 Hibernate statistics의 prepared statement 수를 요청 수로 나눈 값이다.
+@Tag("load")
+class PersistenceProfileLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.db-concurrency", 16);
+    private static final int REQUESTS = Integer.getInteger("load.db-requests", 20000);
+    private static final int LIST_REQUESTS = Integer.getInteger("load.db-list-requests", 500);
+    private static final int USERS = 100;
+
+    private static EmbeddedRedis redis;
+    private static Path h2Directory;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        redis = EmbeddedRedis.start();
+        h2Directory = Files.createTempDirectory("jwt-redis-h2");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void compareDefaultAndProdProfiles() {
+        Map<String, ProfileResult> results = new LinkedHashMap<>();
+        for (String profile : new String[]{"default", "prod"}) {
+            try (AppLauncher app = start(profile)) {
+                ConfigurableApplicationContext context = app.getContext();
+                UserRepository userRepository = context.getBean(UserRepository.class);
+                TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+                readOnly.setReadOnly(true);
+                Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+                seedUsers(context);
+
+                Supplier<Mono<Void>> login = () -> Mono.<Void>fromRunnable(
+                        () -> userRepository.findOneWithAuthoritiesByUsername("admin")).subscribeOn(Schedulers.boundedElastic());
+                Supplier<Mono<Void>> list = () -> Mono.<Void>fromRunnable(() -> readOnly.executeWithoutResult(status ->
+                        userRepository.findAll().forEach(user -> user.getAuthorities().size()))).subscribeOn(Schedulers.boundedElastic());
+
+                LoadResult.measure(1000, CONCURRENCY, login); // warm-up
+                statistics.clear();
+                LoadResult loginResult = LoadResult.measure(REQUESTS, CONCURRENCY, login);
+                double loginQueries = statistics.getPrepareStatementCount() / (double) REQUESTS;
+
+                statistics.clear();
+                LoadResult listResult = LoadResult.measure(LIST_REQUESTS, CONCURRENCY, list);
+                double listQueries = statistics.getPrepareStatementCount() / (double) LIST_REQUESTS;
+
+                results.put(profile, new ProfileResult(loginResult, loginQueries, listResult, listQueries));
+            }
+        }
+
+        LoadResult.printHeader("profile");
+        for (Map.Entry<String, ProfileResult> entry : results.entrySet()) {
+            entry.getValue().login.print(entry.getKey(), "login");
+            entry.getValue().list.print(entry.getKey(), "list");
+        }
+        System.out.printf("%n%-10s %12s %12s%n", "profile", "login q/op", "list q/op");
+        for (Map.Entry<String, ProfileResult> entry : results.entrySet()) {
+            System.out.printf("%-10s %12.2f %12.2f%n", entry.getKey(), entry.getValue().loginQueries, entry.getValue().listQueries);
+        }
+
+        assertThat(results.get("prod").listQueries).isLessThan(results.get("default").listQueries);
+    }
+
+    // 기본 프로필의 show_sql은 비교 대상이므로 끄지 않는다.
+    private static AppLauncher start(String profile) {
+        String h2Url = "jdbc:h2:file:" + h2Directory.resolve("jwt-redis").toAbsolutePath() + ";QUERY_CACHE_SIZE=64";
+        return AppLauncher.start(redis, "prod".equals(profile) ? "prod" : null,
+                "spring.jpa.properties.hibernate.generate_statistics=true",
+                "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+                "DB_URL=" + h2Url,
+                "DB_REPLICA_URL=" + h2Url);
+    }
+
+    // data.sql의 admin 외에 ROLE_USER 권한을 가진 유저를 만든다. 비밀번호 해싱은 측정과 관계없으므로 admin의 해시를 그대로 쓴다.
+    private static void seedUsers(ConfigurableApplicationContext context) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        Authority roleUser = context.getBean(AuthorityRepository.class).findById("ROLE_USER").get();
+        String password = userRepository.findOneWithAuthoritiesByUsername("admin").get().getPassword();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(User.builder()
+                    .username("load-user-" + i)
+                    .password(password)
+                    .nickname("load-user-" + i)
+                    .activated(true)
+                    .authorities(Collections.singleton(roleUser))
+                    .build());
+        }
+        userRepository.saveAll(users);
+    }
+
+    private static final class ProfileResult {
+        private final LoadResult login;
+        private final double loginQueries;
+        private final LoadResult list;
+        private final double listQueries;
+
+        private ProfileResult(LoadResult login, double loginQueries, LoadResult list, double listQueries) {
+            this.login = login;
+            this.loginQueries = loginQueries;
+            this.list = list;
+            this.listQueries = listQueries;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.jwt_redis.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Tomcat worker 스레드(platform thread)와 virtual thread의 처리량을 높은 동시성에서 비교하는 부하 테스트
+// JDK 21 이상에서만 실행된다. ./gradlew loadTest -PruntimeJavaVersion=21
+// 시나리오 (둘 다 요청 스레드가 Redis/DB 응답을 기다리는 블로킹 호출이다)
+// - user  : GET /api/user, near cache를 꺼서 매 요청마다 토큰 검증 + Redis GET + 트랜잭션(JDBC 커넥션)을 거친다.
+// - batch : POST /api/redis/batch/get, 100개 키를 MGET
+// platform 모드는 load.platform-threads(기본 50)개의 worker 스레드로 load.concurrency(기본 1000)개의 동시 요청을 받는다.
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 1000);
+    private static final int PLATFORM_THREADS = Integer.getInteger("load.platform-threads", 50);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 50000);
+    private static final int BATCH_KEYS = 100;
+
+    private static EmbeddedRedis redis;
+    private static AppLauncher.Client client;
+    private static WebClient webClient;
+
+    @BeforeAll
+    static void setUp() {
+        Assumptions.assumeTrue(supportsVirtualThreads(), "virtual thread는 JDK 21 이상에서만 사용할 수 있습니다.");
+
+        redis = EmbeddedRedis.start();
+        client = new AppLauncher.Client("virtual-thread-load-test", CONCURRENCY);
+        webClient = client.getWebClient();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (redis == null) {
+            return;
+        }
+        client.close();
+        redis.close();
+    }
+
+    @Test
+    void comparePlatformAndVirtualThreads() {
+        Map<String, LoadResult[]> results = new LinkedHashMap<>();
+        for (String mode : new String[]{"platform", "virtual"}) {
+            try (AppLauncher app = start(mode)) {
+                String baseUrl = app.getBaseUrl();
+                String token = app.login(webClient).block(Duration.ofSeconds(10)).getToken();
+                List<String> keys = writeBatch(baseUrl, token);
+
+                runUser(baseUrl, token, 2000); // warm-up
+                LoadResult user = runUser(baseUrl, token, REQUESTS);
+                LoadResult batch = runBatch(baseUrl, token, keys);
+                results.put(mode, new LoadResult[]{user, batch});
+            }
+        }
+
+        LoadResult.printHeader("threads");
+        for (Map.Entry<String, LoadResult[]> entry : results.entrySet()) {
+            entry.getValue()[0].print(entry.getKey(), "user");
+            entry.getValue()[1].print(entry.getKey(), "batch");
+        }
+
+        assertThat(results.get("virtual")[0].errors).isZero();
+        assertThat(results.get("virtual")[1].errors).isZero();
+    }
+
+    private static boolean supportsVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static AppLauncher start(String mode) {
+        return AppLauncher.start(redis, null,
+                "server.tomcat.threads.max=" + PLATFORM_THREADS,
+                "server.tomcat.max-connections=" + (CONCURRENCY * 2),
+                "server.tomcat.accept-count=" + CONCURRENCY,
+                "server.tomcat.virtual-threads=" + "virtual".equals(mode),
+                AppLauncher.QUIET_SQL,
+                AppLauncher.QUIET_LOGGING,
+                "user-cache.near.maximum-size=0");
+    }
+
+    private static List<String> writeBatch(String baseUrl, String token) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 0; i < BATCH_KEYS; i++) {
+            entries.put("load:vt:" + i, "value-" + i);
+        }
+        webClient.post().uri(baseUrl + "/api/redis/batch")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(Collections.singletonMap("entries", entries))
+                .retrieve()
+                .toBodilessEntity()
+                .block(Duration.ofSeconds(10));
+        return new ArrayList<>(entries.keySet());
+    }
+
+    private static LoadResult runUser(String baseUrl, String token, int requests) {
+        return LoadResult.measure(requests, CONCURRENCY, () -> webClient.get().uri(baseUrl + "/api/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .toBodilessEntity()
+                .then());
+    }
+
+    private static LoadResult runBatch(String baseUrl, String token, List<String> keys) {
+        Map<String, List<String>> body = Collections.singletonMap("keys", keys);
+        return LoadResult.measure(REQUESTS, CONCURRENCY, () -> webClient.post().uri(baseUrl + "/api/redis/batch/get")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .then());
+    }
+}
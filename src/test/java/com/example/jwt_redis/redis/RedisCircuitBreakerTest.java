@@ -0,0 +1,79 @@
+package com.example.jwt_redis.redis;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.RedisSystemException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Redis 없이 연결 실패를 흉내내서 CLOSED -> OPEN -> HALF_OPEN -> CLOSED 전이를 확인한다.
+class RedisCircuitBreakerTest {
+
+    private static final Supplier<String> DOWN = () -> {
+        throw new RedisConnectionFailureException("connection refused");
+    };
+
+    @Test
+    void opensAfterConsecutiveFailuresAndClosesAfterTrialCall() throws InterruptedException {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(3, 50);
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<String> countedDown = () -> {
+            calls.incrementAndGet();
+            return DOWN.get();
+        };
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(breaker.execute(countedDown, () -> "fallback")).isEqualTo("fallback");
+        }
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+
+        // OPEN 동안에는 Redis를 호출하지 않는다.
+        assertThat(breaker.execute(countedDown, () -> "fallback")).isEqualTo("fallback");
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(breaker.getRejectedCalls()).isEqualTo(1);
+
+        Thread.sleep(60);
+        assertThat(breaker.execute(() -> "redis", () -> "fallback")).isEqualTo("redis");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getOpenTransitions()).isEqualTo(1);
+        assertThat(breaker.getHalfOpenTransitions()).isEqualTo(1);
+        assertThat(breaker.getClosedTransitions()).isEqualTo(1);
+    }
+
+    @Test
+    void reopensWhenTrialCallFails() throws InterruptedException {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(1, 50);
+        breaker.execute(DOWN, () -> "fallback");
+        Thread.sleep(60);
+
+        assertThat(breaker.execute(DOWN, () -> "fallback")).isEqualTo("fallback");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(breaker.getOpenTransitions()).isEqualTo(2);
+    }
+
+    @Test
+    void failsFastWithoutFallbackWhileOpen() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(1, 1000);
+
+        assertThatThrownBy(() -> breaker.execute(DOWN)).isInstanceOf(RedisUnavailableException.class);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        // OPEN 동안에는 Redis를 호출하지 않고 바로 거절한다.
+        assertThatThrownBy(() -> breaker.execute(() -> "redis")).isInstanceOf(RedisUnavailableException.class);
+        assertThat(breaker.getRejectedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void commandErrorsAreNotCountedAsOutage() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(1, 50);
+        Supplier<String> wrongType = () -> {
+            throw new RedisSystemException("WRONGTYPE", new IllegalStateException());
+        };
+
+        assertThatThrownBy(() -> breaker.execute(wrongType, () -> "fallback")).isInstanceOf(RedisSystemException.class);
+        assertThat(breaker.isClosed()).isTrue();
+    }
+}
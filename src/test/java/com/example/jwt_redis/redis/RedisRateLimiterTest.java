@@ -0,0 +1,56 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// embedded Redis에서 token bucket Lua 스크립트를 검증한다.
+class RedisRateLimiterTest {
+
+    private static EmbeddedRedis redis;
+    private static RedisRateLimiter redisRateLimiter;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        redisRateLimiter = new RedisRateLimiter(redis.stringRedisTemplate(), new RedisCircuitBreaker(5, 5000));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void rejectsWhenBucketIsEmptyAndReturnsWaitTime() {
+        RedisRateLimiter.Bucket bucket = new RedisRateLimiter.Bucket("ip:10.0.0.1", 3, 1);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(redisRateLimiter.acquire(Collections.singletonList(bucket))).isZero();
+        }
+        long waitMillis = redisRateLimiter.acquire(Collections.singletonList(bucket));
+
+        assertThat(waitMillis).isPositive().isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    void doesNotTakeTokensFromOtherBucketsWhenOneIsEmpty() {
+        RedisRateLimiter.Bucket ip = new RedisRateLimiter.Bucket("ip:10.0.0.2", 10, 1);
+        RedisRateLimiter.Bucket username = new RedisRateLimiter.Bucket("user:victim", 1, 0.01);
+
+        assertThat(redisRateLimiter.acquire(Arrays.asList(ip, username))).isZero();
+        assertThat(redisRateLimiter.acquire(Arrays.asList(ip, username))).isPositive();
+
+        // username bucket 때문에 거절된 요청은 IP bucket의 토큰을 쓰지 않는다.
+        for (int i = 0; i < 9; i++) {
+            assertThat(redisRateLimiter.acquire(Collections.singletonList(ip))).isZero();
+        }
+        assertThat(redisRateLimiter.acquire(Collections.singletonList(ip))).isPositive();
+    }
+}
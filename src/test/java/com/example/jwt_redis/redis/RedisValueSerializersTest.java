@@ -0,0 +1,87 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.dto.UserSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 형식(json, smile)과 LZ4 압축 설정별로 UserSnapshot이 그대로 읽히는지 확인한다.
+class RedisValueSerializersTest {
+
+    @Test
+    void roundTripsInEveryFormat() {
+        UserSnapshot small = new UserSnapshot("admin", "admin", true, Arrays.asList("ROLE_ADMIN", "ROLE_USER"));
+        UserSnapshot large = new UserSnapshot("admin", "admin", true, authorities(200));
+
+        for (String format : new String[]{"json", "smile"}) {
+            for (int threshold : new int[]{0, 256}) {
+                RedisSerializer<UserSnapshot> serializer =
+                        new RedisValueSerializers(format, threshold, new ObjectMapper()).forType(UserSnapshot.class);
+                for (UserSnapshot snapshot : new UserSnapshot[]{small, large}) {
+                    UserSnapshot read = serializer.deserialize(serializer.serialize(snapshot));
+                    assertThat(read).usingRecursiveComparison().isEqualTo(snapshot);
+                }
+            }
+        }
+    }
+
+    @Test
+    void compressesOnlyAboveThreshold() {
+        RedisSerializer<UserSnapshot> plain = new RedisValueSerializers("smile", 0, new ObjectMapper()).forType(UserSnapshot.class);
+        RedisSerializer<UserSnapshot> compressed = new RedisValueSerializers("smile", 256, new ObjectMapper()).forType(UserSnapshot.class);
+
+        UserSnapshot small = new UserSnapshot("admin", "admin", true, Arrays.asList("ROLE_ADMIN", "ROLE_USER"));
+        UserSnapshot large = new UserSnapshot("admin", "admin", true, authorities(200));
+
+        // threshold 미만은 형식 표시 1바이트만 붙는다.
+        assertThat(compressed.serialize(small)).hasSize(plain.serialize(small).length + 1);
+        assertThat(compressed.serialize(large).length).isLessThan(plain.serialize(large).length / 2);
+    }
+
+    @Test
+    void smileIsSmallerThanJson() {
+        UserSnapshot snapshot = new UserSnapshot("admin", "admin", true, authorities(20));
+        byte[] json = new RedisValueSerializers("json", 0, new ObjectMapper()).forType(UserSnapshot.class).serialize(snapshot);
+        byte[] smile = new RedisValueSerializers("smile", 0, new ObjectMapper()).forType(UserSnapshot.class).serialize(snapshot);
+
+        assertThat(smile.length).isLessThan(json.length);
+    }
+
+    // 비밀번호 해시는 캐시에 복제되지 않는다. 해시가 들어있던 예전 값도 읽을 수 있어야 한다.
+    @Test
+    void snapshotCarriesNoPasswordHash() {
+        RedisSerializer<UserSnapshot> json = new RedisValueSerializers("json", 0, new ObjectMapper()).forType(UserSnapshot.class);
+        UserSnapshot snapshot = new UserSnapshot("admin", "admin", true, Arrays.asList("ROLE_ADMIN", "ROLE_USER"));
+        assertThat(new String(json.serialize(snapshot), StandardCharsets.UTF_8)).doesNotContain("password");
+
+        byte[] legacy = ("{\"username\":\"admin\",\"password\":\"$2a$08$hash\",\"nickname\":\"admin\","
+                + "\"activated\":true,\"authorities\":[\"ROLE_USER\"]}").getBytes(StandardCharsets.UTF_8);
+        assertThat(json.deserialize(legacy).getAuthorities()).containsExactly("ROLE_USER");
+    }
+
+    // 압축 설정을 켜기 전에 저장된 JSON 값은 예외로 알려서 캐시 miss로 처리되게 한다.
+    @Test
+    void rejectsValuesWrittenWithoutCompressionHeader() {
+        RedisSerializer<UserSnapshot> compressed = new RedisValueSerializers("json", 256, new ObjectMapper()).forType(UserSnapshot.class);
+        byte[] legacy = "{\"username\":\"admin\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> compressed.deserialize(legacy)).isInstanceOf(SerializationException.class);
+    }
+
+    private static List<String> authorities(int count) {
+        List<String> authorities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            authorities.add("ROLE_PERMISSION_" + i);
+        }
+        return authorities;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 실제 Redis 대신 embedded Redis를 띄워서 Lua 스크립트 기반 rotation을 검증한다.
+class RefreshTokenRepositoryTest {
+
+    private static EmbeddedRedis redis;
+    private static RefreshTokenRepository refreshTokenRepository;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        redisTemplate = redis.stringRedisTemplate();
+        refreshTokenRepository = new RefreshTokenRepository(redisTemplate, new RedisCircuitBreaker(5, 5000), 60);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void rotateIssuesNewTokenOfSameFamily() {
+        RefreshTokenRepository.RefreshToken created = refreshTokenRepository.create("user:with:colons");
+        assertThat(created.getToken()).startsWith(created.getFamily() + ".");
+
+        RefreshTokenRepository.Rotation rotation = refreshTokenRepository.rotate(created.getToken());
+
+        assertThat(rotation.getStatus()).isEqualTo(RefreshTokenRepository.Rotation.Status.ROTATED);
+        assertThat(rotation.getUsername()).isEqualTo("user:with:colons");
+        assertThat(rotation.getFamily()).isEqualTo(created.getFamily());
+        assertThat(rotation.getRefreshToken()).startsWith(created.getFamily() + ".").isNotEqualTo(created.getToken());
+        assertThat(redisTemplate.getExpire(RefreshTokenRepository.tokenKey(created.getFamily()))).isPositive();
+        assertThat(redisTemplate.getExpire(RefreshTokenRepository.usedKey(created.getFamily()))).isPositive();
+    }
+
+    @Test
+    void keepsAllKeysOfFamilyInOneClusterSlot() {
+        RefreshTokenRepository.RefreshToken created = refreshTokenRepository.create("user");
+        refreshTokenRepository.rotate(created.getToken());
+
+        // Redis Cluster는 { } 안의 문자열(hash tag)로 슬롯을 정한다.
+        assertThat(redisTemplate.keys(RefreshTokenRepository.KEY_PREFIX + "*" + created.getFamily() + "*"))
+                .containsExactlyInAnyOrder(
+                        "refresh:{" + created.getFamily() + "}:token",
+                        "refresh:{" + created.getFamily() + "}:used");
+    }
+
+    @Test
+    void reusingRotatedTokenRevokesWholeFamily() {
+        String token = refreshTokenRepository.create("user").getToken();
+        RefreshTokenRepository.Rotation first = refreshTokenRepository.rotate(token);
+
+        RefreshTokenRepository.Rotation reuse = refreshTokenRepository.rotate(token);
+
+        assertThat(reuse.getStatus()).isEqualTo(RefreshTokenRepository.Rotation.Status.REUSED);
+        // 정상적으로 교체받았던 최신 토큰도 같이 폐기된다.
+        assertThat(refreshTokenRepository.rotate(first.getRefreshToken()).getStatus())
+                .isNotEqualTo(RefreshTokenRepository.Rotation.Status.ROTATED);
+    }
+
+    @Test
+    void revokedFamilyCannotBeRotated() {
+        RefreshTokenRepository.RefreshToken created = refreshTokenRepository.create("user");
+        RefreshTokenRepository.Rotation rotation = refreshTokenRepository.rotate(created.getToken());
+        assertThat(rotation.getFamily()).isEqualTo(created.getFamily());
+
+        refreshTokenRepository.revokeFamily(created.getFamily());
+
+        assertThat(refreshTokenRepository.rotate(rotation.getRefreshToken()).getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.INVALID);
+    }
+
+    @Test
+    void unknownTokenIsInvalid() {
+        assertThat(refreshTokenRepository.rotate("unknown").getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.INVALID);
+        assertThat(refreshTokenRepository.rotate("unknown.secret").getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.INVALID);
+        assertThat(refreshTokenRepository.rotate(".secret").getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.INVALID);
+        // family는 맞지만 발급된 적 없는 secret은 family를 폐기하지 않는다.
+        RefreshTokenRepository.RefreshToken created = refreshTokenRepository.create("user");
+        assertThat(refreshTokenRepository.rotate(created.getFamily() + ".guessed").getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.INVALID);
+        assertThat(refreshTokenRepository.rotate(created.getToken()).getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.ROTATED);
+    }
+}
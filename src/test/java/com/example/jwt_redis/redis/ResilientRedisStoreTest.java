@@ -0,0 +1,77 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 장애 중에 쌓인 쓰기와 삭제가 요청 없이도 writeBack만으로 Redis에 반영되는지 확인한다.
+// Redis는 그대로 두고 breaker만 연결 실패로 OPEN 시켜서 장애를 흉내낸다.
+class ResilientRedisStoreTest {
+
+    private static final long OPEN_DURATION_MILLIS = 500;
+
+    private static EmbeddedRedis redis;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        redisTemplate = redis.stringRedisTemplate();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void writeBackProbesRedisAndFlushesWithoutIncomingTraffic() throws InterruptedException {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(1, OPEN_DURATION_MILLIS);
+        ResilientRedisStore store = new ResilientRedisStore(redisTemplate, breaker, 4, 100, 1 << 20, 60, 10);
+        redisTemplate.opsForValue().set("idle:deleted", "old");
+
+        open(breaker);
+        store.set("idle:written", "value", 0);
+        store.delete("idle:deleted");
+        assertThat(store.getPendingWrites()).isEqualTo(2);
+
+        // open-duration-ms가 지나기 전에는 Redis를 호출하지 않는다.
+        store.writeBack();
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(redisTemplate.hasKey("idle:written")).isFalse();
+
+        Thread.sleep(OPEN_DURATION_MILLIS + 10);
+        store.writeBack();
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(redisTemplate.opsForValue().get("idle:written")).isEqualTo("value");
+        assertThat(redisTemplate.hasKey("idle:deleted")).isFalse();
+        assertThat(store.getPendingWrites()).isZero();
+        assertThat(store.getWrittenBack()).isEqualTo(2);
+    }
+
+    @Test
+    void writeBackDoesNotProbeWithoutPendingWrites() throws InterruptedException {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(1, OPEN_DURATION_MILLIS);
+        ResilientRedisStore store = new ResilientRedisStore(redisTemplate, breaker, 4, 100, 1 << 20, 60, 10);
+
+        open(breaker);
+        Thread.sleep(OPEN_DURATION_MILLIS + 10);
+        store.writeBack();
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(breaker.getHalfOpenTransitions()).isZero();
+    }
+
+    private static void open(RedisCircuitBreaker breaker) {
+        breaker.execute(() -> {
+            throw new RedisConnectionFailureException("connection refused");
+        }, () -> null);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+}
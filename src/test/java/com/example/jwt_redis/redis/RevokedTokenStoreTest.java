@@ -0,0 +1,136 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 폐기된 jti가 로컬 Bloom filter와 Redis에 반영되는 경로를 확인한다.
+// (세대 교체, 시작할 때의 SCAN, 다른 노드로의 pub/sub 전달, Redis 장애 중의 fail-closed)
+class RevokedTokenStoreTest {
+
+    private static EmbeddedRedis redis;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        redisTemplate = redis.stringRedisTemplate();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void revokesInRedisAndLocalFilter() {
+        RevokedTokenStore store = store(new RedisCircuitBreaker(5, 5000), 1800);
+        String jti = UUID.randomUUID().toString();
+
+        store.revoke(jti, expiresIn(60));
+
+        assertThat(store.isRevoked(jti)).isTrue();
+        assertThat(redisTemplate.getExpire(RevokedTokenStore.KEY_PREFIX + jti, TimeUnit.SECONDS)).isBetween(1L, 60L);
+        assertThat(store.isRevoked(UUID.randomUUID().toString())).isFalse();
+    }
+
+    @Test
+    void ignoresAlreadyExpiredToken() {
+        RevokedTokenStore store = store(new RedisCircuitBreaker(5, 5000), 1800);
+        String jti = UUID.randomUUID().toString();
+
+        store.revoke(jti, new Date(System.currentTimeMillis() - 1000));
+
+        assertThat(redisTemplate.hasKey(RevokedTokenStore.KEY_PREFIX + jti)).isFalse();
+        assertThat(store.mightBeRevoked(jti)).isFalse();
+    }
+
+    @Test
+    void keepsJtiForTwoGenerations() throws InterruptedException {
+        // 세대 길이는 토큰 수명(1초)과 같다.
+        RevokedTokenStore store = store(new RedisCircuitBreaker(5, 5000), 1);
+        String jti = UUID.randomUUID().toString();
+        store.revoke(jti, expiresIn(60));
+
+        // 한 번 교체된 뒤에는 이전 세대에 남아있다.
+        Thread.sleep(1100);
+        assertThat(store.mightBeRevoked(jti)).isTrue();
+
+        // 두 번 교체되면 버려진다.
+        Thread.sleep(1100);
+        assertThat(store.mightBeRevoked(jti)).isFalse();
+    }
+
+    @Test
+    void preloadsRevokedJtisFromRedisOnStartup() {
+        String jti = UUID.randomUUID().toString();
+        redisTemplate.opsForValue().set(RevokedTokenStore.KEY_PREFIX + jti, "1", 60, TimeUnit.SECONDS);
+
+        RevokedTokenStore restarted = store(new RedisCircuitBreaker(5, 5000), 1800);
+        restarted.afterPropertiesSet();
+
+        assertThat(restarted.mightBeRevoked(jti)).isTrue();
+        assertThat(restarted.isRevoked(jti)).isTrue();
+    }
+
+    @Test
+    void propagatesRevocationToOtherNodesByPubSub() throws Exception {
+        RevokedTokenStore nodeA = store(new RedisCircuitBreaker(5, 5000), 1800);
+        RevokedTokenStore nodeB = store(new RedisCircuitBreaker(5, 5000), 1800);
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        container.addMessageListener(nodeB, new ChannelTopic(RevokedTokenStore.CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        try {
+            String jti = UUID.randomUUID().toString();
+            // 구독은 비동기로 시작되므로 B가 받을 때까지 다시 보낸다.
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!nodeB.mightBeRevoked(jti) && System.currentTimeMillis() < deadline) {
+                nodeA.revoke(jti, expiresIn(60));
+                Thread.sleep(50);
+            }
+
+            assertThat(nodeB.mightBeRevoked(jti)).isTrue();
+            assertThat(nodeB.isRevoked(jti)).isTrue();
+        } finally {
+            container.destroy();
+        }
+    }
+
+    @Test
+    void failsClosedOnlyForJtisInLocalFilterWhileRedisIsDown() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(1, 60000);
+        RevokedTokenStore store = store(breaker, 1800);
+        String revoked = UUID.randomUUID().toString();
+        store.revoke(revoked, expiresIn(60));
+
+        breaker.execute(() -> {
+            throw new RedisConnectionFailureException("connection refused");
+        }, () -> null);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+
+        // 폐기 여부를 확인할 수 없는 jti는 거절하고, Bloom filter에 없는 jti는 Redis 없이 통과시킨다.
+        assertThat(store.isRevoked(revoked)).isTrue();
+        assertThat(store.isRevoked(UUID.randomUUID().toString())).isFalse();
+    }
+
+    private static RevokedTokenStore store(RedisCircuitBreaker breaker, long tokenValidityInSeconds) {
+        return new RevokedTokenStore(redisTemplate, breaker, ClientSideCache.disabled(), 10_000, 0.001, tokenValidityInSeconds);
+    }
+
+    private static Date expiresIn(long seconds) {
+        return new Date(System.currentTimeMillis() + seconds * 1000);
+    }
+}
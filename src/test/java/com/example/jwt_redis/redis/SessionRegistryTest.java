@@ -0,0 +1,113 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.dto.SessionDto;
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// embedded Redis에서 세션 등록 Lua 스크립트의 최대 세션 수 제한, 재발급 시 교체, 만료 세션 정리와
+// 종료된 세션의 refresh token family 폐기를 검증한다.
+class SessionRegistryTest {
+
+    private static final int MAX_SESSIONS = 2;
+
+    private static EmbeddedRedis redis;
+    private static StringRedisTemplate redisTemplate;
+    private static RevokedTokenStore revokedTokenStore;
+    private static RefreshTokenRepository refreshTokenRepository;
+    private static SessionRegistry sessionRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        redisTemplate = redis.stringRedisTemplate();
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(5, 5000);
+        revokedTokenStore = new RevokedTokenStore(redisTemplate, circuitBreaker, ClientSideCache.disabled(), 1000, 0.01, 60);
+        refreshTokenRepository = new RefreshTokenRepository(redisTemplate, circuitBreaker, 600);
+        sessionRegistry = new SessionRegistry(redisTemplate, revokedTokenStore, refreshTokenRepository, circuitBreaker, MAX_SESSIONS);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void evictsOldestSessionOverLimitAndRevokesItsRefreshFamily() {
+        RefreshTokenRepository.RefreshToken first = login("limited", "jti-1");
+        login("limited", "jti-2");
+        login("limited", "jti-3");
+
+        assertThat(jtis("limited")).containsExactly("jti-2", "jti-3");
+        assertThat(revokedTokenStore.isRevoked("jti-1")).isTrue();
+        assertThat(revokedTokenStore.isRevoked("jti-2")).isFalse();
+        // 종료된 세션은 refresh token으로 재발급받을 수 없다.
+        assertThat(refreshTokenRepository.rotate(first.getToken()).getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.INVALID);
+        // 마지막 세션이 만료될 때 키도 사라진다.
+        assertThat(redisTemplate.getExpire(SessionRegistry.KEY_PREFIX + "limited")).isPositive();
+    }
+
+    @Test
+    void reissueReplacesSessionOfSameFamily() {
+        RefreshTokenRepository.RefreshToken created = login("reissue", "jti-old");
+        RefreshTokenRepository.Rotation rotation = refreshTokenRepository.rotate(created.getToken());
+        sessionRegistry.register("reissue", "jti-new", new Date(System.currentTimeMillis() + 60000), rotation.getFamily());
+
+        assertThat(jtis("reissue")).containsExactly("jti-new");
+        assertThat(revokedTokenStore.isRevoked("jti-old")).isTrue(); // 교체된 이전 access token
+        assertThat(revokedTokenStore.isRevoked("jti-new")).isFalse();
+        // 같은 세션이므로 refresh token family는 그대로 사용할 수 있다.
+        assertThat(refreshTokenRepository.rotate(rotation.getRefreshToken()).getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.ROTATED);
+    }
+
+    @Test
+    void trimsExpiredSessionsOnRegisterWithoutRevokingThem() {
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForZSet().add(SessionRegistry.KEY_PREFIX + "expired", "jti-old", now - 1000);
+        login("expired", "jti-a");
+        login("expired", "jti-b");
+
+        assertThat(redisTemplate.opsForZSet().size(SessionRegistry.KEY_PREFIX + "expired")).isEqualTo(2);
+        assertThat(jtis("expired")).containsExactly("jti-a", "jti-b");
+        assertThat(revokedTokenStore.isRevoked("jti-a")).isFalse();
+    }
+
+    @Test
+    void revokesSingleAndAllSessions() {
+        RefreshTokenRepository.RefreshToken x = login("admin-kill", "jti-x");
+        RefreshTokenRepository.RefreshToken y = login("admin-kill", "jti-y");
+
+        assertThat(sessionRegistry.revoke("admin-kill", "jti-x")).isTrue();
+        assertThat(sessionRegistry.revoke("admin-kill", "jti-x")).isFalse();
+        assertThat(revokedTokenStore.isRevoked("jti-x")).isTrue();
+        assertThat(refreshTokenRepository.rotate(x.getToken()).getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.INVALID);
+
+        assertThat(sessionRegistry.revokeAll("admin-kill")).isEqualTo(1);
+        assertThat(jtis("admin-kill")).isEmpty();
+        assertThat(revokedTokenStore.isRevoked("jti-y")).isTrue();
+        assertThat(refreshTokenRepository.rotate(y.getToken()).getStatus())
+                .isEqualTo(RefreshTokenRepository.Rotation.Status.INVALID);
+    }
+
+    // 로그인처럼 새 refresh token family를 만들고 access token을 세션으로 등록한다.
+    private static RefreshTokenRepository.RefreshToken login(String username, String jti) {
+        RefreshTokenRepository.RefreshToken refreshToken = refreshTokenRepository.create(username);
+        sessionRegistry.register(username, jti, new Date(System.currentTimeMillis() + 60000), refreshToken.getFamily());
+        return refreshToken;
+    }
+
+    private static List<String> jtis(String username) {
+        return sessionRegistry.findSessions(username).stream().map(SessionDto::getJti).collect(Collectors.toList());
+    }
+}
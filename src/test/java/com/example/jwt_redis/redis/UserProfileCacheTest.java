@@ -0,0 +1,121 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.dto.UserProfile;
+import com.example.jwt_redis.dto.UserSnapshot;
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import com.example.jwt_redis.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// stateless-principal 모드에서 토큰 버전을 확인하는 UserProfile 캐시가
+// 유저 정보가 바뀔 때(UserService.evictUserCache) 이 노드와 다른 노드에서 모두 지워지는지 확인한다.
+class UserProfileCacheTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static EmbeddedRedis redis;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        redisTemplate = redis.stringRedisTemplate();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void cachesProfileAndEvictsFromRedis() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findProfileByUsername("cached")).thenReturn(Optional.of(new UserProfile("cached", "nick", true, 0)));
+        UserProfileCache cache = new UserProfileCache(template(UserProfile.class), userRepository, 100, 60, 600);
+
+        cache.get("cached");
+        cache.get("cached");
+        verify(userRepository, times(1)).findProfileByUsername("cached");
+        assertThat(redisTemplate.hasKey(UserProfileCache.KEY_PREFIX + "cached")).isTrue();
+
+        cache.evict("cached");
+        assertThat(redisTemplate.hasKey(UserProfileCache.KEY_PREFIX + "cached")).isFalse();
+        cache.get("cached");
+        verify(userRepository, times(2)).findProfileByUsername("cached");
+    }
+
+    @Test
+    void doesNotCacheMissingUser() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findProfileByUsername(anyString())).thenReturn(Optional.empty());
+        UserProfileCache cache = new UserProfileCache(template(UserProfile.class), userRepository, 100, 60, 600);
+
+        assertThat(cache.get("ghost")).isEmpty();
+        assertThat(cache.get("ghost")).isEmpty();
+        verify(userRepository, times(2)).findProfileByUsername("ghost");
+    }
+
+    @Test
+    void deactivationOnOneNodeInvalidatesOtherNodesProfile() throws Exception {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findProfileByUsername("deactivated"))
+                .thenReturn(Optional.of(new UserProfile("deactivated", "nick", true, 0)));
+        UserProfileCache profileA = new UserProfileCache(template(UserProfile.class), userRepository, 100, 60, 600);
+        UserSnapshotCache snapshotA = new UserSnapshotCache(redisTemplate, template(UserSnapshot.class),
+                ClientSideCache.disabled(), 100, 60, 600);
+        UserProfileCache profileB = new UserProfileCache(template(UserProfile.class), userRepository, 100, 60, 600);
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        container.addMessageListener(profileB, new ChannelTopic(UserSnapshotCache.CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        try {
+            assertThat(profileB.get("deactivated").get().getTokenVersion()).isZero();
+            when(userRepository.findProfileByUsername("deactivated"))
+                    .thenReturn(Optional.of(new UserProfile("deactivated", "nick", false, 1)));
+
+            // UserService.evictUserCache와 같은 순서. 구독은 비동기로 시작되므로 B가 새 값을 읽을 때까지 다시 보낸다.
+            long deadline = System.currentTimeMillis() + 5000;
+            UserProfile profile = profileB.get("deactivated").get();
+            while (profile.getTokenVersion() == 0 && System.currentTimeMillis() < deadline) {
+                profileA.evict("deactivated");
+                snapshotA.evict("deactivated");
+                Thread.sleep(50);
+                profile = profileB.get("deactivated").get();
+            }
+
+            assertThat(profile.getTokenVersion()).isEqualTo(1);
+            assertThat(profile.isActivated()).isFalse();
+        } finally {
+            container.destroy();
+        }
+    }
+
+    private static <T> RedisTemplate<String, T> template(Class<T> type) {
+        RedisSerializer<T> serializer = new RedisValueSerializers("json", 0, OBJECT_MAPPER).forType(type);
+        RedisTemplate<String, T> template = new RedisTemplate<>();
+        template.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(serializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.jwt_redis.redis;
+
+import com.example.jwt_redis.dto.UserSnapshot;
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 두 노드가 같은 Redis를 쓸 때 유저 스냅샷이 로컬 캐시 -> Redis -> DB 순서로 조회되고,
+// 한 노드에서 evict 하면 Redis와 다른 노드의 로컬 캐시에서도 지워지는지 확인한다.
+class UserSnapshotCacheTest {
+
+    private static EmbeddedRedis redis;
+    private static StringRedisTemplate redisTemplate;
+    private static RedisTemplate<String, UserSnapshot> snapshotTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        redisTemplate = redis.stringRedisTemplate();
+        snapshotTemplate = new RedisTemplate<>();
+        snapshotTemplate.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        snapshotTemplate.setKeySerializer(new StringRedisSerializer());
+        snapshotTemplate.setValueSerializer(new RedisValueSerializers("json", 0, new ObjectMapper()).forType(UserSnapshot.class));
+        snapshotTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @Test
+    void readsNearCacheThenRedisBeforeDatabase() {
+        UserSnapshotCache nodeA = cache();
+        UserSnapshotCache nodeB = cache();
+        CountingLoader loader = new CountingLoader("reader");
+
+        nodeA.get("reader", loader);
+        nodeA.get("reader", loader);
+        // B는 A가 Redis에 저장한 값을 읽는다.
+        assertThat(nodeB.get("reader", loader)).isPresent();
+
+        assertThat(loader.calls.get()).isEqualTo(1);
+        assertThat(nodeA.getNearHits()).isEqualTo(1);
+        assertThat(nodeB.getRedisHits()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheMissingUser() {
+        UserSnapshotCache cache = cache();
+        CountingLoader loader = new CountingLoader(null);
+
+        assertThat(cache.get("ghost", loader)).isEmpty();
+        assertThat(cache.get("ghost", loader)).isEmpty();
+
+        assertThat(loader.calls.get()).isEqualTo(2);
+        assertThat(redisTemplate.hasKey(UserSnapshotCache.KEY_PREFIX + "ghost")).isFalse();
+    }
+
+    @Test
+    void evictRemovesRedisAndOtherNodesNearCache() throws Exception {
+        UserSnapshotCache nodeA = cache();
+        UserSnapshotCache nodeB = cache();
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        container.addMessageListener(nodeB, new ChannelTopic(UserSnapshotCache.CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        try {
+            CountingLoader loader = new CountingLoader("changed");
+            nodeB.get("changed", loader);
+            nodeB.get("changed", loader);
+            assertThat(loader.calls.get()).isEqualTo(1);
+
+            // 구독은 비동기로 시작되므로 B가 다시 DB에서 읽을 때까지 evict를 보낸다.
+            long deadline = System.currentTimeMillis() + 5000;
+            while (loader.calls.get() == 1 && System.currentTimeMillis() < deadline) {
+                nodeA.evict("changed");
+                assertThat(redisTemplate.hasKey(UserSnapshotCache.KEY_PREFIX + "changed")).isFalse();
+                Thread.sleep(50);
+                nodeB.get("changed", loader);
+            }
+
+            assertThat(loader.calls.get()).isEqualTo(2);
+        } finally {
+            container.destroy();
+        }
+    }
+
+    private static UserSnapshotCache cache() {
+        return new UserSnapshotCache(redisTemplate, snapshotTemplate, ClientSideCache.disabled(), 100, 60, 600);
+    }
+
+    // DB 조회 대신 호출 횟수를 센다. username이 null이면 없는 유저
+    private static final class CountingLoader implements Function<String, Optional<UserSnapshot>> {
+        private final String username;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private CountingLoader(String username) {
+            this.username = username;
+        }
+
+        @Override
+        public Optional<UserSnapshot> apply(String name) {
+            calls.incrementAndGet();
+            return username == null
+                    ? Optional.empty()
+                    : Optional.of(new UserSnapshot(username, username, true, Collections.singletonList("ROLE_USER")));
+        }
+    }
+}
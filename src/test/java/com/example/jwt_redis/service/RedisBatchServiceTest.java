@@ -0,0 +1,132 @@
+package com.example.jwt_redis.service;
+
+import com.example.jwt_redis.controller.ApiExceptionHandler;
+import com.example.jwt_redis.dto.RedisBatchDto;
+import com.example.jwt_redis.loadtest.EmbeddedRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 배치 API의 제한(413)과 MGET/MSET/파이프라인, SCAN 결과를 나눠서 flush 하는지 확인한다.
+class RedisBatchServiceTest {
+
+    private static final int MAX_KEYS = 3;
+    private static final int MAX_VALUE_BYTES = 8;
+    private static final int SCAN_COUNT = 2;
+
+    private static EmbeddedRedis redis;
+    private static StringRedisTemplate redisTemplate;
+    private static RedisBatchService service;
+
+    @BeforeAll
+    static void setUp() {
+        redis = EmbeddedRedis.start();
+        redisTemplate = redis.stringRedisTemplate();
+        service = new RedisBatchService(redisTemplate, new SimpleMeterRegistry(), MAX_KEYS, MAX_VALUE_BYTES, SCAN_COUNT);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        redis.close();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.execute(connection -> {
+            connection.flushDb();
+            return null;
+        }, true);
+    }
+
+    @Test
+    void writesWithMsetOrPipelineAndReadsWithMget() {
+        service.write(batch(null, "a", "1", "b", "2"));
+        service.write(batch(60L, "c", "3"));
+
+        assertThat(redisTemplate.getExpire("a")).isEqualTo(-1L);
+        assertThat(redisTemplate.getExpire("c", TimeUnit.SECONDS)).isBetween(1L, 60L);
+        Map<String, String> values = service.read(Arrays.asList("a", "c", "missing")).getValues();
+        assertThat(values).containsEntry("a", "1").containsEntry("c", "3").containsEntry("missing", null);
+    }
+
+    @Test
+    void rejectsTooManyKeysWith413() {
+        assertThatThrownBy(() -> service.write(batch(null, "a", "1", "b", "2", "c", "3", "d", "4")))
+                .isInstanceOf(RedisBatchLimitExceededException.class)
+                .satisfies(e -> assertThat(new ApiExceptionHandler()
+                        .handleRedisBatchLimitExceeded((RedisBatchLimitExceededException) e).getStatusCode())
+                        .isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        assertThatThrownBy(() -> service.read(Arrays.asList("a", "b", "c", "d")))
+                .isInstanceOf(RedisBatchLimitExceededException.class);
+        assertThat(redisTemplate.hasKey("a")).isFalse();
+    }
+
+    @Test
+    void limitsValueSizeInUtf8Bytes() {
+        // 8글자, 8byte
+        service.write(batch(null, "ascii", "abcdefgh"));
+        // 3글자지만 UTF-8로 9byte
+        assertThatThrownBy(() -> service.write(batch(null, "korean", "가나다")))
+                .isInstanceOf(RedisBatchLimitExceededException.class);
+
+        assertThat(redisTemplate.hasKey("ascii")).isTrue();
+        assertThat(redisTemplate.hasKey("korean")).isFalse();
+    }
+
+    @Test
+    void streamsScanResultsAndFlushesEveryScanCount() {
+        for (int i = 0; i < 5; i++) {
+            redisTemplate.opsForValue().set("scan:" + i, "v");
+        }
+        redisTemplate.opsForValue().set("other", "v");
+        FlushCountingStream out = new FlushCountingStream();
+
+        service.scan("scan:*", 0, out);
+
+        Set<String> keys = new HashSet<>(Arrays.asList(out.lines()));
+        assertThat(keys).containsExactlyInAnyOrder("scan:0", "scan:1", "scan:2", "scan:3", "scan:4");
+        // 2개마다 한 번, 마지막에 한 번
+        assertThat(out.flushes).isEqualTo(3);
+
+        FlushCountingStream limited = new FlushCountingStream();
+        service.scan("scan:*", 3, limited);
+        assertThat(limited.lines()).hasSize(3);
+    }
+
+    private static RedisBatchDto batch(Long ttlSeconds, String... keyValues) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            entries.put(keyValues[i], keyValues[i + 1]);
+        }
+        return RedisBatchDto.builder().entries(entries).ttlSeconds(ttlSeconds).build();
+    }
+
+    private static final class FlushCountingStream extends ByteArrayOutputStream {
+        private int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        String[] lines() {
+            return new String(toByteArray(), StandardCharsets.UTF_8).split("\n");
+        }
+    }
+}
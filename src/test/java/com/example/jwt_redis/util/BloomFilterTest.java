@@ -0,0 +1,58 @@
+package com.example.jwt_redis.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 폐기된 jti를 걸러내는 Bloom filter의 크기 계산, false negative가 없는지, false positive 비율을 확인한다.
+class BloomFilterTest {
+
+    @Test
+    void sizesBitsAndHashFunctionsFromExpectedInsertions() {
+        // RevokedTokenStore 기본 설정 (세대당 100만 개, fpp 1%)
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        assertThat(filter.bitSize()).isEqualTo(9_585_088);
+        assertThat(filter.hashFunctions()).isEqualTo(7);
+    }
+
+    @Test
+    void neverMissesInsertedValue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        String[] values = new String[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = UUID.randomUUID().toString();
+            filter.put(values[i]);
+        }
+
+        for (String value : values) {
+            assertThat(filter.mightContain(value)).isTrue();
+        }
+    }
+
+    @Test
+    void keepsFalsePositiveRateNearConfiguredValue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
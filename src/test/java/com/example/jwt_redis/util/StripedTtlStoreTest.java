@@ -0,0 +1,92 @@
+package com.example.jwt_redis.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Redis 장애 중에 사용하는 로컬 저장소의 TTL, 크기 제한, 쓰기 반영(dirty) 처리를 확인한다.
+class StripedTtlStoreTest {
+
+    private static final long NOW = 1_000_000;
+
+    @Test
+    void expiresEntriesAndKeepsTombstones() {
+        StripedTtlStore store = new StripedTtlStore(4, 100, 1 << 20);
+        store.put("fruit", "banana", NOW + 1000, false, NOW);
+        store.put("deleted", null, 0, true, NOW);
+
+        assertThat(store.find("fruit", NOW + 999).getValue()).isEqualTo("banana");
+        assertThat(store.find("fruit", NOW + 1000)).isNull();
+        // 삭제로 기록된 키는 값이 없다는 답을 가지고 있다.
+        assertThat(store.find("deleted", NOW)).isNotNull();
+        assertThat(store.find("deleted", NOW).getValue()).isNull();
+    }
+
+    @Test
+    void boundsEntriesAndBytesPerStripe() {
+        StripedTtlStore byCount = new StripedTtlStore(4, 16, 1 << 20);
+        for (int i = 0; i < 100; i++) {
+            byCount.put("key" + i, "value" + i, 0, i % 2 == 0, NOW);
+        }
+        assertThat(byCount.size()).isLessThanOrEqualTo(16);
+        assertThat(byCount.getEvictions() + byCount.getDirtyEvictions()).isEqualTo(100 - byCount.size());
+
+        StripedTtlStore byBytes = new StripedTtlStore(1, 1000, 1000);
+        for (int i = 0; i < 50; i++) {
+            byBytes.put("key" + i, "0123456789", 0, false, NOW);
+        }
+        assertThat(byBytes.size()).isLessThan(50);
+        assertThat(byBytes.find("key49", NOW)).isNotNull(); // 가장 최근에 넣은 키는 남는다.
+        assertThat(byBytes.find("key0", NOW)).isNull();
+    }
+
+    @Test
+    void drainsDirtyEntriesAndRestoresFailedBatch() {
+        StripedTtlStore store = new StripedTtlStore(2, 100, 1 << 20);
+        store.put("clean", "1", 0, false, NOW);
+        store.put("written", "2", 0, true, NOW);
+        store.put("expired", "3", NOW + 10, true, NOW);
+
+        List<StripedTtlStore.Entry> batch = store.drainDirty(10, NOW + 10);
+        assertThat(batch).extracting(StripedTtlStore.Entry::getKey).containsExactly("written");
+        assertThat(store.dirtyCount()).isZero();
+
+        // 반영에 실패하면 다시 dirty로 돌린다.
+        store.markDirty(batch);
+        assertThat(store.dirtyCount()).isEqualTo(1);
+
+        // 반영하는 사이에 새로 쓴 값은 지우지 않는다.
+        batch = store.drainDirty(10, NOW);
+        store.put("written", "4", 0, true, NOW);
+        store.removeAll(batch);
+        assertThat(store.find("written", NOW).getValue()).isEqualTo("4");
+        assertThat(store.find("written", NOW).isDirty()).isTrue();
+        assertThat(store.find("clean", NOW).getValue()).isEqualTo("1");
+    }
+
+    @Test
+    void keepsInFlightEntriesUntilWrittenBack() {
+        StripedTtlStore store = new StripedTtlStore(2, 100, 1 << 20);
+        store.put("pending", "new", 0, true, NOW);
+
+        List<StripedTtlStore.Entry> batch = store.drainDirty(10, NOW);
+        assertThat(store.find("pending", NOW).isPending()).isTrue();
+
+        // 반영하는 사이에 Redis에서 읽은 이전 값이나 없는 키로 덮어쓰지 않는다.
+        store.putIfNotPending("pending", "stale", 0, NOW);
+        store.removeIfNotPending("pending");
+        assertThat(store.find("pending", NOW).getValue()).isEqualTo("new");
+
+        // 반영에 실패하면 쓰기를 잃지 않고 다시 dirty가 된다.
+        store.markDirty(batch);
+        assertThat(store.find("pending", NOW).isDirty()).isTrue();
+
+        batch = store.drainDirty(10, NOW);
+        store.removeAll(batch);
+        assertThat(store.find("pending", NOW)).isNull();
+        store.putIfNotPending("pending", "from-redis", 0, NOW);
+        assertThat(store.find("pending", NOW).isPending()).isFalse();
+    }
+}